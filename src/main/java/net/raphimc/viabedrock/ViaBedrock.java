@@ -17,6 +17,8 @@
  */
 package net.raphimc.viabedrock;
 
+import net.raphimc.viabedrock.api.chunk.ChunkRemapExecutor;
+import net.raphimc.viabedrock.api.http.PackDownloadService;
 import net.raphimc.viabedrock.api.http.ResourcePackHttpServer;
 import net.raphimc.viabedrock.platform.ViaBedrockPlatform;
 
@@ -31,6 +33,8 @@ public class ViaBedrock {
     private static ViaBedrockPlatform platform;
     private static ViaBedrockConfig config;
     private static ResourcePackHttpServer resourcePackServer;
+    private static ChunkRemapExecutor chunkRemapExecutor;
+    private static PackDownloadService packDownloadService;
 
     private ViaBedrock() {
     }
@@ -48,12 +52,35 @@ public class ViaBedrock {
             } catch (Throwable e) {
                 throw new IllegalStateException("Failed to start resource pack HTTP server", e);
             }
+            ViaBedrock.packDownloadService = new PackDownloadService(config.getPackDownloadThreads(), config.getPackDownloadHostLimit());
+        }
+        if (config.getChunkRemapThreads() > 0) {
+            ViaBedrock.chunkRemapExecutor = new ChunkRemapExecutor(config.getChunkRemapThreads());
         }
         if (config.shouldEnableExperimentalFeatures()) {
             platform.getLogger().log(Level.WARNING, "Experimental features are enabled. These features might not fully stable/tested and may cause issues.");
         }
     }
 
+    /**
+     * Stops the worker threads of ViaBedrock. Called by the platform when it is disabled.
+     */
+    public static void shutdown() {
+        if (ViaBedrock.resourcePackServer != null) {
+            ViaBedrock.resourcePackServer.stop();
+        }
+        if (ViaBedrock.packDownloadService != null) {
+            platform.getLogger().log(Level.INFO, "Pack download service shutting down with " + ViaBedrock.packDownloadService.getQueuedCount() + " queued and " + ViaBedrock.packDownloadService.getActiveCount() + " running downloads");
+            ViaBedrock.packDownloadService.shutdown();
+        }
+        if (ViaBedrock.chunkRemapExecutor != null) {
+            final ChunkRemapExecutor executor = ViaBedrock.chunkRemapExecutor;
+            ViaBedrock.chunkRemapExecutor = null; // Chunks are remapped on the event loop again
+            platform.getLogger().log(Level.INFO, String.format("Chunk remap executor remapped %d chunks (%.2fms average, %.2fms max latency), discarding %d queued and %d running remaps", executor.getCompletedCount(), executor.getAverageLatency(), executor.getMaxLatency(), executor.getQueueDepth(), executor.getActiveCount()));
+            executor.shutdown();
+        }
+    }
+
     public static ViaBedrockPlatform getPlatform() {
         return ViaBedrock.platform;
     }
@@ -66,4 +93,12 @@ public class ViaBedrock {
         return ViaBedrock.resourcePackServer;
     }
 
+    public static ChunkRemapExecutor getChunkRemapExecutor() {
+        return ViaBedrock.chunkRemapExecutor;
+    }
+
+    public static PackDownloadService getPackDownloadService() {
+        return ViaBedrock.packDownloadService;
+    }
+
 }
@@ -30,13 +30,21 @@ public class ViaBedrockConfig extends Config implements net.raphimc.viabedrock.p
 
     private boolean enableExperimentalFeatures;
     private BlobCacheMode blobCacheMode;
+    private int blobCacheMaxSize;
+    private int blobCacheMaxAge;
+    private int blobCacheMemorySize;
     private boolean translateResourcePacks;
     private String resourcePackHost;
     private int resourcePackPort;
     private String resourcePackUrl;
     private PackCacheMode packCacheMode;
+    private int packDownloadWindow;
+    private int packDownloadSpillSize;
+    private int packDownloadThreads;
+    private int packDownloadHostLimit;
     private boolean translateShowCoordinatesGameRule;
     private boolean disableServerBlacklist;
+    private int chunkRemapThreads;
 
     public ViaBedrockConfig(final File configFile, final Logger logger) {
         super(configFile, logger);
@@ -51,13 +59,21 @@ public class ViaBedrockConfig extends Config implements net.raphimc.viabedrock.p
     private void loadFields() {
         this.enableExperimentalFeatures = this.getBoolean("enable-experimental-features", false);
         this.blobCacheMode = BlobCacheMode.byName(this.getString("blob-cache", "disk"));
+        this.blobCacheMaxSize = this.getInt("blob-cache-max-size", 2048);
+        this.blobCacheMaxAge = this.getInt("blob-cache-max-age", 30);
+        this.blobCacheMemorySize = this.getInt("blob-cache-memory-size", 256);
         this.translateResourcePacks = this.getBoolean("translate-resource-packs", true);
         this.resourcePackHost = this.getString("resource-pack-host", "127.0.0.1");
         this.resourcePackPort = this.getInt("resource-pack-port", 0);
         this.resourcePackUrl = this.getString("resource-pack-url", "");
         this.packCacheMode = PackCacheMode.byName(this.getString("pack-cache", "disk"));
+        this.packDownloadWindow = this.getInt("pack-download-window", 8);
+        this.packDownloadSpillSize = this.getInt("pack-download-spill-size", 32);
+        this.packDownloadThreads = this.getInt("pack-download-threads", 16);
+        this.packDownloadHostLimit = this.getInt("pack-download-host-limit", 4);
         this.translateShowCoordinatesGameRule = this.getBoolean("translate-show-coordinates-game-rule", false);
         this.disableServerBlacklist = this.getBoolean("disable-server-blacklist", false);
+        this.chunkRemapThreads = this.getInt("chunk-remap-threads", 0);
     }
 
     @Override
@@ -84,6 +100,21 @@ public class ViaBedrockConfig extends Config implements net.raphimc.viabedrock.p
         return this.blobCacheMode;
     }
 
+    @Override
+    public int getBlobCacheMaxSize() {
+        return this.blobCacheMaxSize;
+    }
+
+    @Override
+    public int getBlobCacheMaxAge() {
+        return this.blobCacheMaxAge;
+    }
+
+    @Override
+    public int getBlobCacheMemorySize() {
+        return this.blobCacheMemorySize;
+    }
+
     @Override
     public boolean shouldTranslateResourcePacks() {
         return this.translateResourcePacks;
@@ -109,6 +140,26 @@ public class ViaBedrockConfig extends Config implements net.raphimc.viabedrock.p
         return this.packCacheMode;
     }
 
+    @Override
+    public int getPackDownloadWindow() {
+        return this.packDownloadWindow;
+    }
+
+    @Override
+    public int getPackDownloadSpillSize() {
+        return this.packDownloadSpillSize;
+    }
+
+    @Override
+    public int getPackDownloadThreads() {
+        return this.packDownloadThreads;
+    }
+
+    @Override
+    public int getPackDownloadHostLimit() {
+        return this.packDownloadHostLimit;
+    }
+
     @Override
     public boolean shouldTranslateShowCoordinatesGameRule() {
         return this.translateShowCoordinatesGameRule;
@@ -119,4 +170,9 @@ public class ViaBedrockConfig extends Config implements net.raphimc.viabedrock.p
         return this.disableServerBlacklist;
     }
 
+    @Override
+    public int getChunkRemapThreads() {
+        return this.chunkRemapThreads;
+    }
+
 }
@@ -29,6 +29,7 @@ import java.util.List;
 public class BedrockChunk extends Chunk1_18 {
 
     private boolean requestSubChunks = false;
+    private boolean sentToJavaClient = false;
 
     public BedrockChunk(final int x, final int z, final BedrockChunkSection[] sections) {
         this(x, z, sections, new CompoundTag(), new ArrayList<>());
@@ -51,6 +52,14 @@ public class BedrockChunk extends Chunk1_18 {
         this.requestSubChunks = requestSubChunks;
     }
 
+    public boolean isSentToJavaClient() {
+        return this.sentToJavaClient;
+    }
+
+    public void setSentToJavaClient(final boolean sentToJavaClient) {
+        this.sentToJavaClient = sentToJavaClient;
+    }
+
     public BedrockBlockEntity getBlockEntityAt(final BlockPosition position) {
         for (BlockEntity blockEntity : this.blockEntities) {
             final BedrockBlockEntity bedrockBlockEntity = (BedrockBlockEntity) blockEntity;
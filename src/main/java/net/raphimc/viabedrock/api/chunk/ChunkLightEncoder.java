@@ -0,0 +1,111 @@
+/*
+ * This file is part of ViaBedrock - https://github.com/RaphiMC/ViaBedrock
+ * Copyright (C) 2023-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.viabedrock.api.chunk;
+
+import com.viaversion.viaversion.api.minecraft.chunks.ChunkSectionLight;
+import com.viaversion.viaversion.api.protocol.packet.PacketWrapper;
+import com.viaversion.viaversion.api.type.Types;
+import com.viaversion.viaversion.libs.fastutil.ints.Int2ObjectMap;
+import com.viaversion.viaversion.libs.fastutil.ints.Int2ObjectOpenHashMap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+
+import java.util.Arrays;
+
+/**
+ * Writes the light data part of the java LEVEL_CHUNK_WITH_LIGHT packet.<br>
+ * Full bright light data only depends on the world height, so it is encoded once per world height and shared between all connections.
+ * The encoded data can only be used if the packet isn't read again by protocols for older java versions, which expect the individual light fields.
+ */
+public class ChunkLightEncoder {
+
+    private static final byte[] FULL_LIGHT = new byte[ChunkSectionLight.LIGHT_LENGTH];
+    private static final Int2ObjectMap<byte[]> FULL_BRIGHT_LIGHT = new Int2ObjectOpenHashMap<>();
+
+    static {
+        Arrays.fill(FULL_LIGHT, (byte) 0xFF);
+    }
+
+    /**
+     * Writes the shared encoded light data for a fully sky lit chunk without block light. Has to be the last data written into the packet.
+     *
+     * @param wrapper      The LEVEL_CHUNK_WITH_LIGHT packet
+     * @param sectionCount The amount of sections of the chunk
+     */
+    public static void writeEncodedFullBright(final PacketWrapper wrapper, final int sectionCount) {
+        byte[] encodedLight;
+        synchronized (FULL_BRIGHT_LIGHT) {
+            encodedLight = FULL_BRIGHT_LIGHT.get(sectionCount);
+            if (encodedLight == null) {
+                final ByteBuf buffer = Unpooled.buffer();
+                try {
+                    writeFullBright(buffer, sectionCount);
+                    encodedLight = ByteBufUtil.getBytes(buffer);
+                } finally {
+                    buffer.release();
+                }
+                FULL_BRIGHT_LIGHT.put(sectionCount, encodedLight);
+            }
+        }
+        wrapper.write(Types.REMAINING_BYTES, encodedLight); // light data (only read from)
+    }
+
+    /**
+     * Writes the light data for a fully sky lit chunk without block light as individual fields.
+     *
+     * @param wrapper      The LEVEL_CHUNK_WITH_LIGHT packet
+     * @param sectionCount The amount of sections of the chunk
+     */
+    public static void writeFullBright(final PacketWrapper wrapper, final int sectionCount) {
+        final int lightSectionCount = sectionCount + 2; // One additional section below and above the world
+        final long[] lightMask = createLightMask(lightSectionCount);
+        wrapper.write(Types.LONG_ARRAY_PRIMITIVE, lightMask); // sky light mask
+        wrapper.write(Types.LONG_ARRAY_PRIMITIVE, new long[0]); // block light mask
+        wrapper.write(Types.LONG_ARRAY_PRIMITIVE, new long[0]); // empty sky light mask
+        wrapper.write(Types.LONG_ARRAY_PRIMITIVE, lightMask.clone()); // empty block light mask
+        wrapper.write(Types.VAR_INT, lightSectionCount); // sky light length
+        for (int i = 0; i < lightSectionCount; i++) {
+            wrapper.write(Types.BYTE_ARRAY_PRIMITIVE, FULL_LIGHT.clone()); // sky light
+        }
+        wrapper.write(Types.VAR_INT, 0); // block light length
+    }
+
+    private static void writeFullBright(final ByteBuf buffer, final int sectionCount) {
+        final int lightSectionCount = sectionCount + 2; // One additional section below and above the world
+        final long[] lightMask = createLightMask(lightSectionCount);
+        Types.LONG_ARRAY_PRIMITIVE.write(buffer, lightMask); // sky light mask
+        Types.LONG_ARRAY_PRIMITIVE.write(buffer, new long[0]); // block light mask
+        Types.LONG_ARRAY_PRIMITIVE.write(buffer, new long[0]); // empty sky light mask
+        Types.LONG_ARRAY_PRIMITIVE.write(buffer, lightMask); // empty block light mask
+        Types.VAR_INT.writePrimitive(buffer, lightSectionCount); // sky light length
+        for (int i = 0; i < lightSectionCount; i++) {
+            Types.BYTE_ARRAY_PRIMITIVE.write(buffer, FULL_LIGHT); // sky light
+        }
+        Types.VAR_INT.writePrimitive(buffer, 0); // block light length
+    }
+
+    private static long[] createLightMask(final int lightSectionCount) {
+        final long[] lightMask = new long[(lightSectionCount + 63) >> 6];
+        for (int i = 0; i < lightSectionCount; i++) {
+            lightMask[i >> 6] |= 1L << (i & 63);
+        }
+        return lightMask;
+    }
+
+}
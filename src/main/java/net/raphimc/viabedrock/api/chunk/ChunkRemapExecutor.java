@@ -0,0 +1,95 @@
+/*
+ * This file is part of ViaBedrock - https://github.com/RaphiMC/ViaBedrock
+ * Copyright (C) 2023-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.viabedrock.api.chunk;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded worker pool which is used to remap chunks off the netty event loop.<br>
+ * If the queue is full, the chunk is remapped on the submitting thread instead.
+ */
+public class ChunkRemapExecutor {
+
+    private static final int QUEUE_CAPACITY = 4096;
+
+    private final ThreadPoolExecutor executor;
+    private final LongAdder completedTasks = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    public ChunkRemapExecutor(final int threads) {
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(QUEUE_CAPACITY), new ThreadFactoryBuilder().setDaemon(true).setNameFormat("ViaBedrock-Chunk-Remapper-%d").build(), new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    public <T> CompletableFuture<T> submit(final Supplier<T> task) {
+        final long submitTime = System.nanoTime();
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return task.get();
+            } finally {
+                final long latency = System.nanoTime() - submitTime;
+                this.completedTasks.increment();
+                this.totalLatencyNanos.add(latency);
+                this.maxLatencyNanos.accumulateAndGet(latency, Math::max);
+            }
+        }, this.executor);
+    }
+
+    public void shutdown() {
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * @return The amount of chunks which are waiting to be remapped
+     */
+    public int getQueueDepth() {
+        return this.executor.getQueue().size();
+    }
+
+    /**
+     * @return The amount of chunks which are currently being remapped
+     */
+    public int getActiveCount() {
+        return this.executor.getActiveCount();
+    }
+
+    public long getCompletedCount() {
+        return this.completedTasks.sum();
+    }
+
+    /**
+     * @return The average time between submitting and finishing a chunk remap in milliseconds
+     */
+    public double getAverageLatency() {
+        final long completed = this.completedTasks.sum();
+        return completed == 0 ? 0D : this.totalLatencyNanos.sum() / (double) completed / 1_000_000D;
+    }
+
+    /**
+     * @return The maximum time between submitting and finishing a chunk remap in milliseconds
+     */
+    public double getMaxLatency() {
+        return this.maxLatencyNanos.get() / 1_000_000D;
+    }
+
+}
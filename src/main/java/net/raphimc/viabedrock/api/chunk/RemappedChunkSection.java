@@ -0,0 +1,137 @@
+/*
+ * This file is part of ViaBedrock - https://github.com/RaphiMC/ViaBedrock
+ * Copyright (C) 2023-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.viabedrock.api.chunk;
+
+import com.viaversion.viaversion.api.minecraft.blockentity.BlockEntity;
+import com.viaversion.viaversion.api.minecraft.chunks.ChunkSection;
+import com.viaversion.viaversion.api.minecraft.chunks.DataPalette;
+import com.viaversion.viaversion.api.minecraft.chunks.PaletteType;
+import com.viaversion.viaversion.libs.fastutil.ints.IntArrayList;
+import com.viaversion.viaversion.libs.fastutil.ints.IntList;
+import com.viaversion.viaversion.libs.fastutil.ints.IntSet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A java chunk section which was converted from a bedrock chunk section.<br>
+ * Contains everything which can be computed without access to the connection state, as well as the blocks which need connection state (block entities, item frames) to be finished.
+ */
+public class RemappedChunkSection {
+
+    private final ChunkSection section;
+    private final byte[] worldSurface = new byte[16 * 16]; // Highest non-air block + 1 per column (0 = none)
+    private final byte[] motionBlocking = new byte[16 * 16]; // Highest motion blocking block + 1 per column (0 = none)
+    private final IntList taggedBlocks = new IntArrayList(0); // Packed position, tag id and waterlogged flag
+    private final IntList taggedBlockStates = new IntArrayList(0); // Bedrock block state of the tagged block
+    private final List<BlockEntity> blockEntities = new ArrayList<>(0); // Java block entities, filled when the section is finished
+
+    public RemappedChunkSection(final ChunkSection section) {
+        this.section = section;
+    }
+
+    public static int packTaggedBlock(final int x, final int y, final int z, final byte tagId, final boolean waterlogged) {
+        return x << 8 | y << 4 | z | (tagId & 0xFF) << 12 | (waterlogged ? 1 << 20 : 0);
+    }
+
+    public static int unpackX(final int taggedBlock) {
+        return taggedBlock >> 8 & 15;
+    }
+
+    public static int unpackY(final int taggedBlock) {
+        return taggedBlock >> 4 & 15;
+    }
+
+    public static int unpackZ(final int taggedBlock) {
+        return taggedBlock & 15;
+    }
+
+    public static byte unpackTagId(final int taggedBlock) {
+        return (byte) (taggedBlock >> 12);
+    }
+
+    public static boolean unpackWaterlogged(final int taggedBlock) {
+        return (taggedBlock & 1 << 20) != 0;
+    }
+
+    public void addTaggedBlock(final int taggedBlock, final int bedrockBlockState) {
+        this.taggedBlocks.add(taggedBlock);
+        this.taggedBlockStates.add(bedrockBlockState);
+    }
+
+    /**
+     * Recalculates the heightmap contribution of a single column of this section.
+     *
+     * @param x                         The x coordinate of the column
+     * @param z                         The z coordinate of the column
+     * @param motionBlockingBlockStates The java block states which are motion blocking
+     */
+    public void updateHeightmap(final int x, final int z, final IntSet motionBlockingBlockStates) {
+        final int index = z << 4 | x;
+        final DataPalette blockPalette = this.section.palette(PaletteType.BLOCKS);
+        this.worldSurface[index] = 0;
+        this.motionBlocking[index] = 0;
+        if (blockPalette.size() == 1 && blockPalette.idByIndex(0) == 0) return;
+
+        for (int y = 15; y >= 0; y--) {
+            final int blockState = blockPalette.idAt(x, y, z);
+            if (blockState != 0) {
+                if (this.worldSurface[index] == 0) {
+                    this.worldSurface[index] = (byte) (y + 1);
+                }
+                if (motionBlockingBlockStates.contains(blockState)) {
+                    this.motionBlocking[index] = (byte) (y + 1);
+                    break;
+                }
+            }
+        }
+    }
+
+    public void updateHeightmap(final IntSet motionBlockingBlockStates) {
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) {
+                this.updateHeightmap(x, z, motionBlockingBlockStates);
+            }
+        }
+    }
+
+    public ChunkSection section() {
+        return this.section;
+    }
+
+    public byte[] worldSurface() {
+        return this.worldSurface;
+    }
+
+    public byte[] motionBlocking() {
+        return this.motionBlocking;
+    }
+
+    public IntList taggedBlocks() {
+        return this.taggedBlocks;
+    }
+
+    public IntList taggedBlockStates() {
+        return this.taggedBlockStates;
+    }
+
+    public List<BlockEntity> blockEntities() {
+        return this.blockEntities;
+    }
+
+}
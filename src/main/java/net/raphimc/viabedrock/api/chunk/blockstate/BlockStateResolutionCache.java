@@ -0,0 +1,81 @@
+/*
+ * This file is part of ViaBedrock - https://github.com/RaphiMC/ViaBedrock
+ * Copyright (C) 2023-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.viabedrock.api.chunk.blockstate;
+
+import com.viaversion.nbt.tag.CompoundTag;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntFunction;
+
+/**
+ * Thread-safe bounded cache of resolved persistent (NBT) block states.<br>
+ * Resolving a persistent block state requires copying, upgrading and sanitizing the tag, which is expensive compared to a hash lookup.
+ * The input tag itself is used as key. Its equality and hash code are order independent, so tags which only differ in the order of their states share an entry.
+ */
+public class BlockStateResolutionCache {
+
+    private final Map<CompoundTag, Integer> cache = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param maxSize The maximum amount of cached block states
+     */
+    public BlockStateResolutionCache(final int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Gets the cached result for the given tag or resolves and caches it.
+     *
+     * @param tag      The persistent block state tag. It is not modified.
+     * @param resolver The function which resolves uncached tags. It must not modify the given tag.
+     * @return The resolved block state id
+     */
+    public int resolve(final CompoundTag tag, final ToIntFunction<CompoundTag> resolver) {
+        final Integer cached = this.cache.get(tag);
+        if (cached != null) {
+            this.hits.increment();
+            return cached;
+        }
+
+        this.misses.increment();
+        final int resolved = resolver.applyAsInt(tag);
+        if (this.cache.size() >= this.maxSize) { // Persistent block states are rare, so simply starting over is good enough
+            this.cache.clear();
+        }
+        this.cache.put(tag.copy(), resolved); // Copy the tag to guard against later modifications of the packet data
+        return resolved;
+    }
+
+    public long getHitCount() {
+        return this.hits.sum();
+    }
+
+    public long getMissCount() {
+        return this.misses.sum();
+    }
+
+    public int size() {
+        return this.cache.size();
+    }
+
+}
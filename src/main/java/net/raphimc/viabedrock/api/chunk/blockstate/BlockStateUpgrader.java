@@ -18,6 +18,7 @@
 package net.raphimc.viabedrock.api.chunk.blockstate;
 
 import com.viaversion.nbt.tag.CompoundTag;
+import com.viaversion.nbt.tag.IntTag;
 import com.viaversion.viaversion.libs.gson.JsonObject;
 import com.viaversion.viaversion.util.GsonUtil;
 import net.raphimc.viabedrock.ViaBedrock;
@@ -26,6 +27,7 @@ import net.raphimc.viabedrock.api.util.FileSystemUtil;
 
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.logging.Level;
 
@@ -45,14 +47,44 @@ public class BlockStateUpgrader {
             ViaBedrock.getPlatform().getLogger().log(Level.SEVERE, "Failed to load block state upgrade schema", e);
             this.schemas.clear();
         }
+        this.schemas.sort(Comparator.comparingInt(BlockStateUpgradeSchema::version)); // Stable, so schemas with the same version keep their file order
     }
 
     public void upgradeToLatest(final CompoundTag tag) {
         BedrockBlockState.sanitizeName(tag);
 
-        for (BlockStateUpgradeSchema schema : this.schemas) {
-            schema.upgrade(tag);
+        for (int i = this.firstApplicableSchema(tag); i < this.schemas.size(); i++) {
+            this.schemas.get(i).upgrade(tag);
         }
     }
 
+    /**
+     * Schemas skip tags which have a newer version than themselves. As the schemas are sorted by version, all schemas below the version of the tag can be skipped without checking them one by one.
+     *
+     * @param tag The block state tag
+     * @return The index of the first schema which has to be applied to the tag
+     */
+    private int firstApplicableSchema(final CompoundTag tag) {
+        final IntTag versionTag = tag.getIntTag("version");
+        if (versionTag == null) {
+            return 0;
+        }
+        final int version = versionTag.asInt();
+        if (version < 0) {
+            return this.schemas.size();
+        }
+
+        int low = 0;
+        int high = this.schemas.size();
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (this.schemas.get(mid).version() < version) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
 }
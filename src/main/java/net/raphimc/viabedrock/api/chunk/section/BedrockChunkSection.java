@@ -21,6 +21,7 @@ import com.viaversion.viaversion.api.minecraft.chunks.ChunkSection;
 import com.viaversion.viaversion.api.minecraft.chunks.ChunkSectionLight;
 import com.viaversion.viaversion.api.minecraft.chunks.DataPalette;
 import com.viaversion.viaversion.api.minecraft.chunks.PaletteType;
+import net.raphimc.viabedrock.api.chunk.RemappedChunkSection;
 
 import java.util.List;
 
@@ -74,4 +75,23 @@ public interface BedrockChunkSection extends ChunkSection, Cloneable {
 
     void applyPendingBlockUpdates(final int airId);
 
+    /**
+     * @return The last remapped java section of this section. Might be outdated if {@link #isRemappedSectionValid()} returns false
+     */
+    RemappedChunkSection getRemappedSection();
+
+    void setRemappedSection(final RemappedChunkSection remappedSection);
+
+    boolean isRemappedSectionValid();
+
+    /**
+     * Marks the remapped java section as outdated. Has to be called whenever the contents of this section change.
+     */
+    void invalidateRemappedSection();
+
+    /**
+     * @return A counter which is incremented every time the remapped java section is invalidated
+     */
+    int getModificationCount();
+
 }
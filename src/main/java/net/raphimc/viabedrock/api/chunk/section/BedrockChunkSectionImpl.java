@@ -19,6 +19,7 @@ package net.raphimc.viabedrock.api.chunk.section;
 
 import com.viaversion.viaversion.api.minecraft.chunks.DataPalette;
 import com.viaversion.viaversion.api.minecraft.chunks.PaletteType;
+import net.raphimc.viabedrock.api.chunk.RemappedChunkSection;
 import net.raphimc.viabedrock.api.chunk.datapalette.BedrockDataPalette;
 
 import java.util.ArrayList;
@@ -30,6 +31,9 @@ public class BedrockChunkSectionImpl implements BedrockChunkSection {
     private final List<DataPalette> blockPalettes = new ArrayList<>();
     private DataPalette biomePalette;
     private List<int[]> pendingBlockUpdates = new ArrayList<>();
+    private RemappedChunkSection remappedSection;
+    private boolean remappedSectionValid;
+    private int modificationCount;
 
     public BedrockChunkSectionImpl() {
     }
@@ -72,6 +76,7 @@ public class BedrockChunkSectionImpl implements BedrockChunkSection {
         if (this.biomePalette == null) {
             this.biomePalette = other.palette(PaletteType.BIOMES);
         }
+        this.invalidateRemappedSection();
     }
 
     @Override
@@ -111,6 +116,7 @@ public class BedrockChunkSectionImpl implements BedrockChunkSection {
                 palette.setIdAt(sectionIndex, blockState);
             }
             this.pendingBlockUpdates = null;
+            this.invalidateRemappedSection();
         }
     }
 
@@ -127,6 +133,7 @@ public class BedrockChunkSectionImpl implements BedrockChunkSection {
         } else if (type == PaletteType.BIOMES) {
             this.biomePalette = palette;
         }
+        this.invalidateRemappedSection();
     }
 
     @Override
@@ -136,6 +143,34 @@ public class BedrockChunkSectionImpl implements BedrockChunkSection {
         } else if (type == PaletteType.BIOMES) {
             this.biomePalette = null;
         }
+        this.invalidateRemappedSection();
+    }
+
+    @Override
+    public RemappedChunkSection getRemappedSection() {
+        return this.remappedSection;
+    }
+
+    @Override
+    public void setRemappedSection(final RemappedChunkSection remappedSection) {
+        this.remappedSection = remappedSection;
+        this.remappedSectionValid = remappedSection != null;
+    }
+
+    @Override
+    public boolean isRemappedSectionValid() {
+        return this.remappedSectionValid;
+    }
+
+    @Override
+    public void invalidateRemappedSection() {
+        this.remappedSectionValid = false;
+        this.modificationCount++;
+    }
+
+    @Override
+    public int getModificationCount() {
+        return this.modificationCount;
     }
 
 }
@@ -18,9 +18,16 @@
 package net.raphimc.viabedrock.api.http;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UncheckedIOException;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 
 public class BedrockPackDownloader {
 
@@ -47,13 +54,36 @@ public class BedrockPackDownloader {
         }
     }
 
-    public byte[] download() {
+    /**
+     * Downloads the pack.
+     *
+     * @param spillSize Packs larger than this are streamed to a temporary file instead of being kept on the heap. 0 to disable.
+     * @return The pack data. For temporary files this is a read only mapping which stays valid after the file was deleted.
+     */
+    public ByteBuffer download(final long spillSize) {
         try {
             final HttpURLConnection connection = this.createConnection();
             connection.setRequestMethod("GET");
             connection.connect();
             this.checkResponseCode(connection);
-            return connection.getInputStream().readAllBytes();
+            try (InputStream inputStream = connection.getInputStream()) {
+                if (spillSize <= 0 || connection.getContentLengthLong() <= spillSize) {
+                    return ByteBuffer.wrap(inputStream.readAllBytes());
+                }
+
+                try (FileChannel fileChannel = FileChannel.open(Files.createTempFile("viabedrock_pack_", ".zip"), StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE)) {
+                    final ReadableByteChannel inputChannel = Channels.newChannel(inputStream);
+                    final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+                    while (inputChannel.read(buffer) >= 0) {
+                        buffer.flip();
+                        while (buffer.hasRemaining()) {
+                            fileChannel.write(buffer);
+                        }
+                        buffer.clear();
+                    }
+                    return fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size());
+                }
+            }
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
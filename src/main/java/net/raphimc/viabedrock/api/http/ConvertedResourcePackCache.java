@@ -0,0 +1,239 @@
+/*
+ * This file is part of ViaBedrock - https://github.com/RaphiMC/ViaBedrock
+ * Copyright (C) 2023-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.viabedrock.api.http;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import net.raphimc.viabedrock.ViaBedrock;
+import net.raphimc.viabedrock.api.model.resourcepack.ResourcePack;
+import net.raphimc.viabedrock.api.modinterface.ViaBedrockUtilityInterface;
+import net.raphimc.viabedrock.protocol.data.ProtocolConstants;
+import net.raphimc.viabedrock.protocol.rewriter.ResourcePackRewriter;
+import net.raphimc.viabedrock.protocol.storage.ChannelStorage;
+import net.raphimc.viabedrock.protocol.storage.ResourcePacksStorage;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+
+/**
+ * Content addressed cache of converted java resource packs.<br>
+ * Connections with the same pack stack and client capabilities get the same converted pack, so it is only converted once and then served from disk.
+ * Concurrent requests for the same pack stack share a single conversion which runs on a dedicated executor.
+ * Converted packs are only evicted and deleted once they are no longer served to any client.
+ */
+public class ConvertedResourcePackCache {
+
+    private final File directory;
+    private final int maxEntries;
+    private final ExecutorService executor;
+    private final Map<String, CompletableFuture<ConvertedPack>> conversions;
+    private final Map<String, Integer> references = new HashMap<>(); // Converted packs which are handed out and might still be served
+
+    /**
+     * @param directory  The directory to store the converted packs in
+     * @param maxEntries The maximum amount of converted packs to keep
+     */
+    public ConvertedResourcePackCache(final File directory, final int maxEntries) {
+        this.directory = directory;
+        this.maxEntries = maxEntries;
+        this.executor = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() / 4), new ThreadFactoryBuilder().setDaemon(true).setNameFormat("ViaBedrock-Pack-Converter-%d").build());
+        this.conversions = new LinkedHashMap<>(16, 0.75F, true);
+
+        this.directory.mkdirs();
+        final File[] oldFiles = this.directory.listFiles();
+        if (oldFiles != null) { // The converter data of converted packs is only kept in memory, so packs converted by a previous run can't be reused
+            for (File oldFile : oldFiles) {
+                deleteFile(oldFile);
+            }
+        }
+    }
+
+    /**
+     * Gets the converted pack for the pack stack of a connection or starts converting it.<br>
+     * The pack stack of the connection has to be fully loaded. The converted pack has to be released using {@link #release(ConvertedPack)} once it was served.
+     *
+     * @param resourcePacksStorage The resource packs of the connection
+     * @return A future which completes with the converted pack
+     */
+    public CompletableFuture<ConvertedPack> get(final ResourcePacksStorage resourcePacksStorage) {
+        final String key = stackKey(resourcePacksStorage);
+        final CompletableFuture<ConvertedPack> future;
+        final boolean isNew;
+        synchronized (this) {
+            final CompletableFuture<ConvertedPack> existingFuture = this.conversions.get(key);
+            isNew = existingFuture == null;
+            if (isNew) {
+                future = new CompletableFuture<>();
+                this.conversions.put(key, future);
+            } else {
+                future = existingFuture;
+            }
+            this.references.merge(key, 1, Integer::sum);
+            this.evict();
+        }
+
+        if (isNew) {
+            this.executor.execute(() -> {
+                try {
+                    future.complete(this.convert(key, resourcePacksStorage));
+                } catch (Throwable e) {
+                    synchronized (this) {
+                        this.conversions.remove(key, future);
+                    }
+                    future.completeExceptionally(e);
+                }
+            });
+        }
+        return future.whenComplete((convertedPack, e) -> {
+            if (e != null) {
+                this.release(key);
+            }
+        }).thenApply(convertedPack -> {
+            resourcePacksStorage.getConverterData().putAll(convertedPack.converterData());
+            return convertedPack;
+        });
+    }
+
+    /**
+     * Releases a converted pack which was returned by {@link #get(ResourcePacksStorage)}. The file of the pack can be deleted afterwards.
+     *
+     * @param convertedPack The converted pack
+     */
+    public void release(final ConvertedPack convertedPack) {
+        this.release(convertedPack.key());
+    }
+
+    public void shutdown() {
+        this.executor.shutdownNow();
+    }
+
+    private synchronized void release(final String key) {
+        if (this.references.merge(key, -1, Integer::sum) <= 0) {
+            this.references.remove(key);
+            this.evict();
+        }
+    }
+
+    /**
+     * Evicts the least recently used converted packs which are neither being converted nor served until the cache fits into its size limit.
+     */
+    private synchronized void evict() {
+        final Iterator<Map.Entry<String, CompletableFuture<ConvertedPack>>> iterator = this.conversions.entrySet().iterator();
+        while (this.conversions.size() > this.maxEntries && iterator.hasNext()) {
+            final Map.Entry<String, CompletableFuture<ConvertedPack>> entry = iterator.next();
+            if (!entry.getValue().isDone() || this.references.containsKey(entry.getKey())) {
+                continue;
+            }
+            iterator.remove();
+            if (!entry.getValue().isCompletedExceptionally()) {
+                deleteFile(entry.getValue().join().file());
+            }
+        }
+    }
+
+    private ConvertedPack convert(final String key, final ResourcePacksStorage resourcePacksStorage) throws IOException, NoSuchAlgorithmException {
+        final long start = System.currentTimeMillis();
+        final ResourcePack.Content javaContent = ResourcePackRewriter.bedrockToJava(resourcePacksStorage);
+
+        final File file = new File(this.directory, key + ".zip");
+        final File tempFile = new File(this.directory, key + ".zip.tmp");
+        final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+        try (OutputStream outputStream = new BufferedOutputStream(new DigestOutputStream(Files.newOutputStream(tempFile.toPath()), digest))) { // Streamed to disk to not hold another copy of the pack in memory
+            javaContent.writeZip(outputStream);
+        }
+        final String sha1 = HexFormat.of().formatHex(digest.digest());
+        final long length = tempFile.length();
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        ViaBedrock.getPlatform().getLogger().log(Level.INFO, "Converted packs in " + (System.currentTimeMillis() - start) + "ms");
+        return new ConvertedPack(key, file, length, sha1, Map.copyOf(resourcePacksStorage.getConverterData()));
+    }
+
+    /**
+     * Creates a key which identifies the converted pack of a pack stack.<br>
+     * Includes everything the conversion depends on: The pack stack, the enabled client capabilities and the ViaBedrock version (vanilla packs and converters).
+     */
+    private static String stackKey(final ResourcePacksStorage resourcePacksStorage) {
+        final MessageDigest digest = createDigest(resourcePacksStorage);
+        for (ResourcePack pack : resourcePacksStorage.getPackStackTopToBottom()) {
+            if (pack.packId() != null) { // Vanilla packs have no id and are covered by the ViaBedrock version
+                updateDigest(digest, pack);
+            }
+        }
+        if (hasBedrockPacksCapability(resourcePacksStorage)) { // All packs are included into the converted pack
+            digest.update((byte) 0);
+            updateDigest(digest, resourcePacksStorage.getPacks());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest createDigest(final ResourcePacksStorage resourcePacksStorage) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((ViaBedrock.IMPL_VERSION + "/" + ProtocolConstants.JAVA_PACK_VERSION).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) (hasBedrockPacksCapability(resourcePacksStorage) ? 1 : 0));
+            return digest;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void updateDigest(final MessageDigest digest, final Collection<ResourcePack> packs) {
+        final List<ResourcePack> sortedPacks = new ArrayList<>(packs);
+        sortedPacks.sort(Comparator.comparing(ResourcePack::packId));
+        for (ResourcePack pack : sortedPacks) {
+            updateDigest(digest, pack);
+        }
+    }
+
+    private static void updateDigest(final MessageDigest digest, final ResourcePack pack) {
+        digest.update((pack.packId() + "_" + pack.version() + "\0").getBytes(StandardCharsets.UTF_8));
+        if (pack.contentKey() != null) {
+            digest.update(pack.contentKey()); // Only the digest of the key ends up in the cache key
+        }
+        digest.update((byte) 0);
+    }
+
+    private static boolean hasBedrockPacksCapability(final ResourcePacksStorage resourcePacksStorage) {
+        final ChannelStorage channelStorage = resourcePacksStorage.user().get(ChannelStorage.class);
+        return channelStorage != null && channelStorage.hasChannel(ViaBedrockUtilityInterface.CONFIRM_CHANNEL);
+    }
+
+    private static void deleteFile(final File file) {
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException e) {
+            file.deleteOnExit();
+        }
+    }
+
+    public record ConvertedPack(String key, File file, long length, String sha1, Map<String, Object> converterData) {
+    }
+
+}
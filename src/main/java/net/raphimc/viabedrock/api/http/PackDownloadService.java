@@ -0,0 +1,204 @@
+/*
+ * This file is part of ViaBedrock - https://github.com/RaphiMC/ViaBedrock
+ * Copyright (C) 2023-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.viabedrock.api.http;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.util.concurrent.GenericFutureListener;
+
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.*;
+
+/**
+ * Process wide executor for resource pack downloads from CDNs.<br>
+ * All connections share a bounded pool of download threads and the amount of concurrent requests per host is limited, so a join wave doesn't open hundreds of connections to the same CDN.
+ * Identical requests which are in flight at the same time are coalesced into a single request. Requests are cancelled when all connections waiting for them closed.
+ */
+public class PackDownloadService {
+
+    private final ThreadPoolExecutor executor;
+    private final int maxRequestsPerHost;
+    private final Map<String, Request<?>> requests = new HashMap<>();
+    private final Map<String, HostQueue> hostQueues = new HashMap<>();
+
+    /**
+     * @param threads            The maximum amount of download threads
+     * @param maxRequestsPerHost The maximum amount of concurrent requests to the same host
+     */
+    public PackDownloadService(final int threads, final int maxRequestsPerHost) {
+        this.executor = new ThreadPoolExecutor(Math.max(1, threads), Math.max(1, threads), 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new ThreadFactoryBuilder().setDaemon(true).setNameFormat("ViaBedrock-Pack-Downloader-%d").build());
+        this.executor.allowCoreThreadTimeOut(true);
+        this.maxRequestsPerHost = Math.max(1, maxRequestsPerHost);
+    }
+
+    /**
+     * Gets the size of a pack using a HEAD request.
+     *
+     * @param url     The CDN url of the pack
+     * @param channel The channel of the connection which waits for the result. The request is cancelled for this connection when the channel closes.
+     * @return A future which completes with the content length
+     */
+    public CompletableFuture<Integer> getContentLength(final URL url, final Channel channel) {
+        return this.submit("HEAD " + url, url, channel, () -> new BedrockPackDownloader(url).getContentLength());
+    }
+
+    /**
+     * Downloads a pack.
+     *
+     * @param url       The CDN url of the pack
+     * @param spillSize Packs larger than this are streamed to a temporary file instead of being kept on the heap. 0 to disable.
+     * @param channel   The channel of the connection which waits for the result. The request is cancelled for this connection when the channel closes.
+     * @return A future which completes with the pack data. The data is shared with other connections which downloaded the same pack, so it must not be modified and has to be duplicated before it is read.
+     */
+    public CompletableFuture<ByteBuffer> download(final URL url, final long spillSize, final Channel channel) {
+        return this.submit("GET " + url, url, channel, () -> new BedrockPackDownloader(url).download(spillSize));
+    }
+
+    public void shutdown() {
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * @return The amount of requests which are waiting for a free download thread or host slot
+     */
+    public synchronized int getQueuedCount() {
+        int queued = this.executor.getQueue().size();
+        for (HostQueue hostQueue : this.hostQueues.values()) {
+            queued += hostQueue.pending.size();
+        }
+        return queued;
+    }
+
+    /**
+     * @return The amount of requests which are currently running
+     */
+    public int getActiveCount() {
+        return this.executor.getActiveCount();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> submit(final String key, final URL url, final Channel channel, final Callable<T> task) {
+        final Request<T> request;
+        synchronized (this) {
+            final Request<?> existingRequest = this.requests.get(key);
+            if (existingRequest != null) {
+                request = (Request<T>) existingRequest;
+            } else {
+                request = new Request<>(task);
+                this.requests.put(key, request);
+                request.future.whenComplete((result, e) -> {
+                    synchronized (this) {
+                        this.requests.remove(key, request);
+                    }
+                });
+                this.schedule(url.getHost(), request);
+            }
+            request.subscribers++;
+        }
+
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        final ChannelFuture closeFuture = channel.closeFuture();
+        final GenericFutureListener<ChannelFuture> closeListener = f -> future.cancel(false);
+        closeFuture.addListener(closeListener);
+        request.future.whenComplete((result, e) -> {
+            if (e != null) {
+                future.completeExceptionally(e);
+            } else {
+                future.complete(result);
+            }
+        });
+        future.whenComplete((result, e) -> {
+            closeFuture.removeListener(closeListener);
+            if (future.isCancelled()) {
+                this.unsubscribe(key, request);
+            }
+        });
+        return future;
+    }
+
+    private synchronized void unsubscribe(final String key, final Request<?> request) {
+        if (--request.subscribers == 0 && !request.future.isDone()) {
+            this.requests.remove(key, request);
+            request.future.cancel(false); // Queued requests are skipped. Running requests can't be interrupted, but their result is discarded.
+        }
+    }
+
+    private synchronized void schedule(final String host, final Runnable task) {
+        final HostQueue hostQueue = this.hostQueues.computeIfAbsent(host, h -> new HostQueue());
+        if (hostQueue.active < this.maxRequestsPerHost) {
+            hostQueue.active++;
+            this.execute(host, hostQueue, task);
+        } else {
+            hostQueue.pending.add(task);
+        }
+    }
+
+    private void execute(final String host, final HostQueue hostQueue, final Runnable task) {
+        this.executor.execute(() -> {
+            try {
+                task.run();
+            } finally {
+                synchronized (this) {
+                    final Runnable nextTask = hostQueue.pending.poll();
+                    if (nextTask != null) {
+                        this.execute(host, hostQueue, nextTask);
+                    } else if (--hostQueue.active == 0) {
+                        this.hostQueues.remove(host);
+                    }
+                }
+            }
+        });
+    }
+
+    private static class Request<T> implements Runnable {
+
+        private final Callable<T> task;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private int subscribers;
+
+        private Request(final Callable<T> task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            if (this.future.isDone()) return; // Cancelled while queued
+
+            try {
+                this.future.complete(this.task.call());
+            } catch (Throwable e) {
+                this.future.completeExceptionally(e);
+            }
+        }
+
+    }
+
+    private static class HostQueue {
+
+        private final Queue<Runnable> pending = new ArrayDeque<>();
+        private int active;
+
+    }
+
+}
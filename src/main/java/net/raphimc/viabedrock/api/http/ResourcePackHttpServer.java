@@ -23,14 +23,9 @@ import io.netty.channel.*;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.codec.http.*;
-import io.netty.handler.stream.ChunkedStream;
-import io.netty.handler.stream.ChunkedWriteHandler;
 import net.raphimc.viabedrock.ViaBedrock;
-import net.raphimc.viabedrock.api.model.resourcepack.ResourcePack;
-import net.raphimc.viabedrock.protocol.rewriter.ResourcePackRewriter;
 import net.raphimc.viabedrock.protocol.storage.ResourcePacksStorage;
 
-import java.io.ByteArrayInputStream;
 import java.net.InetSocketAddress;
 import java.util.HashMap;
 import java.util.Map;
@@ -39,12 +34,16 @@ import java.util.logging.Level;
 
 public class ResourcePackHttpServer {
 
+    private static final int MAX_CONVERTED_PACKS = 16;
+
     private final InetSocketAddress bindAddress;
     private final ChannelFuture channelFuture;
     private final Map<UUID, UserConnection> connections = new HashMap<>();
+    private final ConvertedResourcePackCache convertedPackCache;
 
     public ResourcePackHttpServer(final InetSocketAddress bindAddress) {
         this.bindAddress = bindAddress;
+        this.convertedPackCache = new ConvertedResourcePackCache(ViaBedrock.getPlatform().getConvertedPacksFolder(), MAX_CONVERTED_PACKS);
         this.channelFuture = new ServerBootstrap()
                 .group(new NioEventLoopGroup(0))
                 .channel(NioServerSocketChannel.class)
@@ -55,10 +54,9 @@ public class ResourcePackHttpServer {
                     @Override
                     protected void initChannel(Channel channel) {
                         channel.pipeline().addLast("http_codec", new HttpServerCodec());
-                        channel.pipeline().addLast("chunked_writer", new ChunkedWriteHandler());
                         channel.pipeline().addLast("http_handler", new SimpleChannelInboundHandler<>() {
                             @Override
-                            protected void channelRead0(ChannelHandlerContext ctx, Object msg) throws InterruptedException {
+                            protected void channelRead0(ChannelHandlerContext ctx, Object msg) {
                                 if (msg instanceof HttpRequest request) {
                                     if (!request.method().equals(HttpMethod.GET)) {
                                         ctx.close();
@@ -78,27 +76,22 @@ public class ResourcePackHttpServer {
                                     }
 
                                     final ResourcePacksStorage resourcePacksStorage = user.get(ResourcePacksStorage.class);
-                                    while (!resourcePacksStorage.hasFinishedLoading()) {
-                                        Thread.sleep(100);
-                                    }
-
-                                    try {
-                                        final long start = System.currentTimeMillis();
-                                        final ResourcePack.Content javaContent = ResourcePackRewriter.bedrockToJava(resourcePacksStorage);
-                                        final byte[] data = javaContent.toZip();
-                                        ViaBedrock.getPlatform().getLogger().log(Level.INFO, "Converted packs in " + (System.currentTimeMillis() - start) + "ms");
+                                    resourcePacksStorage.getLoadingFuture().thenCompose(v -> ResourcePackHttpServer.this.convertedPackCache.get(resourcePacksStorage)).whenComplete((convertedPack, e) -> ctx.executor().execute(() -> {
+                                        if (e != null) {
+                                            ViaBedrock.getPlatform().getLogger().log(Level.SEVERE, "Failed to convert resource packs", e);
+                                            ctx.close();
+                                            return;
+                                        }
 
                                         final DefaultHttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
-                                        response.headers().set(HttpHeaderNames.TRANSFER_ENCODING, HttpHeaderValues.CHUNKED);
                                         response.headers().set(HttpHeaderNames.CONTENT_TYPE, "application/octet-stream");
-                                        response.headers().set(HttpHeaderNames.CONTENT_LENGTH, data.length);
+                                        response.headers().set(HttpHeaderNames.CONTENT_LENGTH, convertedPack.length());
+                                        response.headers().set(HttpHeaderNames.ETAG, "\"" + convertedPack.sha1() + "\"");
                                         response.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
                                         ctx.write(response);
-                                        ctx.writeAndFlush(new HttpChunkedInput(new ChunkedStream(new ByteArrayInputStream(data), 65535))).addListener(ChannelFutureListener.CLOSE);
-                                    } catch (Throwable e) {
-                                        ViaBedrock.getPlatform().getLogger().log(Level.SEVERE, "Failed to convert resource packs", e);
-                                        ctx.close();
-                                    }
+                                        ctx.write(new DefaultFileRegion(convertedPack.file(), 0, convertedPack.length())); // Zero-copy transfer from the cached file
+                                        ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT).addListener(f -> ResourcePackHttpServer.this.convertedPackCache.release(convertedPack)).addListener(ChannelFutureListener.CLOSE);
+                                    }));
                                 }
                             }
 
@@ -129,6 +122,7 @@ public class ResourcePackHttpServer {
         if (this.channelFuture != null) {
             this.channelFuture.channel().close();
         }
+        this.convertedPackCache.shutdown();
     }
 
     public String getUrl() {
@@ -141,6 +135,10 @@ public class ResourcePackHttpServer {
         }
     }
 
+    public ConvertedResourcePackCache getConvertedPackCache() {
+        return this.convertedPackCache;
+    }
+
     public Channel getChannel() {
         return this.channelFuture.channel();
     }
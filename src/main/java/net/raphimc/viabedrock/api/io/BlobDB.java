@@ -20,159 +20,627 @@ package net.raphimc.viabedrock.api.io;
 import com.viaversion.viaversion.api.Via;
 import net.raphimc.viabedrock.api.util.LZ4;
 
-import java.io.*;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.*;
 import java.util.logging.Level;
+import java.util.zip.CRC32C;
 
+/**
+ * Append-only blob store which is safe to use from multiple threads.<br>
+ * Blobs are LZ4 compressed and appended to a data file. The index is stored as an append-only journal which is replayed on startup.
+ * Reads don't take any locks and use positional reads, writes are batched and written by a background thread.
+ * Least recently used blobs are evicted once the store exceeds its size or age limit and the data file is compacted in the background.
+ */
 public class BlobDB implements Closeable {
 
-    private static final byte[] MAGIC = new byte[]{'B', 'D', 'B'};
-    private static final int VERSION = 1;
+    private static final byte[] MAGIC = new byte[]{'B', 'D', 'B', 'J'};
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = MAGIC.length + Integer.BYTES + Long.BYTES; // magic, version, data file generation
+    private static final int JOURNAL_ENTRY_SIZE = Byte.BYTES + Long.BYTES + Long.BYTES + Integer.BYTES + Integer.BYTES + Long.BYTES; // type, key, offset, length, checksum, timestamp
+    private static final byte JOURNAL_PUT = 1;
+    private static final byte JOURNAL_REMOVE = 2;
+    private static final byte JOURNAL_TOUCH = 3;
+
+    private static final int MAX_BATCH_SIZE = 1024;
+    private static final long MAINTENANCE_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+    private static final long TOUCH_INTERVAL = TimeUnit.HOURS.toMillis(1); // Minimum time between persisting the last access time of a blob
+    private static final long EVICTION_GRACE_PERIOD = TimeUnit.MINUTES.toMillis(10); // Blobs used within this time are never evicted as connections might still expect them to exist
+    private static final long MIN_COMPACTION_GARBAGE = 64L * 1024 * 1024;
 
-    private final File indexFile;
-    private final RandomAccessFile dataFile;
-    private final Map<Long, IndexEntry> index = new LinkedHashMap<>();
+    private final File directory;
+    private final File journalFile;
+    private final long maxSize;
+    private final long maxAge;
+    private final Map<Long, IndexEntry> index = new ConcurrentHashMap<>();
     private final Map<Long, byte[]> pendingWrites = new ConcurrentHashMap<>();
+    private final BlockingQueue<Long> writeQueue = new LinkedBlockingQueue<>();
+    private final Queue<IndexEntry> corruptedEntries = new ConcurrentLinkedQueue<>();
+    private final Object writeLock = new Object();
     private final Thread writeThread;
-    private boolean indexDirty = false;
-    private long dataOffset = 0;
+    private volatile DataFile dataFile;
+    private volatile boolean closed;
+
+    // Guarded by writeLock
+    private FileChannel journalChannel;
+    private long dataOffset;
+    private long liveBytes;
+    private long journalEntryCount;
+    private long lastMaintenance;
 
     public BlobDB(final File directory) throws IOException {
+        this(directory, 0, 0);
+    }
+
+    /**
+     * @param directory The directory to store the blobs in
+     * @param maxSize   The maximum size of all stored blobs in bytes (0 = unlimited)
+     * @param maxAge    The maximum time in milliseconds a blob is kept after it was last used (0 = unlimited)
+     * @throws IOException If the store could not be opened
+     */
+    public BlobDB(final File directory, final long maxSize, final long maxAge) throws IOException {
         directory.mkdirs();
-        this.indexFile = new File(directory, "index.bdbi");
-        this.dataFile = new RandomAccessFile(new File(directory, "data.bdbd"), "rw");
+        this.directory = directory;
+        this.journalFile = new File(directory, "journal.bdbj");
+        this.maxSize = maxSize;
+        this.maxAge = maxAge;
         try {
             this.load();
         } catch (Throwable e) {
-            this.dataFile.close();
+            this.closeChannels();
             throw e;
         }
-        this.writeThread = new Thread(() -> {
-            while (!Thread.interrupted()) {
-                try {
-                    Thread.sleep(1000);
-                    final Set<Long> writtenKeys = new HashSet<>();
-                    for (Map.Entry<Long, byte[]> entry : this.pendingWrites.entrySet()) {
-                        try {
-                            this.putNow(entry.getKey(), entry.getValue());
-                            writtenKeys.add(entry.getKey());
-                        } catch (Throwable e) {
-                            Via.getPlatform().getLogger().log(Level.SEVERE, "Failed to write pending blob", e);
-                            break;
-                        }
-                    }
-                    writtenKeys.forEach(this.pendingWrites::remove);
-                } catch (InterruptedException e) {
-                    break;
-                }
-            }
-        }, "BlobDB Write Thread");
+        this.writeThread = new Thread(this::runWriteThread, "BlobDB Write Thread");
+        this.writeThread.setDaemon(true);
         this.writeThread.start();
     }
 
-    public synchronized void save() throws IOException {
-        if (!this.indexDirty) return;
-
+    /**
+     * Waits for all queued writes and flushes all data to disk.
+     *
+     * @throws IOException If the data could not be flushed
+     */
+    public void save() throws IOException {
         this.waitForWrites();
-        try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(this.indexFile)))) {
-            dos.write(MAGIC);
-            dos.writeInt(VERSION);
-            for (final Map.Entry<Long, IndexEntry> entry : this.index.entrySet()) {
-                dos.writeLong(entry.getKey());
-                dos.writeInt(entry.getValue().length);
-            }
+        synchronized (this.writeLock) {
+            if (this.closed) return;
+            this.dataFile.channel.force(false);
+            this.journalChannel.force(false);
         }
-        this.indexDirty = false;
     }
 
-    public synchronized boolean contains(final long key) {
-        if (this.pendingWrites.containsKey(key)) {
-            return true;
-        }
-        return this.index.containsKey(key);
+    public boolean contains(final long key) {
+        return this.pendingWrites.containsKey(key) || this.index.containsKey(key);
     }
 
-    public synchronized byte[] get(final long key) throws IOException {
+    public byte[] get(final long key) throws IOException {
         final byte[] pending = this.pendingWrites.get(key);
         if (pending != null) {
             return pending;
         }
 
-        final IndexEntry entry = this.index.get(key);
-        if (entry == null) {
-            return null;
+        while (true) {
+            final IndexEntry entry = this.index.get(key);
+            if (entry == null) {
+                return null;
+            }
+
+            final FileChannel channel = entry.dataFile.channel;
+            final byte[] value = new byte[entry.length];
+            try {
+                readFully(channel, ByteBuffer.wrap(value), entry.offset);
+            } catch (ClosedChannelException e) {
+                if (this.closed) throw e;
+                if (this.index.get(key) == entry) { // The channel was closed because a reading thread got interrupted
+                    entry.dataFile.reopen(channel);
+                }
+                if (e instanceof ClosedByInterruptException || Thread.currentThread().isInterrupted()) { // This thread got interrupted, retrying would fail again
+                    throw e;
+                }
+                continue; // Otherwise the data file was replaced by a compaction or another thread got interrupted
+            }
+            if (checksum(value) != entry.checksum) { // Only possible if the process crashed before the blob data was written to disk
+                if (this.index.remove(key, entry)) {
+                    Via.getPlatform().getLogger().log(Level.WARNING, "Removed corrupted blob from BlobDB: " + key);
+                    this.corruptedEntries.add(entry);
+                }
+                return null;
+            }
+
+            entry.lastAccess = System.currentTimeMillis();
+            return LZ4.decompress(value);
         }
-        this.dataFile.seek(entry.offset);
-        final byte[] value = new byte[entry.length];
-        this.dataFile.readFully(value);
-        return LZ4.decompress(value);
     }
 
-    public synchronized void queuePut(final long key, final byte[] value) {
+    public void queuePut(final long key, final byte[] value) {
         if (this.index.containsKey(key)) {
             throw new IllegalArgumentException("Key already exists: " + key);
         }
 
-        this.pendingWrites.put(key, value);
+        if (this.pendingWrites.putIfAbsent(key, value) == null) {
+            this.writeQueue.add(key);
+        }
     }
 
-    public synchronized void putNow(final long key, final byte[] value) throws IOException {
-        if (this.index.containsKey(key)) {
-            throw new IllegalArgumentException("Key already exists: " + key);
-        }
+    public void putNow(final long key, final byte[] value) throws IOException {
+        synchronized (this.writeLock) {
+            if (this.index.containsKey(key)) {
+                throw new IllegalArgumentException("Key already exists: " + key);
+            }
 
-        final byte[] compressedValue = LZ4.compress(value);
-        this.dataFile.seek(this.dataOffset);
-        this.dataFile.write(compressedValue);
-        this.index.put(key, new IndexEntry(this.dataOffset, compressedValue.length));
-        this.dataOffset += compressedValue.length;
-        this.indexDirty = true;
+            this.pendingWrites.putIfAbsent(key, value);
+            this.writeBatch(List.of(key));
+        }
     }
 
     public void waitForWrites() {
-        while (!this.pendingWrites.isEmpty()) {
+        synchronized (this.writeLock) {
+            while (!this.pendingWrites.isEmpty() && this.writeThread.isAlive()) {
+                try {
+                    this.writeLock.wait(1000);
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The amount of stored blobs
+     */
+    public int size() {
+        return this.index.size();
+    }
+
+    /**
+     * @return The compressed size of all stored blobs in bytes
+     */
+    public long getLiveBytes() {
+        synchronized (this.writeLock) {
+            return this.liveBytes;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.writeThread.interrupt();
+        try {
+            this.writeThread.join(5000);
+        } catch (InterruptedException ignored) {
+        }
+        synchronized (this.writeLock) {
+            this.closed = true;
+            this.closeChannels();
+        }
+    }
+
+    private void runWriteThread() {
+        final List<Long> batch = new ArrayList<>();
+        while (!Thread.currentThread().isInterrupted()) {
             try {
-                Thread.sleep(50);
+                final Long key = this.writeQueue.poll(MAINTENANCE_INTERVAL, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    batch.add(key);
+                    this.writeQueue.drainTo(batch, MAX_BATCH_SIZE - 1);
+                }
             } catch (InterruptedException e) {
                 break;
             }
+
+            synchronized (this.writeLock) {
+                try {
+                    if (!batch.isEmpty()) {
+                        this.writeBatch(batch);
+                    }
+                    if (System.currentTimeMillis() - this.lastMaintenance >= MAINTENANCE_INTERVAL) {
+                        this.runMaintenance();
+                        this.lastMaintenance = System.currentTimeMillis();
+                    }
+                } catch (Throwable e) {
+                    Via.getPlatform().getLogger().log(Level.SEVERE, "Failed to write pending blobs", e);
+                    batch.forEach(this.pendingWrites::remove);
+                    this.writeLock.notifyAll();
+                }
+            }
+            batch.clear();
         }
     }
 
-    @Override
-    public synchronized void close() throws IOException {
-        this.writeThread.interrupt();
-        this.dataFile.close();
+    /**
+     * Appends the given pending blobs to the data file and records them in the journal using a single write for each file.
+     *
+     * @param keys The keys of the pending blobs
+     * @throws IOException If the blobs could not be written
+     */
+    private void writeBatch(final List<Long> keys) throws IOException {
+        final long timestamp = System.currentTimeMillis();
+        final DataFile dataFile = this.dataFile;
+        final List<IndexEntry> entries = new ArrayList<>(keys.size());
+        final List<ByteBuffer> dataBuffers = new ArrayList<>(keys.size());
+        final ByteBuffer journalBuffer = ByteBuffer.allocate(keys.size() * JOURNAL_ENTRY_SIZE);
+        long offset = this.dataOffset;
+        for (Long key : keys) {
+            final byte[] value = this.pendingWrites.get(key);
+            if (value == null || this.index.containsKey(key)) continue;
+
+            final byte[] compressedValue = LZ4.compress(value);
+            final IndexEntry entry = new IndexEntry(key, dataFile, offset, compressedValue.length, checksum(compressedValue), timestamp);
+            entry.writeJournalEntry(journalBuffer, JOURNAL_PUT);
+            entries.add(entry);
+            dataBuffers.add(ByteBuffer.wrap(compressedValue));
+            offset += compressedValue.length;
+        }
+
+        if (!entries.isEmpty()) {
+            // The data is written before the journal, so a crash can't leave journal entries pointing to unwritten data (Unless the OS reorders the writes, which is caught by the checksum)
+            writeFully(dataFile.channel, dataBuffers.toArray(new ByteBuffer[0]), this.dataOffset);
+            this.appendJournal(journalBuffer.flip(), entries.size());
+            for (IndexEntry entry : entries) {
+                this.index.put(entry.key, entry);
+                this.liveBytes += entry.length;
+            }
+            this.dataOffset = offset;
+        }
+        keys.forEach(this.pendingWrites::remove);
+        this.writeLock.notifyAll();
+    }
+
+    private void runMaintenance() throws IOException {
+        final long now = System.currentTimeMillis();
+        final List<IndexEntry> removedEntries = new ArrayList<>();
+        IndexEntry corruptedEntry;
+        while ((corruptedEntry = this.corruptedEntries.poll()) != null) {
+            removedEntries.add(corruptedEntry);
+        }
+
+        final List<IndexEntry> candidates = new ArrayList<>();
+        final List<IndexEntry> touchedEntries = new ArrayList<>();
+        for (IndexEntry entry : this.index.values()) {
+            final long lastAccess = entry.lastAccess;
+            if (entry.key == 0L || now - lastAccess < EVICTION_GRACE_PERIOD) { // The empty blob is only inserted once on startup
+                if (lastAccess - entry.persistedAccess >= TOUCH_INTERVAL) {
+                    touchedEntries.add(entry);
+                }
+            } else if (this.maxAge > 0 && now - lastAccess > this.maxAge) {
+                if (this.index.remove(entry.key, entry)) {
+                    removedEntries.add(entry);
+                }
+            } else {
+                candidates.add(entry);
+                if (lastAccess - entry.persistedAccess >= TOUCH_INTERVAL) {
+                    touchedEntries.add(entry);
+                }
+            }
+        }
+
+        long remainingBytes = this.liveBytes;
+        for (IndexEntry entry : removedEntries) {
+            remainingBytes -= entry.length;
+        }
+        if (this.maxSize > 0 && remainingBytes > this.maxSize) { // Evict the least recently used blobs until the store is at 90% of its maximum size
+            candidates.sort(Comparator.comparingLong(entry -> entry.lastAccess));
+            final long targetSize = this.maxSize / 10 * 9;
+            for (int i = 0; i < candidates.size() && remainingBytes > targetSize; i++) {
+                final IndexEntry entry = candidates.get(i);
+                if (this.index.remove(entry.key, entry)) {
+                    removedEntries.add(entry);
+                    remainingBytes -= entry.length;
+                }
+            }
+        }
+        touchedEntries.removeIf(entry -> this.index.get(entry.key) != entry);
+
+        if (!removedEntries.isEmpty() || !touchedEntries.isEmpty()) {
+            final ByteBuffer journalBuffer = ByteBuffer.allocate((removedEntries.size() + touchedEntries.size()) * JOURNAL_ENTRY_SIZE);
+            for (IndexEntry entry : removedEntries) {
+                entry.writeJournalEntry(journalBuffer, JOURNAL_REMOVE);
+                this.liveBytes -= entry.length;
+            }
+            for (IndexEntry entry : touchedEntries) {
+                entry.persistedAccess = entry.lastAccess;
+                entry.writeJournalEntry(journalBuffer, JOURNAL_TOUCH);
+            }
+            this.appendJournal(journalBuffer.flip(), removedEntries.size() + touchedEntries.size());
+        }
+
+        final long garbageBytes = this.dataOffset - this.liveBytes;
+        if (garbageBytes >= MIN_COMPACTION_GARBAGE && garbageBytes >= this.liveBytes) {
+            this.compactData();
+        } else if (this.journalEntryCount > this.index.size() * 2L + MAX_BATCH_SIZE) {
+            this.writeJournalSnapshot(this.dataFile, this.index.values());
+        }
+    }
+
+    /**
+     * Copies all live blobs into a new data file and replaces the journal with a snapshot of the index.<br>
+     * Readers which still use the old data file retry their read with the new index entry.
+     */
+    private void compactData() throws IOException {
+        final DataFile oldDataFile = this.dataFile;
+        final DataFile newDataFile = this.openDataFile(oldDataFile.generation + 1, true);
+        final List<IndexEntry> newEntries = new ArrayList<>(this.index.size());
+        try {
+            long offset = 0;
+            for (IndexEntry entry : this.index.values()) {
+                final ByteBuffer buffer = ByteBuffer.allocate(entry.length);
+                readFully(entry.dataFile.channel, buffer, entry.offset);
+                writeFully(newDataFile.channel, new ByteBuffer[]{buffer.flip()}, offset);
+                newEntries.add(new IndexEntry(entry.key, newDataFile, offset, entry.length, entry.checksum, entry.lastAccess));
+                offset += entry.length;
+            }
+            newDataFile.channel.force(true);
+            this.writeJournalSnapshot(newDataFile, newEntries);
+            this.dataOffset = offset;
+        } catch (Throwable e) {
+            newDataFile.channel.close();
+            Files.deleteIfExists(newDataFile.file.toPath());
+            throw e;
+        }
+
+        this.dataFile = newDataFile;
+        for (IndexEntry newEntry : newEntries) {
+            final IndexEntry oldEntry = this.index.get(newEntry.key);
+            if (oldEntry != null) { // Entries which were removed in the meantime are already queued for removal from the journal
+                this.index.replace(newEntry.key, oldEntry, newEntry);
+            }
+        }
+        oldDataFile.retire();
+        Files.deleteIfExists(oldDataFile.file.toPath());
+    }
+
+    /**
+     * Atomically replaces the journal with a journal only containing the given entries.
+     */
+    private void writeJournalSnapshot(final DataFile dataFile, final Collection<IndexEntry> entries) throws IOException {
+        final File tempFile = new File(this.directory, this.journalFile.getName() + ".tmp");
+        long entryCount = 0;
+        try (FileChannel channel = FileChannel.open(tempFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.put(MAGIC).putInt(VERSION).putLong(dataFile.generation);
+            writeFully(channel, header.flip());
+
+            final ByteBuffer buffer = ByteBuffer.allocate(MAX_BATCH_SIZE * JOURNAL_ENTRY_SIZE);
+            for (IndexEntry entry : entries) {
+                entry.writeJournalEntry(buffer, JOURNAL_PUT);
+                entryCount++;
+                if (!buffer.hasRemaining()) {
+                    writeFully(channel, buffer.flip());
+                    buffer.clear();
+                }
+            }
+            writeFully(channel, buffer.flip());
+            channel.force(true);
+        }
+
+        this.journalChannel.close();
+        Files.move(tempFile.toPath(), this.journalFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        this.journalChannel = FileChannel.open(this.journalFile.toPath(), StandardOpenOption.WRITE);
+        this.journalChannel.position(this.journalChannel.size());
+        this.journalEntryCount = entryCount;
+    }
+
+    private void appendJournal(final ByteBuffer buffer, final int entryCount) throws IOException {
+        writeFully(this.journalChannel, buffer);
+        this.journalEntryCount += entryCount;
     }
 
     private void load() throws IOException {
-        if (!this.indexFile.exists()) return;
+        // Remove files of the old single index format
+        Files.deleteIfExists(new File(this.directory, "index.bdbi").toPath());
+        Files.deleteIfExists(new File(this.directory, "data.bdbd").toPath());
+
+        if (!this.journalFile.exists()) {
+            this.dataFile = this.openDataFile(0, true);
+            this.journalChannel = FileChannel.open(this.journalFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.put(MAGIC).putInt(VERSION).putLong(0);
+            writeFully(this.journalChannel, header.flip());
+            this.deleteUnusedDataFiles();
+            return;
+        }
+
+        this.journalChannel = FileChannel.open(this.journalFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(this.journalChannel, header, 0);
+        header.flip();
+        final byte[] magic = new byte[MAGIC.length];
+        header.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Wrong magic: " + Arrays.toString(magic));
+        }
+        final int version = header.getInt();
+        if (version != VERSION) {
+            throw new IOException("Wrong version: " + version);
+        }
+        this.dataFile = this.openDataFile(header.getLong(), false);
+        this.dataOffset = this.dataFile.channel.size();
+        this.deleteUnusedDataFiles();
+
+        final long journalSize = this.journalChannel.size();
+        final long entryCount = (journalSize - HEADER_SIZE) / JOURNAL_ENTRY_SIZE; // A partially written entry at the end is discarded
+        final ByteBuffer buffer = ByteBuffer.allocate(MAX_BATCH_SIZE * JOURNAL_ENTRY_SIZE);
+        long position = HEADER_SIZE;
+        for (long i = 0; i < entryCount; i++) {
+            if (!buffer.hasRemaining() || i == 0) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), (entryCount - i) * JOURNAL_ENTRY_SIZE));
+                readFully(this.journalChannel, buffer, position);
+                position += buffer.limit();
+                buffer.flip();
+            }
+
+            final byte type = buffer.get();
+            final long key = buffer.getLong();
+            final long offset = buffer.getLong();
+            final int length = buffer.getInt();
+            final int checksum = buffer.getInt();
+            final long timestamp = buffer.getLong();
+            switch (type) {
+                case JOURNAL_PUT -> {
+                    if (offset >= 0 && length >= 0 && offset + length <= this.dataOffset) { // Entries pointing to data which wasn't written before a crash are discarded
+                        final IndexEntry entry = new IndexEntry(key, this.dataFile, offset, length, checksum, timestamp);
+                        final IndexEntry previousEntry = this.index.put(key, entry);
+                        if (previousEntry != null) {
+                            this.liveBytes -= previousEntry.length;
+                        }
+                        this.liveBytes += length;
+                    }
+                }
+                case JOURNAL_REMOVE -> {
+                    final IndexEntry entry = this.index.remove(key);
+                    if (entry != null) {
+                        this.liveBytes -= entry.length;
+                    }
+                }
+                case JOURNAL_TOUCH -> {
+                    final IndexEntry entry = this.index.get(key);
+                    if (entry != null) {
+                        entry.lastAccess = entry.persistedAccess = timestamp;
+                    }
+                }
+                default -> throw new IOException("Invalid journal entry type: " + type);
+            }
+        }
+        this.journalEntryCount = entryCount;
+        this.journalChannel.truncate(HEADER_SIZE + entryCount * JOURNAL_ENTRY_SIZE);
+        this.journalChannel.position(HEADER_SIZE + entryCount * JOURNAL_ENTRY_SIZE);
+    }
+
+    private DataFile openDataFile(final long generation, final boolean truncate) throws IOException {
+        final File file = new File(this.directory, "data-" + generation + ".bdbd");
+        final FileChannel channel;
+        if (truncate) {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        } else {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        return new DataFile(generation, file, channel);
+    }
+
+    private void deleteUnusedDataFiles() throws IOException {
+        final File[] files = this.directory.listFiles((dir, name) -> name.startsWith("data-") && name.endsWith(".bdbd"));
+        if (files == null) return;
+
+        for (File file : files) {
+            if (!file.equals(this.dataFile.file)) {
+                Files.deleteIfExists(file.toPath());
+            }
+        }
+    }
+
+    private void closeChannels() throws IOException {
+        try {
+            if (this.journalChannel != null) {
+                this.journalChannel.close();
+            }
+        } finally {
+            if (this.dataFile != null) {
+                this.dataFile.channel.close();
+            }
+        }
+    }
 
-        long availableBytes = this.indexFile.length();
-        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(this.indexFile)))) {
-            final byte[] magic = new byte[MAGIC.length];
-            dis.readFully(magic);
-            if (!Arrays.equals(magic, MAGIC)) {
-                throw new IOException("Wrong magic: " + Arrays.toString(magic));
+    private static int checksum(final byte[] data) {
+        final CRC32C crc = new CRC32C();
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+
+    private static void readFully(final FileChannel channel, final ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            final int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of file");
             }
-            availableBytes -= magic.length;
-            final int version = dis.readInt();
-            if (version != VERSION) {
-                throw new IOException("Wrong version: " + version);
+            position += read;
+        }
+    }
+
+    private static void writeFully(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void writeFully(final FileChannel channel, final ByteBuffer[] buffers, final long position) throws IOException {
+        channel.position(position);
+        long remaining = 0;
+        for (ByteBuffer buffer : buffers) {
+            remaining += buffer.remaining();
+        }
+        while (remaining > 0) {
+            remaining -= channel.write(buffers);
+        }
+    }
+
+    private static class DataFile {
+
+        private final long generation;
+        private final File file;
+        private volatile FileChannel channel;
+        private boolean retired;
+
+        private DataFile(final long generation, final File file, final FileChannel channel) {
+            this.generation = generation;
+            this.file = file;
+            this.channel = channel;
+        }
+
+        private synchronized void reopen(final FileChannel closedChannel) throws IOException {
+            if (this.retired) {
+                throw new ClosedChannelException();
             }
-            availableBytes -= Integer.BYTES;
-            while (availableBytes > 0) {
-                final long key = dis.readLong();
-                final int length = dis.readInt();
-                availableBytes -= Long.BYTES + Integer.BYTES;
-                this.index.put(key, new IndexEntry(this.dataOffset, length));
-                this.dataOffset += length;
+            if (this.channel == closedChannel) {
+                this.channel = FileChannel.open(this.file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
             }
         }
+
+        private synchronized void retire() throws IOException {
+            this.retired = true;
+            this.channel.close();
+        }
+
     }
 
-    private record IndexEntry(long offset, int length) {
+    private static class IndexEntry {
+
+        private final long key;
+        private final DataFile dataFile;
+        private final long offset;
+        private final int length;
+        private final int checksum;
+        private volatile long lastAccess;
+        private long persistedAccess; // Guarded by writeLock
+
+        private IndexEntry(final long key, final DataFile dataFile, final long offset, final int length, final int checksum, final long timestamp) {
+            this.key = key;
+            this.dataFile = dataFile;
+            this.offset = offset;
+            this.length = length;
+            this.checksum = checksum;
+            this.lastAccess = timestamp;
+            this.persistedAccess = timestamp;
+        }
+
+        private void writeJournalEntry(final ByteBuffer buffer, final byte type) {
+            buffer.put(type);
+            buffer.putLong(this.key);
+            buffer.putLong(this.offset);
+            buffer.putInt(this.length);
+            buffer.putInt(this.checksum);
+            buffer.putLong(type == JOURNAL_TOUCH ? this.persistedAccess : this.lastAccess);
+        }
+
     }
 
 }
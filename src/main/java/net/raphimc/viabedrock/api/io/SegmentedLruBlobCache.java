@@ -0,0 +1,275 @@
+/*
+ * This file is part of ViaBedrock - https://github.com/RaphiMC/ViaBedrock
+ * Copyright (C) 2023-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.viabedrock.api.io;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe in-memory blob cache with a fixed byte budget.<br>
+ * Uses segmented LRU eviction: New blobs enter a probation segment and are only promoted to the protected segment once they are used again,
+ * so a burst of blobs which are only used once (e.g. flying through new terrain) can't evict the blobs which are shared by many players.
+ * The cache is split into shards by key to reduce lock contention. Keys are stored as primitive longs.
+ */
+public class SegmentedLruBlobCache {
+
+    private static final int SHARD_COUNT = 16; // Must be a power of two
+    private static final int ENTRY_OVERHEAD = 64; // Approximate memory used by an entry besides the blob data
+
+    private static final byte[] EMPTY_BLOB = new byte[0];
+
+    private final Shard[] shards = new Shard[SHARD_COUNT];
+    private final Set<Long> emptyBlobs = ConcurrentHashMap.newKeySet(); // Empty blobs cost nothing to keep, so they are never evicted
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxBytes The maximum amount of memory used by the cached blobs in bytes
+     */
+    public SegmentedLruBlobCache(final long maxBytes) {
+        for (int i = 0; i < this.shards.length; i++) {
+            this.shards[i] = new Shard(Math.max(1, maxBytes / SHARD_COUNT));
+        }
+    }
+
+    public byte[] get(final long key) {
+        final byte[] value = this.emptyBlobs.contains(key) ? EMPTY_BLOB : this.shard(key).get(key);
+        if (value != null) {
+            this.hits.increment();
+        } else {
+            this.misses.increment();
+        }
+        return value;
+    }
+
+    public boolean contains(final long key) {
+        return this.emptyBlobs.contains(key) || this.shard(key).contains(key);
+    }
+
+    public void put(final long key, final byte[] value) {
+        if (value.length == 0) {
+            this.emptyBlobs.add(key);
+            return;
+        }
+        this.evictions.add(this.shard(key).put(key, value));
+    }
+
+    public long getHitCount() {
+        return this.hits.sum();
+    }
+
+    public long getMissCount() {
+        return this.misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return this.evictions.sum();
+    }
+
+    public int size() {
+        int size = 0;
+        for (Shard shard : this.shards) {
+            synchronized (shard) {
+                size += shard.size;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return The approximate amount of memory used by the cached blobs in bytes
+     */
+    public long getUsedBytes() {
+        long usedBytes = 0;
+        for (Shard shard : this.shards) {
+            synchronized (shard) {
+                usedBytes += shard.probationBytes + shard.protectedBytes;
+            }
+        }
+        return usedBytes;
+    }
+
+    private Shard shard(final long key) {
+        return this.shards[(int) (key ^ (key >>> 32)) & (SHARD_COUNT - 1)];
+    }
+
+    private static int weight(final byte[] value) {
+        return value.length + ENTRY_OVERHEAD;
+    }
+
+    private static int hash(final long key) {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static class Shard {
+
+        private final long maxBytes;
+        private final long maxProtectedBytes;
+        private final Node probationHead = new Node(0, null); // Sentinel, head.next is the least recently used node
+        private final Node protectedHead = new Node(0, null);
+        private Node[] table = new Node[64]; // Open addressing with linear probing
+        private int size;
+        private long probationBytes;
+        private long protectedBytes;
+
+        private Shard(final long maxBytes) {
+            this.maxBytes = maxBytes;
+            this.maxProtectedBytes = maxBytes / 5 * 4;
+            this.probationHead.prev = this.probationHead.next = this.probationHead;
+            this.protectedHead.prev = this.protectedHead.next = this.protectedHead;
+        }
+
+        private synchronized byte[] get(final long key) {
+            final Node node = this.find(key);
+            if (node == null) return null;
+
+            if (node.isProtected) {
+                node.unlink();
+                node.linkLast(this.protectedHead);
+            } else { // Second access, promote to protected segment
+                node.unlink();
+                this.probationBytes -= weight(node.value);
+                node.isProtected = true;
+                node.linkLast(this.protectedHead);
+                this.protectedBytes += weight(node.value);
+                while (this.protectedBytes > this.maxProtectedBytes && this.protectedHead.next != node) { // Demote least recently used protected nodes back to probation
+                    final Node demoted = this.protectedHead.next;
+                    demoted.unlink();
+                    this.protectedBytes -= weight(demoted.value);
+                    demoted.isProtected = false;
+                    demoted.linkLast(this.probationHead);
+                    this.probationBytes += weight(demoted.value);
+                }
+            }
+            return node.value;
+        }
+
+        private synchronized boolean contains(final long key) {
+            return this.find(key) != null;
+        }
+
+        private synchronized int put(final long key, final byte[] value) {
+            if (weight(value) > this.maxBytes || this.find(key) != null) return 0; // Blobs are content addressed, so the value of an existing key never changes
+
+            final Node node = new Node(key, value);
+            node.linkLast(this.probationHead);
+            this.probationBytes += weight(value);
+            this.insert(node);
+
+            int evicted = 0;
+            while (this.probationBytes + this.protectedBytes > this.maxBytes) {
+                final Node victim;
+                if (this.probationHead.next != this.probationHead) {
+                    victim = this.probationHead.next;
+                    this.probationBytes -= weight(victim.value);
+                } else {
+                    victim = this.protectedHead.next;
+                    this.protectedBytes -= weight(victim.value);
+                }
+                victim.unlink();
+                this.remove(victim);
+                evicted++;
+            }
+            return evicted;
+        }
+
+        private Node find(final long key) {
+            final int mask = this.table.length - 1;
+            for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+                final Node node = this.table[i];
+                if (node == null || node.key == key) return node;
+            }
+        }
+
+        private void insert(final Node node) {
+            if (++this.size > this.table.length / 2) {
+                final Node[] oldTable = this.table;
+                this.table = new Node[oldTable.length * 2];
+                for (Node oldNode : oldTable) {
+                    if (oldNode != null) {
+                        this.place(oldNode);
+                    }
+                }
+            }
+            this.place(node);
+        }
+
+        private void place(final Node node) {
+            final int mask = this.table.length - 1;
+            int i = hash(node.key) & mask;
+            while (this.table[i] != null) {
+                i = (i + 1) & mask;
+            }
+            this.table[i] = node;
+        }
+
+        private void remove(final Node node) {
+            final int mask = this.table.length - 1;
+            int i = hash(node.key) & mask;
+            while (this.table[i] != node) {
+                i = (i + 1) & mask;
+            }
+            this.table[i] = null;
+            this.size--;
+
+            // Shift back following nodes of the probe sequence so lookups don't stop at the removed slot
+            for (int j = (i + 1) & mask; this.table[j] != null; j = (j + 1) & mask) {
+                final Node shifted = this.table[j];
+                final int home = hash(shifted.key) & mask;
+                if (((j - home) & mask) >= ((j - i) & mask)) {
+                    this.table[i] = shifted;
+                    this.table[j] = null;
+                    i = j;
+                }
+            }
+        }
+
+    }
+
+    private static class Node {
+
+        private final long key;
+        private final byte[] value;
+        private boolean isProtected;
+        private Node prev;
+        private Node next;
+
+        private Node(final long key, final byte[] value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        private void linkLast(final Node head) {
+            this.prev = head.prev;
+            this.next = head;
+            head.prev.next = this;
+            head.prev = this;
+        }
+
+        private void unlink() {
+            this.prev.next = this.next;
+            this.next.prev = this.prev;
+            this.prev = this.next = null;
+        }
+
+    }
+
+}
@@ -33,6 +33,7 @@ import com.viaversion.viaversion.protocols.v1_21_7to1_21_9.packet.ClientboundPac
 import com.viaversion.viaversion.util.Key;
 import net.raphimc.viabedrock.ViaBedrock;
 import net.raphimc.viabedrock.api.model.resourcepack.EntityDefinitions;
+import net.raphimc.viabedrock.api.model.resourcepack.RenderControllerDefinitions;
 import net.raphimc.viabedrock.api.modinterface.ViaBedrockUtilityInterface;
 import net.raphimc.viabedrock.api.util.MathUtil;
 import net.raphimc.viabedrock.api.util.MoLangEngine;
@@ -46,14 +47,13 @@ import net.raphimc.viabedrock.protocol.storage.ChannelStorage;
 import net.raphimc.viabedrock.protocol.storage.EntityTracker;
 import net.raphimc.viabedrock.protocol.storage.ResourcePacksStorage;
 import org.cube.converter.data.bedrock.BedrockEntityData;
-import org.cube.converter.data.bedrock.controller.BedrockRenderController;
+import team.unnamed.mocha.parser.ast.Expression;
 import team.unnamed.mocha.runtime.Scope;
 import team.unnamed.mocha.runtime.binding.JavaObjectBinding;
 import team.unnamed.mocha.runtime.standard.MochaMath;
 import team.unnamed.mocha.runtime.value.MutableObjectBinding;
 import team.unnamed.mocha.runtime.value.Value;
 
-import java.io.IOException;
 import java.util.*;
 import java.util.logging.Level;
 
@@ -73,6 +73,8 @@ public class CustomEntity extends Entity {
     private final Scope entityScope = BASE_SCOPE.copy();
     private final List<EvaluatedModel> models = new ArrayList<>();
     private final List<ItemDisplayEntity> partEntities = new ArrayList<>();
+    private Set<String> queryNames;
+    private QueryState lastQueryState;
     private boolean spawned;
 
     public CustomEntity(final UserConnection user, final long uniqueId, final long runtimeId, final String type, final int javaId, final EntityDefinitions.EntityDefinition entityDefinition) {
@@ -145,8 +147,12 @@ public class CustomEntity extends Entity {
         super.onEntityDataChanged();
 
         if (this.evaluateRenderControllerChange()) {
-            this.despawn();
-            this.spawn();
+            if (this.user.get(ChannelStorage.class).hasChannel(ViaBedrockUtilityInterface.CONFIRM_CHANNEL)) {
+                this.despawn();
+                this.spawn();
+            } else {
+                this.updateParts();
+            }
         }
     }
 
@@ -156,8 +162,6 @@ public class CustomEntity extends Entity {
             return;
         }
 
-        final EntityTracker entityTracker = this.user.get(EntityTracker.class);
-        final ResourcePacksStorage resourcePacksStorage = this.user.get(ResourcePacksStorage.class);
         final ChannelStorage channelStorage = this.user.get(ChannelStorage.class);
         if (channelStorage.hasChannel(ViaBedrockUtilityInterface.CONFIRM_CHANNEL)) {
             ViaBedrockUtilityInterface.spawnCustomEntity(this.user, this.javaUuid(), this.entityDefinition.identifier(), this.entityData());
@@ -165,69 +169,115 @@ public class CustomEntity extends Entity {
         }
 
         for (EvaluatedModel model : this.models) {
-            final String key = this.entityDefinition.identifier() + "_" + model.key();
-            if (!resourcePacksStorage.getConverterData().containsKey("ce_" + key + "_scale")) {
-                continue;
+            this.spawnPart(model);
+        }
+    }
+
+    /**
+     * Only removes the part entities of models which are gone and spawns the ones of new models. Parts whose model stayed the same are kept.
+     */
+    private void updateParts() {
+        final List<EvaluatedModel> newModels = new ArrayList<>(this.models);
+        final List<ItemDisplayEntity> removedParts = new ArrayList<>();
+        for (ItemDisplayEntity partEntity : this.partEntities) {
+            if (!newModels.remove(partEntity.model)) {
+                removedParts.add(partEntity);
             }
+        }
+        if (!removedParts.isEmpty()) {
+            this.partEntities.removeAll(removedParts);
+            this.removeParts(removedParts);
+        }
+
+        this.spawned = true;
+        for (EvaluatedModel model : newModels) {
+            this.spawnPart(model);
+        }
+    }
 
-            final ItemDisplayEntity partEntity = new ItemDisplayEntity(entityTracker.getNextJavaEntityId());
-            this.partEntities.add(partEntity);
-            final List<EntityData> javaEntityData = new ArrayList<>();
-
-            final StructuredDataContainer data = ProtocolConstants.createStructuredDataContainer();
-            data.set(StructuredDataKey.ITEM_MODEL, new ItemModel(Key.of("viabedrock:entity")));
-            data.set(StructuredDataKey.CUSTOM_MODEL_DATA1_21_4, CustomEntityResourceRewriter.getCustomModelData(key));
-            final StructuredItem item = new StructuredItem(BedrockProtocol.MAPPINGS.getJavaItems().get("minecraft:paper"), 1, data);
-            javaEntityData.add(new EntityData(partEntity.getJavaEntityDataIndex("ITEM_STACK"), VersionedTypes.V1_21_9.entityDataTypes.itemType, item));
-
-            final float scale = (float) resourcePacksStorage.getConverterData().get("ce_" + key + "_scale");
-            javaEntityData.add(new EntityData(partEntity.getJavaEntityDataIndex("SCALE"), VersionedTypes.V1_21_9.entityDataTypes.vector3FType, new Vector3f(scale, scale, scale)));
-            javaEntityData.add(new EntityData(partEntity.getJavaEntityDataIndex("TRANSLATION"), VersionedTypes.V1_21_9.entityDataTypes.vector3FType, new Vector3f(0F, scale * 0.5F, 0F)));
-
-            final PacketWrapper addEntity = PacketWrapper.create(ClientboundPackets1_21_9.ADD_ENTITY, this.user);
-            addEntity.write(Types.VAR_INT, partEntity.javaId()); // entity id
-            addEntity.write(Types.UUID, partEntity.javaUuid()); // uuid
-            addEntity.write(Types.VAR_INT, partEntity.javaType().getId()); // type id
-            addEntity.write(Types.DOUBLE, (double) this.position.x()); // x
-            addEntity.write(Types.DOUBLE, (double) this.position.y()); // y
-            addEntity.write(Types.DOUBLE, (double) this.position.z()); // z
-            addEntity.write(Types.MOVEMENT_VECTOR, Vector3d.ZERO); // velocity
-            addEntity.write(Types.BYTE, MathUtil.float2Byte(this.rotation.x())); // pitch
-            addEntity.write(Types.BYTE, MathUtil.float2Byte(this.rotation.y())); // yaw
-            addEntity.write(Types.BYTE, MathUtil.float2Byte(this.rotation.z())); // head yaw
-            addEntity.write(Types.VAR_INT, 0); // data
-            addEntity.send(BedrockProtocol.class);
-
-            final PacketWrapper setEntityData = PacketWrapper.create(ClientboundPackets1_21_9.SET_ENTITY_DATA, this.user);
-            setEntityData.write(Types.VAR_INT, partEntity.javaId()); // entity id
-            setEntityData.write(VersionedTypes.V1_21_9.entityDataList, javaEntityData); // entity data
-            setEntityData.send(BedrockProtocol.class);
+    private void spawnPart(final EvaluatedModel model) {
+        final EntityTracker entityTracker = this.user.get(EntityTracker.class);
+        final ResourcePacksStorage resourcePacksStorage = this.user.get(ResourcePacksStorage.class);
+        final String key = this.entityDefinition.identifier() + "_" + model.key();
+        if (!resourcePacksStorage.getConverterData().containsKey("ce_" + key + "_scale")) {
+            return;
         }
+
+        final ItemDisplayEntity partEntity = new ItemDisplayEntity(entityTracker.getNextJavaEntityId(), model);
+        this.partEntities.add(partEntity);
+        final List<EntityData> javaEntityData = new ArrayList<>();
+
+        final StructuredDataContainer data = ProtocolConstants.createStructuredDataContainer();
+        data.set(StructuredDataKey.ITEM_MODEL, new ItemModel(Key.of("viabedrock:entity")));
+        data.set(StructuredDataKey.CUSTOM_MODEL_DATA1_21_4, CustomEntityResourceRewriter.getCustomModelData(key));
+        final StructuredItem item = new StructuredItem(BedrockProtocol.MAPPINGS.getJavaItems().get("minecraft:paper"), 1, data);
+        javaEntityData.add(new EntityData(partEntity.getJavaEntityDataIndex("ITEM_STACK"), VersionedTypes.V1_21_9.entityDataTypes.itemType, item));
+
+        final float scale = (float) resourcePacksStorage.getConverterData().get("ce_" + key + "_scale");
+        javaEntityData.add(new EntityData(partEntity.getJavaEntityDataIndex("SCALE"), VersionedTypes.V1_21_9.entityDataTypes.vector3FType, new Vector3f(scale, scale, scale)));
+        javaEntityData.add(new EntityData(partEntity.getJavaEntityDataIndex("TRANSLATION"), VersionedTypes.V1_21_9.entityDataTypes.vector3FType, new Vector3f(0F, scale * 0.5F, 0F)));
+
+        final PacketWrapper addEntity = PacketWrapper.create(ClientboundPackets1_21_9.ADD_ENTITY, this.user);
+        addEntity.write(Types.VAR_INT, partEntity.javaId()); // entity id
+        addEntity.write(Types.UUID, partEntity.javaUuid()); // uuid
+        addEntity.write(Types.VAR_INT, partEntity.javaType().getId()); // type id
+        addEntity.write(Types.DOUBLE, (double) this.position.x()); // x
+        addEntity.write(Types.DOUBLE, (double) this.position.y()); // y
+        addEntity.write(Types.DOUBLE, (double) this.position.z()); // z
+        addEntity.write(Types.MOVEMENT_VECTOR, Vector3d.ZERO); // velocity
+        addEntity.write(Types.BYTE, MathUtil.float2Byte(this.rotation.x())); // pitch
+        addEntity.write(Types.BYTE, MathUtil.float2Byte(this.rotation.y())); // yaw
+        addEntity.write(Types.BYTE, MathUtil.float2Byte(this.rotation.z())); // head yaw
+        addEntity.write(Types.VAR_INT, 0); // data
+        addEntity.send(BedrockProtocol.class);
+
+        final PacketWrapper setEntityData = PacketWrapper.create(ClientboundPackets1_21_9.SET_ENTITY_DATA, this.user);
+        setEntityData.write(Types.VAR_INT, partEntity.javaId()); // entity id
+        setEntityData.write(VersionedTypes.V1_21_9.entityDataList, javaEntityData); // entity data
+        setEntityData.send(BedrockProtocol.class);
     }
 
     private void despawn() {
         this.spawned = false;
-        final int[] entityIds = new int[partEntities.size()];
-        for (int i = 0; i < partEntities.size(); i++) {
-            entityIds[i] = partEntities.get(i).javaId();
-        }
+        this.removeParts(this.partEntities);
         this.partEntities.clear();
+    }
+
+    private void removeParts(final List<ItemDisplayEntity> parts) {
+        final int[] entityIds = new int[parts.size()];
+        for (int i = 0; i < parts.size(); i++) {
+            entityIds[i] = parts.get(i).javaId();
+        }
         final PacketWrapper removeEntities = PacketWrapper.create(ClientboundPackets1_21_9.REMOVE_ENTITIES, this.user);
         removeEntities.write(Types.VAR_INT_ARRAY_PRIMITIVE, entityIds); // entity ids
         removeEntities.send(BedrockProtocol.class);
     }
 
     private boolean evaluateRenderControllerChange() {
+        if (this.queryNames == null) {
+            this.queryNames = this.collectQueryNames();
+        }
+
+        // Only the queries which are read by the render controllers can change the result. Variables are only set by the initialize scripts, so they never change.
+        final Integer variant = this.queryNames.contains("variant") && this.entityData.containsKey(ActorDataIDs.VARIANT) ? this.entityData.get(ActorDataIDs.VARIANT).<Integer>value() : null;
+        final Integer markVariant = this.queryNames.contains("mark_variant") && this.entityData.containsKey(ActorDataIDs.MARK_VARIANT) ? this.entityData.get(ActorDataIDs.MARK_VARIANT).<Integer>value() : null;
+        final Set<ActorFlags> entityFlags = this.entityFlags();
+        entityFlags.removeIf(flag -> !this.isQueried(flag));
+        final QueryState queryState = new QueryState(variant, markVariant, entityFlags);
+        if (queryState.equals(this.lastQueryState)) {
+            return false;
+        }
+        this.lastQueryState = queryState;
+
         final Scope executionScope = this.entityScope.copy();
         final MutableObjectBinding queryBinding = new MutableObjectBinding();
-        if (this.entityData.containsKey(ActorDataIDs.VARIANT)) {
-            queryBinding.set("variant", Value.of(this.entityData.get(ActorDataIDs.VARIANT).<Integer>value()));
+        if (variant != null) {
+            queryBinding.set("variant", Value.of(variant));
         }
-        if (this.entityData.containsKey(ActorDataIDs.MARK_VARIANT)) {
-            queryBinding.set("mark_variant", Value.of(this.entityData.get(ActorDataIDs.MARK_VARIANT).<Integer>value()));
+        if (markVariant != null) {
+            queryBinding.set("mark_variant", Value.of(markVariant));
         }
 
-        final Set<ActorFlags> entityFlags = this.entityFlags();
         for (Map.Entry<ActorFlags, String> entry : BedrockProtocol.MAPPINGS.getBedrockEntityFlagMoLangQueries().entrySet()) {
             if (entityFlags.contains(entry.getKey())) {
                 queryBinding.set(entry.getValue(), Value.of(true));
@@ -244,7 +294,7 @@ public class CustomEntity extends Entity {
         final List<EvaluatedModel> newModels = new ArrayList<>();
         final ResourcePacksStorage resourcePacksStorage = user.get(ResourcePacksStorage.class);
         for (final BedrockEntityData.RenderController entityRenderController : this.entityDefinition.entityData().getControllers()) {
-            final BedrockRenderController renderController = resourcePacksStorage.getRenderControllers().get(entityRenderController.identifier());
+            final RenderControllerDefinitions.RenderControllerDefinition renderController = resourcePacksStorage.getRenderControllers().get(entityRenderController.identifier());
             if (renderController == null) {
                 continue;
             }
@@ -262,13 +312,13 @@ public class CustomEntity extends Entity {
 
             try {
                 final Scope renderControllerGeometryScope = executionScope.copy();
-                renderControllerGeometryScope.set("array", this.getArrayBinding(executionScope, renderController.geometries()));
+                renderControllerGeometryScope.set("array", this.getArrayBinding(executionScope, renderController.geometryArrays()));
                 final Scope renderControllerTextureScope = executionScope.copy();
-                renderControllerTextureScope.set("array", this.getArrayBinding(executionScope, renderController.textures()));
+                renderControllerTextureScope.set("array", this.getArrayBinding(executionScope, renderController.textureArrays()));
 
                 final String geometryValue = MoLangEngine.eval(renderControllerGeometryScope, renderController.geometryExpression()).getAsString();
                 final String geometryName = this.inverseGeometryMap.get(geometryValue);
-                for (String textureExpression : renderController.textureExpressions()) {
+                for (List<Expression> textureExpression : renderController.textureExpressions()) {
                     final String textureValue = MoLangEngine.eval(renderControllerTextureScope, textureExpression).getAsString();
                     final String textureName = this.inverseTextureMap.get(textureValue);
                     if (geometryName != null && textureName != null) {
@@ -291,16 +341,35 @@ public class CustomEntity extends Entity {
         }
     }
 
-    private MutableObjectBinding getArrayBinding(final Scope executionScope, final List<BedrockRenderController.Array> arrays) throws IOException {
+    private Set<String> collectQueryNames() {
+        final Set<String> queryNames = new HashSet<>();
+        final ResourcePacksStorage resourcePacksStorage = user.get(ResourcePacksStorage.class);
+        for (final BedrockEntityData.RenderController entityRenderController : this.entityDefinition.entityData().getControllers()) {
+            final RenderControllerDefinitions.RenderControllerDefinition renderController = resourcePacksStorage.getRenderControllers().get(entityRenderController.identifier());
+            if (renderController != null) {
+                queryNames.addAll(MoLangEngine.getQueryNames(entityRenderController.condition()));
+                queryNames.addAll(renderController.queryNames());
+            }
+        }
+        return queryNames;
+    }
+
+    private boolean isQueried(final ActorFlags flag) {
+        final String queryName = BedrockProtocol.MAPPINGS.getBedrockEntityFlagMoLangQueries().get(flag);
+        if (queryName != null && this.queryNames.contains(queryName)) {
+            return true;
+        }
+        return flag == ActorFlags.ONFIRE && this.queryNames.contains("is_onfire"); // "on fire" flag has two names in MoLang
+    }
+
+    private MutableObjectBinding getArrayBinding(final Scope executionScope, final List<RenderControllerDefinitions.CompiledArray> arrays) {
         final MutableObjectBinding arrayBinding = new MutableObjectBinding();
-        for (BedrockRenderController.Array array : arrays) {
-            if (array.name().toLowerCase(Locale.ROOT).startsWith("array.")) {
-                final String[] resolvedExpressions = new String[array.values().size()];
-                for (int i = 0; i < array.values().size(); i++) {
-                    resolvedExpressions[i] = MoLangEngine.eval(executionScope, array.values().get(i)).getAsString();
-                }
-                arrayBinding.set(array.name().substring(6), Value.of(resolvedExpressions));
+        for (RenderControllerDefinitions.CompiledArray array : arrays) {
+            final String[] resolvedExpressions = new String[array.values().size()];
+            for (int i = 0; i < array.values().size(); i++) {
+                resolvedExpressions[i] = MoLangEngine.eval(executionScope, array.values().get(i)).getAsString();
             }
+            arrayBinding.set(array.name(), Value.of(resolvedExpressions));
         }
         arrayBinding.block();
         return arrayBinding;
@@ -309,10 +378,16 @@ public class CustomEntity extends Entity {
     public record EvaluatedModel(String key, String geometryValue, String textureValue) {
     }
 
+    private record QueryState(Integer variant, Integer markVariant, Set<ActorFlags> flags) {
+    }
+
     private class ItemDisplayEntity extends Entity {
 
-        public ItemDisplayEntity(final int javaId) {
+        private final EvaluatedModel model;
+
+        public ItemDisplayEntity(final int javaId, final EvaluatedModel model) {
             super(CustomEntity.this.user, 0L, 0L, null, javaId, UUID.randomUUID(), EntityTypes1_21_9.ITEM_DISPLAY);
+            this.model = model;
         }
 
         public void updatePositionAndRotation() {
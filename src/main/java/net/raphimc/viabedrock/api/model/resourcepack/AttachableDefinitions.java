@@ -19,22 +19,24 @@ package net.raphimc.viabedrock.api.model.resourcepack;
 
 import com.viaversion.viaversion.util.Key;
 import net.raphimc.viabedrock.ViaBedrock;
-import net.raphimc.viabedrock.protocol.storage.ResourcePacksStorage;
+import net.raphimc.viabedrock.api.util.OverlayMap;
 import org.cube.converter.data.bedrock.BedrockAttachableData;
 import org.cube.converter.parser.bedrock.data.impl.BedrockAttachableParser;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 
 // https://wiki.bedrock.dev/items/attachables.html
 public class AttachableDefinitions {
 
-    private final Map<String, AttachableDefinition> attachables = new HashMap<>();
+    private final Map<String, AttachableDefinition> attachables;
 
-    public AttachableDefinitions(final ResourcePacksStorage resourcePacksStorage) {
-        for (ResourcePack pack : resourcePacksStorage.getPackStackBottomToTop()) {
+    public AttachableDefinitions(final AttachableDefinitions parent, final List<ResourcePack> packsBottomToTop) {
+        this.attachables = parent != null ? new OverlayMap<>(parent.attachables) : new HashMap<>();
+        for (ResourcePack pack : packsBottomToTop) {
             for (String attachablePath : pack.content().getFilesDeep("attachables/", ".json")) {
                 try {
                     final BedrockAttachableData attachableData = BedrockAttachableParser.parse(pack.content().getString(attachablePath));
@@ -20,19 +20,21 @@ package net.raphimc.viabedrock.api.model.resourcepack;
 import com.viaversion.viaversion.libs.gson.JsonObject;
 import com.viaversion.viaversion.util.Key;
 import net.raphimc.viabedrock.ViaBedrock;
-import net.raphimc.viabedrock.protocol.storage.ResourcePacksStorage;
+import net.raphimc.viabedrock.api.util.OverlayMap;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 
 public class BiomeDefinitions {
 
-    private final Map<String, BiomeDefinition> biomes = new HashMap<>();
+    private final Map<String, BiomeDefinition> biomes;
 
-    public BiomeDefinitions(final ResourcePacksStorage resourcePacksStorage) {
-        for (ResourcePack pack : resourcePacksStorage.getPackStackBottomToTop()) {
+    public BiomeDefinitions(final BiomeDefinitions parent, final List<ResourcePack> packsBottomToTop) {
+        this.biomes = parent != null ? new OverlayMap<>(parent.biomes) : new HashMap<>();
+        for (ResourcePack pack : packsBottomToTop) {
             for (String biomePath : pack.content().getFilesDeep("biomes/", ".json")) {
                 try {
                     final JsonObject biome = pack.content().getJson(biomePath).getAsJsonObject("minecraft:client_biome");
@@ -21,20 +21,22 @@ import com.viaversion.viaversion.libs.gson.JsonElement;
 import com.viaversion.viaversion.libs.gson.JsonObject;
 import com.viaversion.viaversion.util.Key;
 import net.raphimc.viabedrock.ViaBedrock;
-import net.raphimc.viabedrock.protocol.storage.ResourcePacksStorage;
+import net.raphimc.viabedrock.api.util.OverlayMap;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 
 // https://wiki.bedrock.dev/blocks/blocks-intro.html
 public class BlockDefinitions {
 
-    private final Map<String, BlockDefinition> blocks = new HashMap<>();
+    private final Map<String, BlockDefinition> blocks;
 
-    public BlockDefinitions(final ResourcePacksStorage resourcePacksStorage) {
-        for (ResourcePack pack : resourcePacksStorage.getPackStackBottomToTop()) {
+    public BlockDefinitions(final BlockDefinitions parent, final List<ResourcePack> packsBottomToTop) {
+        this.blocks = parent != null ? new OverlayMap<>(parent.blocks) : new HashMap<>();
+        for (ResourcePack pack : packsBottomToTop) {
             if (pack.content().contains("blocks.json")) {
                 try {
                     final JsonObject blocks = pack.content().getJson("blocks.json");
@@ -19,22 +19,24 @@ package net.raphimc.viabedrock.api.model.resourcepack;
 
 import com.viaversion.viaversion.util.Key;
 import net.raphimc.viabedrock.ViaBedrock;
-import net.raphimc.viabedrock.protocol.storage.ResourcePacksStorage;
+import net.raphimc.viabedrock.api.util.OverlayMap;
 import org.cube.converter.data.bedrock.BedrockEntityData;
 import org.cube.converter.parser.bedrock.data.impl.BedrockEntityParser;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 
 // https://wiki.bedrock.dev/entities/entity-intro-rp.html
 public class EntityDefinitions {
 
-    private final Map<String, EntityDefinition> entities = new HashMap<>();
+    private final Map<String, EntityDefinition> entities;
 
-    public EntityDefinitions(final ResourcePacksStorage resourcePacksStorage) {
-        for (ResourcePack pack : resourcePacksStorage.getPackStackBottomToTop()) {
+    public EntityDefinitions(final EntityDefinitions parent, final List<ResourcePack> packsBottomToTop) {
+        this.entities = parent != null ? new OverlayMap<>(parent.entities) : new HashMap<>();
+        for (ResourcePack pack : packsBottomToTop) {
             for (String entityPath : pack.content().getFilesDeep("entity/", ".json")) {
                 try {
                     final BedrockEntityData entityData = BedrockEntityParser.parse(pack.content().getString(entityPath));
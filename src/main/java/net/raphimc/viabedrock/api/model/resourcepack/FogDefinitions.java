@@ -21,18 +21,20 @@ import com.viaversion.viaversion.libs.gson.JsonElement;
 import com.viaversion.viaversion.libs.gson.JsonObject;
 import com.viaversion.viaversion.util.Key;
 import net.raphimc.viabedrock.ViaBedrock;
-import net.raphimc.viabedrock.protocol.storage.ResourcePacksStorage;
+import net.raphimc.viabedrock.api.util.OverlayMap;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 
 public class FogDefinitions {
 
-    private final Map<String, FogDefinition> fogs = new HashMap<>();
+    private final Map<String, FogDefinition> fogs;
 
-    public FogDefinitions(final ResourcePacksStorage resourcePacksStorage) {
-        for (ResourcePack pack : resourcePacksStorage.getPackStackBottomToTop()) {
+    public FogDefinitions(final FogDefinitions parent, final List<ResourcePack> packsBottomToTop) {
+        this.fogs = parent != null ? new OverlayMap<>(parent.fogs) : new HashMap<>();
+        for (ResourcePack pack : packsBottomToTop) {
             for (String fogPath : pack.content().getFilesDeep("fogs/", ".json")) {
                 try {
                     final JsonObject fog = pack.content().getJson(fogPath).getAsJsonObject("minecraft:fog_settings");
@@ -22,19 +22,21 @@ import com.viaversion.nbt.tag.StringTag;
 import com.viaversion.viaversion.libs.gson.JsonObject;
 import com.viaversion.viaversion.util.Key;
 import net.raphimc.viabedrock.ViaBedrock;
-import net.raphimc.viabedrock.protocol.storage.ResourcePacksStorage;
+import net.raphimc.viabedrock.api.util.OverlayMap;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 
 // https://wiki.bedrock.dev/items/item-components.html
 public class ItemDefinitions {
 
-    private final Map<String, ItemDefinition> items = new HashMap<>();
+    private final Map<String, ItemDefinition> items;
 
-    public ItemDefinitions(final ResourcePacksStorage resourcePacksStorage) {
-        for (ResourcePack pack : resourcePacksStorage.getPackStackBottomToTop()) {
+    public ItemDefinitions(final ItemDefinitions parent, final List<ResourcePack> packsBottomToTop) {
+        this.items = parent != null ? new OverlayMap<>(parent.items) : new HashMap<>();
+        for (ResourcePack pack : packsBottomToTop) {
             for (String itemPath : pack.content().getFilesDeep("items/", ".json")) {
                 try {
                     final JsonObject item = pack.content().getJson(itemPath).getAsJsonObject("minecraft:item");
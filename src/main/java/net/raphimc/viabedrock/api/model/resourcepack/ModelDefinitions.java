@@ -18,21 +18,23 @@
 package net.raphimc.viabedrock.api.model.resourcepack;
 
 import net.raphimc.viabedrock.ViaBedrock;
-import net.raphimc.viabedrock.protocol.storage.ResourcePacksStorage;
+import net.raphimc.viabedrock.api.util.OverlayMap;
 import org.cube.converter.model.impl.bedrock.BedrockGeometryModel;
 import org.cube.converter.parser.bedrock.geometry.BedrockGeometryParser;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 
 public class ModelDefinitions {
 
-    private final Map<String, BedrockGeometryModel> entityModels = new HashMap<>();
+    private final Map<String, BedrockGeometryModel> entityModels;
 
-    public ModelDefinitions(final ResourcePacksStorage resourcePacksStorage) {
-        for (ResourcePack pack : resourcePacksStorage.getPackStackBottomToTop()) {
+    public ModelDefinitions(final ModelDefinitions parent, final List<ResourcePack> packsBottomToTop) {
+        this.entityModels = parent != null ? new OverlayMap<>(parent.entityModels) : new HashMap<>();
+        for (ResourcePack pack : packsBottomToTop) {
             for (String modelPath : pack.content().getFilesDeep("models/", ".json")) {
                 try {
                     for (BedrockGeometryModel bedrockGeometry : BedrockGeometryParser.parse(pack.content().getString(modelPath))) {
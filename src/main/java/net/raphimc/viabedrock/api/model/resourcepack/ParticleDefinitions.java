@@ -20,19 +20,21 @@ package net.raphimc.viabedrock.api.model.resourcepack;
 import com.viaversion.viaversion.libs.gson.JsonObject;
 import com.viaversion.viaversion.util.Key;
 import net.raphimc.viabedrock.ViaBedrock;
-import net.raphimc.viabedrock.protocol.storage.ResourcePacksStorage;
+import net.raphimc.viabedrock.api.util.OverlayMap;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 
 public class ParticleDefinitions {
 
-    private final Map<String, ParticleDefinition> particles = new HashMap<>();
+    private final Map<String, ParticleDefinition> particles;
 
-    public ParticleDefinitions(final ResourcePacksStorage resourcePacksStorage) {
-        for (ResourcePack pack : resourcePacksStorage.getPackStackBottomToTop()) {
+    public ParticleDefinitions(final ParticleDefinitions parent, final List<ResourcePack> packsBottomToTop) {
+        this.particles = parent != null ? new OverlayMap<>(parent.particles) : new HashMap<>();
+        for (ResourcePack pack : packsBottomToTop) {
             for (String particlePath : pack.content().getFilesDeep("particles/", ".json")) {
                 try {
                     final JsonObject particleEffect = pack.content().getJson(particlePath).getAsJsonObject("particle_effect");
@@ -18,26 +18,32 @@
 package net.raphimc.viabedrock.api.model.resourcepack;
 
 import net.raphimc.viabedrock.ViaBedrock;
-import net.raphimc.viabedrock.protocol.storage.ResourcePacksStorage;
+import net.raphimc.viabedrock.api.util.MoLangEngine;
+import net.raphimc.viabedrock.api.util.OverlayMap;
 import org.cube.converter.data.bedrock.controller.BedrockRenderController;
 import org.cube.converter.parser.bedrock.controller.BedrockControllerParser;
+import team.unnamed.mocha.parser.ast.Expression;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
+import java.util.*;
 import java.util.logging.Level;
 
 // https://wiki.bedrock.dev/entities/render-controllers
 public class RenderControllerDefinitions {
 
-    private final Map<String, BedrockRenderController> renderControllers = new HashMap<>();
+    private final Map<String, RenderControllerDefinition> renderControllers;
 
-    public RenderControllerDefinitions(final ResourcePacksStorage resourcePacksStorage) {
-        for (ResourcePack pack : resourcePacksStorage.getPackStackBottomToTop()) {
+    public RenderControllerDefinitions(final RenderControllerDefinitions parent, final List<ResourcePack> packsBottomToTop) {
+        this.renderControllers = parent != null ? new OverlayMap<>(parent.renderControllers) : new HashMap<>();
+        for (ResourcePack pack : packsBottomToTop) {
             for (String controllerPath : pack.content().getFilesDeep("render_controllers/", ".json")) {
                 try {
                     for (BedrockRenderController bedrockRenderController : BedrockControllerParser.parse(pack.content().getString(controllerPath))) {
-                        this.renderControllers.put(bedrockRenderController.identifier(), bedrockRenderController);
+                        try { // Compiled one by one, so an unsupported expression only affects its own render controller
+                            this.renderControllers.put(bedrockRenderController.identifier(), RenderControllerDefinition.compile(bedrockRenderController));
+                        } catch (Throwable e) {
+                            ViaBedrock.getPlatform().getLogger().log(Level.WARNING, "Failed to compile render controller " + bedrockRenderController.identifier() + " in pack " + pack.packId(), e);
+                        }
                     }
                 } catch (Throwable e) {
                     ViaBedrock.getPlatform().getLogger().log(Level.WARNING, "Failed to parse render controller " + controllerPath + " in pack " + pack.packId(), e);
@@ -46,12 +52,55 @@ public class RenderControllerDefinitions {
         }
     }
 
-    public BedrockRenderController get(final String name) {
+    public RenderControllerDefinition get(final String name) {
         return this.renderControllers.get(name);
     }
 
-    public Map<String, BedrockRenderController> renderControllers() {
+    public Map<String, RenderControllerDefinition> renderControllers() {
         return Collections.unmodifiableMap(this.renderControllers);
     }
 
+    /**
+     * A render controller with all MoLang expressions already parsed, so they don't have to be parsed on every evaluation.<br>
+     * Also contains the names of all queries the expressions read, so the render controller only has to be evaluated again if one of them changed.
+     */
+    public record RenderControllerDefinition(BedrockRenderController renderController, List<Expression> geometryExpression, List<List<Expression>> textureExpressions, List<CompiledArray> geometryArrays, List<CompiledArray> textureArrays, Set<String> queryNames) {
+
+        public static RenderControllerDefinition compile(final BedrockRenderController renderController) throws IOException {
+            final Set<String> queryNames = new HashSet<>(MoLangEngine.getQueryNames(renderController.geometryExpression()));
+            final List<List<Expression>> textureExpressions = new ArrayList<>(renderController.textureExpressions().size());
+            for (String textureExpression : renderController.textureExpressions()) {
+                textureExpressions.add(List.copyOf(MoLangEngine.parse(textureExpression)));
+                queryNames.addAll(MoLangEngine.getQueryNames(textureExpression));
+            }
+            return new RenderControllerDefinition(
+                    renderController,
+                    List.copyOf(MoLangEngine.parse(renderController.geometryExpression())),
+                    List.copyOf(textureExpressions),
+                    compileArrays(renderController.geometries(), queryNames),
+                    compileArrays(renderController.textures(), queryNames),
+                    Set.copyOf(queryNames)
+            );
+        }
+
+        private static List<CompiledArray> compileArrays(final List<BedrockRenderController.Array> arrays, final Set<String> queryNames) throws IOException {
+            final List<CompiledArray> compiledArrays = new ArrayList<>();
+            for (BedrockRenderController.Array array : arrays) {
+                if (array.name().toLowerCase(Locale.ROOT).startsWith("array.")) {
+                    final List<List<Expression>> values = new ArrayList<>(array.values().size());
+                    for (String value : array.values()) {
+                        values.add(List.copyOf(MoLangEngine.parse(value)));
+                        queryNames.addAll(MoLangEngine.getQueryNames(value));
+                    }
+                    compiledArrays.add(new CompiledArray(array.name().substring(6), List.copyOf(values)));
+                }
+            }
+            return List.copyOf(compiledArrays);
+        }
+
+    }
+
+    public record CompiledArray(String name, List<List<Expression>> values) {
+    }
+
 }
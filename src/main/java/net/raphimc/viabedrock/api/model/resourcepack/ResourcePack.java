@@ -25,7 +25,6 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import net.raphimc.viabedrock.ViaBedrock;
 import net.raphimc.viabedrock.api.util.JsonUtil;
-import net.raphimc.viabedrock.api.util.MathUtil;
 import net.raphimc.viabedrock.protocol.data.enums.bedrock.generated.PackType;
 
 import javax.crypto.BadPaddingException;
@@ -39,16 +38,23 @@ import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.OutputStream;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
@@ -74,10 +80,17 @@ public class ResourcePack {
     // HTTP resource pack downloading
     private URL cdnUrl;
 
-    private int maxChunkSize;
-    private boolean[] receivedChunks;
-    private byte[] compressedData;
+    private int compressedDataLength;
+    private ResourcePackDownload download;
+    private volatile boolean decompressed; // Packs can be decompressed off the event loop
     private Content content;
+    private String contentRegistryKey; // Guarded by this, as the pack can be released while it is decoded on another thread
+    private boolean released;
+
+    // Metrics
+    private long downloadStartTime;
+    private long downloadEndTime;
+    private long readyTime;
 
     public ResourcePack(final UUID packId, final String version, final byte[] contentKey, final String subPackName, final String contentId, final boolean hasScripts, final boolean isAddonPack, final boolean raytracingCapable, final URL cdnUrl, final long compressedSize, final PackType type) {
         this.packId = packId;
@@ -89,34 +102,85 @@ public class ResourcePack {
         this.isAddonPack = isAddonPack;
         this.raytracingCapable = raytracingCapable;
         this.cdnUrl = cdnUrl;
-        this.compressedData = new byte[(int) compressedSize];
+        this.compressedDataLength = (int) compressedSize;
         this.type = type;
     }
 
-    public boolean processDataChunk(final int chunkIndex, final byte[] data) throws NoSuchAlgorithmException, IOException, InvalidAlgorithmParameterException, NoSuchPaddingException, InvalidKeyException, IllegalBlockSizeException, BadPaddingException {
-        if (this.receivedChunks[chunkIndex]) {
-            ViaBedrock.getPlatform().getLogger().log(Level.WARNING, "Received duplicate resource pack chunk data: " + this.packId);
-            return false;
+    /**
+     * Receives a chunk of the pack data and decompresses the pack once all chunks were received.
+     *
+     * @param chunkIndex The index of the chunk
+     * @param data       The chunk data
+     * @return True if the pack was decompressed
+     * @throws Exception If the pack could not be decompressed
+     */
+    public boolean processDataChunk(final int chunkIndex, final byte[] data) throws Exception {
+        if (this.receiveDataChunk(chunkIndex, data)) {
+            this.decompressAndDecrypt();
+            return true;
         }
 
-        final int offset = chunkIndex * this.maxChunkSize;
-        if (offset + data.length > this.compressedData.length) {
+        return false;
+    }
+
+    /**
+     * Receives a chunk of the pack data without decompressing the pack. Use {@link #decompressAndDecrypt()} once this returns true.
+     *
+     * @param chunkIndex The index of the chunk
+     * @param data       The chunk data
+     * @return True if all chunks were received
+     * @throws IOException If the data could not be written to the temporary file
+     */
+    public boolean receiveDataChunk(final int chunkIndex, final byte[] data) throws IOException {
+        if (this.download == null) {
+            ViaBedrock.getPlatform().getLogger().log(Level.WARNING, "Received resource pack chunk data for pack which isn't being downloaded: " + this.packId);
+            return false;
+        }
+        if (!this.download.fits(chunkIndex, data.length)) {
             ViaBedrock.getPlatform().getLogger().log(Level.WARNING, "Received resource pack chunk data with invalid offset: " + this.packId);
             return false;
         }
-        System.arraycopy(data, 0, this.compressedData, offset, data.length);
-        this.receivedChunks[chunkIndex] = true;
+        if (this.download.hasReceived(chunkIndex)) {
+            ViaBedrock.getPlatform().getLogger().log(Level.WARNING, "Received duplicate resource pack chunk data: " + this.packId);
+            return false;
+        }
 
-        if (this.hasReceivedAllChunks()) {
-            this.decompressAndDecrypt();
+        this.download.write(chunkIndex, data);
+        if (this.download.isComplete()) {
+            this.downloadEndTime = System.nanoTime();
             return true;
         }
 
         return false;
     }
 
+    /**
+     * Receives the whole pack data at once without decompressing the pack. Use {@link #decompressAndDecrypt()} afterwards.<br>
+     * The time since {@link #startDownload()} is recorded as download time.
+     *
+     * @param data The pack data, for example a memory mapped file. Is adopted without copying, so it must not be modified afterwards.
+     * @throws IOException If the temporary file of a previous download could not be closed
+     */
+    public void receiveData(final ByteBuffer data) throws IOException {
+        if (this.download != null) {
+            this.download.close();
+        }
+        this.compressedDataLength = data.remaining();
+        this.download = new ResourcePackDownload(data);
+        this.downloadEndTime = System.nanoTime();
+    }
+
+    /**
+     * Gets the index of the next chunk which should be requested from the server. Used to limit the amount of chunk requests in flight.
+     *
+     * @return The chunk index or -1 if all chunks were requested
+     */
+    public int pollChunkRequest() {
+        return this.download != null ? this.download.pollChunkRequest() : -1;
+    }
+
     public boolean isDecompressed() {
-        return this.compressedData == null;
+        return this.decompressed;
     }
 
     public UUID packId() {
@@ -184,17 +248,75 @@ public class ResourcePack {
     }
 
     public int compressedDataLength() {
-        if (this.compressedData == null) {
-            return 0;
-        }
+        return this.compressedDataLength;
+    }
 
-        return this.compressedData.length;
+    /**
+     * Only records the expected length of the pack data. The download is prepared once it actually starts.
+     *
+     * @param length The length of the pack data
+     */
+    public void setCompressedDataLength(final int length) {
+        this.compressedDataLength = length;
     }
 
     public void setCompressedDataLength(final int length, final int maxChunkSize) {
-        this.maxChunkSize = maxChunkSize;
-        this.receivedChunks = new boolean[MathUtil.ceil((float) length / maxChunkSize)];
-        this.compressedData = new byte[length];
+        try {
+            this.setCompressedDataLength(length, maxChunkSize, false);
+        } catch (IOException e) { // Only thrown when spilling to disk
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Prepares receiving the pack data.
+     *
+     * @param length       The length of the pack data
+     * @param maxChunkSize The maximum size of a chunk
+     * @param spillToDisk  If true, the received data is written to a temporary file instead of being kept on the heap
+     * @throws IOException If the temporary file could not be created
+     */
+    public void setCompressedDataLength(final int length, final int maxChunkSize, final boolean spillToDisk) throws IOException {
+        if (this.download != null) {
+            this.download.close();
+        }
+        this.compressedDataLength = length;
+        this.download = new ResourcePackDownload(length, maxChunkSize, spillToDisk);
+        this.downloadStartTime = System.nanoTime();
+    }
+
+    /**
+     * Starts measuring the download time of pack data which is received at once using {@link #receiveData(ByteBuffer)}.
+     */
+    public void startDownload() {
+        this.downloadStartTime = System.nanoTime();
+        this.downloadEndTime = 0;
+    }
+
+    /**
+     * @return The time in milliseconds it took to receive the pack data or -1 if it wasn't received yet
+     */
+    public long downloadTime() {
+        return this.downloadEndTime != 0 ? (this.downloadEndTime - this.downloadStartTime) / 1_000_000L : -1;
+    }
+
+    /**
+     * @return The time in milliseconds from the start of the download until the pack was ready to use or -1 if it isn't ready yet
+     */
+    public long timeToReady() {
+        return this.readyTime != 0 ? (this.readyTime - this.downloadStartTime) / 1_000_000L : -1;
+    }
+
+    /**
+     * Releases the content of this pack from the {@link ResourcePackContentRegistry}. Has to be called when the pack is no longer used.<br>
+     * If the pack is currently being decoded, the content is released as soon as the decoding finished.
+     */
+    public synchronized void release() {
+        this.released = true;
+        if (this.contentRegistryKey != null) {
+            ResourcePackContentRegistry.INSTANCE.release(this.contentRegistryKey);
+            this.contentRegistryKey = null;
+        }
     }
 
     public Content content() {
@@ -205,44 +327,35 @@ public class ResourcePack {
         return this.content;
     }
 
-    private void decompressAndDecrypt() throws NoSuchAlgorithmException, IOException, NoSuchPaddingException, InvalidAlgorithmParameterException, InvalidKeyException, IllegalBlockSizeException, BadPaddingException {
-        if (this.hash != null) {
-            final MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
-            final byte[] hash = sha256.digest(this.compressedData);
-            if (!Arrays.equals(hash, this.hash)) {
-                throw new IllegalStateException("Resource pack hash mismatch: " + this.packId);
-            }
-        }
+    private Content decode(final ByteBuffer compressedData) throws NoSuchAlgorithmException, IOException, NoSuchPaddingException, InvalidAlgorithmParameterException, InvalidKeyException, IllegalBlockSizeException, BadPaddingException {
+        Content content = new Content(compressedData);
 
-        this.content = new Content(this.compressedData);
-        this.compressedData = null;
-
-        if (!this.content.contains("manifest.json") && !this.content.contains("pack_manifest.json") && this.cdnUrl != null && this.content.size() == 1) {
+        if (!content.contains("manifest.json") && !content.contains("pack_manifest.json") && this.cdnUrl != null && content.size() == 1) {
             // CDN packs are allowed to contain a single .zip file at the root
-            final String key = this.content.content.keySet().iterator().next();
+            final String key = content.paths().iterator().next();
             if (key.endsWith(".zip")) {
-                this.content = new Content(this.content.get(key));
+                content = new Content(content.get(key));
             }
         }
-        if (!this.content.contains("manifest.json") && !this.content.contains("pack_manifest.json")) {
+        if (!content.contains("manifest.json") && !content.contains("pack_manifest.json")) {
             // Bedrock allows resource packs to contain a single subfolder at the root
-            for (String path : new HashSet<>(this.content.content.keySet())) {
+            for (String path : new ArrayList<>(content.paths())) {
                 if (path.contains("/")) {
-                    this.content.put(path.substring(path.indexOf('/') + 1), this.content.content.remove(path));
+                    content.move(path, path.substring(path.indexOf('/') + 1));
                 }
             }
         }
-        if (!this.content.contains("manifest.json") && !this.content.contains("pack_manifest.json")) {
+        if (!content.contains("manifest.json") && !content.contains("pack_manifest.json")) {
             throw new IllegalStateException("Missing manifest.json in resource pack: " + this.packId);
         }
 
         if (this.contentKey.length != 0) {
-            if (!this.content.contains("contents.json")) {
+            if (!content.contains("contents.json")) {
                 throw new IllegalStateException("Missing contents.json in resource pack: " + this.packId);
             }
             final Cipher aesCfb8 = Cipher.getInstance("AES/CFB8/NoPadding");
             aesCfb8.init(Cipher.DECRYPT_MODE, new SecretKeySpec(this.contentKey, "AES"), new IvParameterSpec(Arrays.copyOfRange(this.contentKey, 0, 16)));
-            final ByteBuf contents = Unpooled.wrappedBuffer(this.content.get("contents.json"));
+            final ByteBuf contents = Unpooled.wrappedBuffer(content.get("contents.json"));
             contents.skipBytes(4); // version
             final byte[] magic = new byte[4];
             contents.readBytes(magic); // magic
@@ -260,16 +373,16 @@ public class ResourcePack {
             contents.readerIndex(256);
             final byte[] encryptedContents = new byte[contents.readableBytes()];
             contents.readBytes(encryptedContents); // encrypted contents.json
-            this.content.put("contents.json", aesCfb8.doFinal(encryptedContents));
+            content.put("contents.json", aesCfb8.doFinal(encryptedContents));
 
-            final JsonObject contentsJson = this.content.getJson("contents.json");
+            final JsonObject contentsJson = content.getJson("contents.json");
             final JsonArray contentArray = contentsJson.getAsJsonArray("content");
             for (JsonElement element : contentArray) {
                 final JsonObject contentItem = element.getAsJsonObject();
                 if (!contentItem.has("key") || contentItem.get("key").isJsonNull()) continue;
                 final String key = contentItem.get("key").getAsString();
                 final String path = contentItem.get("path").getAsString();
-                if (!this.content.contains(path)) {
+                if (!content.contains(path)) {
                     ViaBedrock.getPlatform().getLogger().log(Level.WARNING, "Missing resource pack file: " + path);
                     continue;
                 }
@@ -279,13 +392,54 @@ public class ResourcePack {
                     }
                 }
 
-                final byte[] encryptedData = this.content.get(path);
                 final byte[] keyBytes = key.getBytes(StandardCharsets.ISO_8859_1);
-                aesCfb8.init(Cipher.DECRYPT_MODE, new SecretKeySpec(keyBytes, "AES"), new IvParameterSpec(Arrays.copyOfRange(keyBytes, 0, 16)));
-                this.content.put(path, aesCfb8.doFinal(encryptedData));
+                content.transform(path, encryptedData -> decrypt(keyBytes, encryptedData)); // Decrypted when the entry is inflated
             }
         }
 
+        return content;
+    }
+
+    /**
+     * Verifies, decompresses and decrypts the received pack data. Doesn't have to be called on the event loop.<br>
+     * If the pack was released in the meantime, the decoded content is released again and the pack stays not decompressed.
+     *
+     * @throws Exception If the pack could not be decompressed
+     */
+    public void decompressAndDecrypt() throws Exception {
+        if (this.download == null || !this.download.isComplete()) {
+            throw new IllegalStateException("Pack data is not fully received: " + this.packId);
+        }
+        final ResourcePackDownload download = this.download;
+        this.download = null;
+        final Content content;
+        final String contentRegistryKey;
+        try {
+            final byte[] hash = download.getHash(); // Hashed while the chunks were received
+            if (this.hash != null && !Arrays.equals(hash, this.hash)) {
+                throw new IllegalStateException("Resource pack hash mismatch: " + this.packId);
+            }
+
+            // Everything the decoded content depends on
+            final MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            sha256.update(hash);
+            sha256.update(this.contentKey);
+            sha256.update(this.contentId.getBytes(StandardCharsets.UTF_8));
+            sha256.update((byte) (this.cdnUrl != null ? 1 : 0));
+            contentRegistryKey = this.packId + "_" + this.version + "_" + HexFormat.of().formatHex(sha256.digest());
+            content = ResourcePackContentRegistry.INSTANCE.acquire(contentRegistryKey, () -> this.decode(download.getData()));
+        } finally {
+            download.close();
+        }
+        synchronized (this) {
+            if (this.released) {
+                ResourcePackContentRegistry.INSTANCE.release(contentRegistryKey);
+                return;
+            }
+            this.contentRegistryKey = contentRegistryKey;
+        }
+        this.content = content;
+
         final JsonObject manifestJson = this.content.contains("manifest.json") ? this.content.getJson("manifest.json") : this.content.getJson("pack_manifest.json");
         final int formatVersion = manifestJson.get("format_version").getAsInt();
         if (formatVersion != 1 && formatVersion != 2) {
@@ -309,21 +463,28 @@ public class ResourcePack {
         } else if (!this.version.contentEquals(version)) {
             throw new IllegalStateException("manifest.json version mismatch: " + this.version + " != " + version);
         }
+
+        this.readyTime = System.nanoTime();
+        this.decompressed = true;
     }
 
-    private boolean hasReceivedAllChunks() {
-        for (final boolean receivedChunk : this.receivedChunks) {
-            if (!receivedChunk) {
-                return false;
-            }
+    private static byte[] decrypt(final byte[] key, final byte[] data) {
+        try {
+            final Cipher aesCfb8 = Cipher.getInstance("AES/CFB8/NoPadding");
+            aesCfb8.init(Cipher.DECRYPT_MODE, new SecretKeySpec(key, "AES"), new IvParameterSpec(Arrays.copyOfRange(key, 0, 16)));
+            return aesCfb8.doFinal(data);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to decrypt resource pack file", e);
         }
-        return true;
     }
 
     public static class Content {
 
+        private static final long MAX_INFLATED_CACHE_SIZE = 4 * 1024 * 1024;
+
         private final Map<String, byte[]> content;
         private final Map<String, Map<String, String>> langCache;
+        private ZipIndex zipIndex; // Entries which are inflated on demand. Disjoint with the content map.
 
         public Content() {
             this(false);
@@ -332,17 +493,44 @@ public class ResourcePack {
         public Content(final boolean concurrent) {
             if (concurrent) {
                 this.content = new ConcurrentHashMap<>();
-                this.langCache = new ConcurrentHashMap<>();
             } else {
                 this.content = new HashMap<>();
-                this.langCache = new HashMap<>();
             }
+            this.langCache = new ConcurrentHashMap<>(); // Filled on read, which can happen from multiple connections for shared contents
         }
 
+        /**
+         * Creates a content backed by the given zip file. Entries are only inflated when they are requested.
+         *
+         * @param zipData The zip file. Must not be modified afterwards.
+         * @throws IOException If the zip file can't be read
+         */
         public Content(final byte[] zipData) throws IOException {
+            this(ByteBuffer.wrap(zipData));
+        }
+
+        /**
+         * Creates a content backed by the given zip file. Entries are only inflated when they are requested.
+         *
+         * @param zipData The zip file, for example a memory mapped file. Must not be modified afterwards.
+         * @throws IOException If the zip file can't be read
+         */
+        public Content(final ByteBuffer zipData) throws IOException {
             this(false);
 
-            final ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(zipData));
+            this.zipIndex = ZipIndex.read(zipData, MAX_INFLATED_CACHE_SIZE);
+            if (this.zipIndex != null) {
+                return;
+            }
+
+            final byte[] zipBytes;
+            if (zipData.hasArray() && zipData.arrayOffset() == 0 && zipData.capacity() == zipData.array().length) {
+                zipBytes = zipData.array();
+            } else {
+                zipBytes = new byte[zipData.capacity()];
+                zipData.get(0, zipBytes);
+            }
+            final ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(zipBytes));
             ZipEntry zipEntry;
             int len;
             final byte[] buf = new byte[4096];
@@ -358,11 +546,23 @@ public class ResourcePack {
         }
 
         public List<String> getFilesShallow(final String path, final String extension) {
-            return this.content.keySet().stream().filter(file -> file.startsWith(path) && !file.substring(path.length()).contains("/") && file.endsWith(extension)).collect(Collectors.toList());
+            final List<String> files = new ArrayList<>();
+            this.forEachPath(path, file -> {
+                if (!file.substring(path.length()).contains("/") && file.endsWith(extension)) {
+                    files.add(file);
+                }
+            });
+            return files;
         }
 
         public List<String> getFilesDeep(final String path, final String extension) {
-            return this.content.keySet().stream().filter(file -> file.startsWith(path) && file.endsWith(extension)).collect(Collectors.toList());
+            final List<String> files = new ArrayList<>();
+            this.forEachPath(path, file -> {
+                if (file.endsWith(extension)) {
+                    files.add(file);
+                }
+            });
+            return files;
         }
 
         public String getFullPath(final String shortNamePath, final String... extensions) {
@@ -379,15 +579,20 @@ public class ResourcePack {
         }
 
         public boolean contains(final String path) {
-            return this.content.containsKey(path);
+            return this.content.containsKey(path) || (this.zipIndex != null && this.zipIndex.contains(path));
         }
 
         public byte[] get(final String path) {
-            return this.content.get(path);
+            final byte[] data = this.content.get(path);
+            if (data == null && this.zipIndex != null) {
+                return this.zipIndex.get(path);
+            }
+            return data;
         }
 
         public boolean put(final String path, final byte[] data) {
-            return this.content.put(path, data) != null;
+            final boolean existed = this.zipIndex != null && this.zipIndex.remove(path);
+            return this.content.put(path, data) != null || existed;
         }
 
         public String getString(final String path) {
@@ -484,19 +689,86 @@ public class ResourcePack {
         }
 
         public byte[] toZip() throws IOException {
-            final ByteArrayOutputStream baos = new ByteArrayOutputStream(1024 * 1024 * 4);
-            final ZipOutputStream zipOutputStream = new ZipOutputStream(baos);
-            for (final Map.Entry<String, byte[]> entry : this.content.entrySet()) {
-                zipOutputStream.putNextEntry(new ZipEntry(entry.getKey()));
-                zipOutputStream.write(entry.getValue());
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            this.writeZip(baos);
+            return baos.toByteArray();
+        }
+
+        /**
+         * Writes the content as zip file to the given stream. Entries are written one by one, so only the zip buffers are held in memory in addition to the content itself.<br>
+         * Entries are sorted and have no timestamps to get the same bytes for the same content. Already compressed files are stored instead of deflated.
+         *
+         * @param outputStream The stream to write to. Not closed by this method.
+         * @throws IOException If an I/O error occurs
+         */
+        public void writeZip(final OutputStream outputStream) throws IOException {
+            final ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream);
+            final CRC32 crc32 = new CRC32();
+            for (final String path : new TreeSet<>(this.paths())) {
+                final byte[] data = this.zipIndex != null && this.zipIndex.contains(path) ? this.zipIndex.getUncached(path) : this.content.get(path);
+                final ZipEntry zipEntry = new ZipEntry(path);
+                zipEntry.setTime(0);
+                if (isCompressed(path)) {
+                    crc32.reset();
+                    crc32.update(data);
+                    zipEntry.setMethod(ZipEntry.STORED);
+                    zipEntry.setSize(data.length);
+                    zipEntry.setCompressedSize(data.length);
+                    zipEntry.setCrc(crc32.getValue());
+                }
+                zipOutputStream.putNextEntry(zipEntry);
+                zipOutputStream.write(data);
                 zipOutputStream.closeEntry();
             }
-            zipOutputStream.close();
-            return baos.toByteArray();
+            zipOutputStream.finish();
         }
 
         public int size() {
-            return this.content.size();
+            return this.content.size() + (this.zipIndex != null ? this.zipIndex.size() : 0);
+        }
+
+        private Collection<String> paths() {
+            if (this.zipIndex == null) {
+                return this.content.keySet();
+            }
+            final List<String> paths = new ArrayList<>(this.content.keySet());
+            paths.addAll(this.zipIndex.paths());
+            return paths;
+        }
+
+        private void forEachPath(final String prefix, final Consumer<String> consumer) {
+            for (String path : this.content.keySet()) {
+                if (path.startsWith(prefix)) {
+                    consumer.accept(path);
+                }
+            }
+            if (this.zipIndex != null) {
+                this.zipIndex.pathsStartingWith(prefix).forEach(consumer);
+            }
+        }
+
+        private void move(final String path, final String newPath) {
+            if (this.zipIndex != null && this.zipIndex.contains(path)) {
+                this.content.remove(newPath);
+                this.zipIndex.rename(path, newPath);
+            } else {
+                this.put(newPath, this.content.remove(path));
+            }
+        }
+
+        /**
+         * Replaces the data of an entry with the result of the transformer. Entries which haven't been inflated yet are transformed when they are requested.
+         */
+        private void transform(final String path, final UnaryOperator<byte[]> transformer) {
+            if (this.zipIndex != null && this.zipIndex.contains(path)) {
+                this.zipIndex.transform(path, transformer);
+            } else {
+                this.content.put(path, transformer.apply(this.content.get(path)));
+            }
+        }
+
+        private static boolean isCompressed(final String path) {
+            return path.endsWith(".png") || path.endsWith(".ogg") || path.endsWith(".jpg") || path.endsWith(".mcpack") || path.endsWith(".zip");
         }
 
         public static class LazyImage {
@@ -0,0 +1,123 @@
+/*
+ * This file is part of ViaBedrock - https://github.com/RaphiMC/ViaBedrock
+ * Copyright (C) 2023-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.viabedrock.api.model.resourcepack;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Process wide registry of decoded resource pack contents.<br>
+ * Connections which receive the same pack share a single decoded content instead of decoding it again. Concurrent decodes of the same pack wait for the first one.
+ * Contents are reference counted by the packs using them. When the last pack releases a content it is kept around for a bit in case another connection needs it again.
+ * Shared contents must not be modified.
+ */
+public class ResourcePackContentRegistry {
+
+    public static final ResourcePackContentRegistry INSTANCE = new ResourcePackContentRegistry(16);
+
+    private final int maxUnusedEntries;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Map<String, Entry> unusedEntries = new LinkedHashMap<>();
+
+    /**
+     * @param maxUnusedEntries The maximum amount of contents to keep after they were released by all packs
+     */
+    public ResourcePackContentRegistry(final int maxUnusedEntries) {
+        this.maxUnusedEntries = maxUnusedEntries;
+    }
+
+    /**
+     * Gets the content for the given key or decodes it if it isn't known yet. Every successful call has to be followed by a call to {@link #release(String)}.
+     *
+     * @param key     The key which identifies the decoded content. Has to cover everything the decoder depends on.
+     * @param decoder The decoder which is called if the content isn't known yet
+     * @return The shared content
+     * @throws Exception If the decoder failed
+     */
+    public ResourcePack.Content acquire(final String key, final Callable<ResourcePack.Content> decoder) throws Exception {
+        final Entry entry;
+        final boolean isNew;
+        synchronized (this) {
+            final Entry existingEntry = this.entries.get(key);
+            isNew = existingEntry == null;
+            if (isNew) {
+                entry = new Entry();
+                this.entries.put(key, entry);
+            } else {
+                entry = existingEntry;
+                this.unusedEntries.remove(key);
+            }
+            entry.references++;
+        }
+
+        if (isNew) {
+            try {
+                entry.future.complete(decoder.call());
+            } catch (Throwable e) {
+                synchronized (this) {
+                    this.entries.remove(key, entry);
+                }
+                entry.future.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return entry.future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Releases a content acquired by {@link #acquire(String, Callable)}.
+     *
+     * @param key The key of the content
+     */
+    public synchronized void release(final String key) {
+        final Entry entry = this.entries.get(key);
+        if (entry == null || --entry.references > 0) {
+            return;
+        }
+
+        this.unusedEntries.put(key, entry);
+        if (this.unusedEntries.size() > this.maxUnusedEntries) {
+            final String eldestKey = this.unusedEntries.keySet().iterator().next();
+            this.unusedEntries.remove(eldestKey);
+            this.entries.remove(eldestKey);
+        }
+    }
+
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    private static class Entry {
+
+        private final CompletableFuture<ResourcePack.Content> future = new CompletableFuture<>();
+        private int references;
+
+    }
+
+}
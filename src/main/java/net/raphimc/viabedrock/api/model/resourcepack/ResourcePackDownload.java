@@ -0,0 +1,174 @@
+/*
+ * This file is part of ViaBedrock - https://github.com/RaphiMC/ViaBedrock
+ * Copyright (C) 2023-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.viabedrock.api.model.resourcepack;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Data of a resource pack which is received in chunks.<br>
+ * Chunks are hashed as soon as all chunks before them arrived, so the hash is ready once the last chunk arrives.
+ * Large packs are written to a temporary file instead of being kept on the heap. The file is memory mapped when the pack is decoded.
+ * Data which was received at once (HTTP downloads) is adopted without copying it.
+ */
+class ResourcePackDownload {
+
+    private final int length;
+    private final int maxChunkSize;
+    private final boolean[] receivedChunks;
+    private final MessageDigest sha256;
+    private final byte[] data; // null if the data is written to a temporary file
+    private final FileChannel fileChannel;
+    private final ByteBuffer adoptedData; // null if the data is received in chunks
+    private int hashedChunks;
+    private int requestedChunks;
+
+    ResourcePackDownload(final int length, final int maxChunkSize, final boolean spillToDisk) throws IOException {
+        if (maxChunkSize <= 0) {
+            throw new IllegalArgumentException("Invalid max chunk size: " + maxChunkSize);
+        }
+        this.length = length;
+        this.maxChunkSize = maxChunkSize;
+        this.receivedChunks = new boolean[(int) (((long) length + maxChunkSize - 1) / maxChunkSize)];
+        try {
+            this.sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        if (spillToDisk) {
+            this.data = null;
+            this.fileChannel = FileChannel.open(Files.createTempFile("viabedrock_pack_", ".zip"), StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+        } else {
+            this.data = new byte[length];
+            this.fileChannel = null;
+        }
+        this.adoptedData = null;
+    }
+
+    /**
+     * Creates an already completed download from data which was received at once.
+     *
+     * @param data The data. Is adopted without copying, so it must not be modified afterwards.
+     */
+    ResourcePackDownload(final ByteBuffer data) {
+        this.length = data.remaining();
+        this.maxChunkSize = Math.max(1, this.length);
+        this.receivedChunks = new boolean[]{true};
+        try {
+            this.sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        this.data = null;
+        this.fileChannel = null;
+        this.adoptedData = data.duplicate();
+        this.sha256.update(this.adoptedData.duplicate());
+        this.hashedChunks = 1;
+        this.requestedChunks = 1;
+    }
+
+    boolean hasReceived(final int chunkIndex) {
+        return this.receivedChunks[chunkIndex];
+    }
+
+    boolean fits(final int chunkIndex, final int chunkLength) {
+        return chunkIndex >= 0 && chunkIndex < this.receivedChunks.length && (long) chunkIndex * this.maxChunkSize + chunkLength <= this.length;
+    }
+
+    void write(final int chunkIndex, final byte[] chunk) throws IOException {
+        final int offset = chunkIndex * this.maxChunkSize;
+        if (this.data != null) {
+            System.arraycopy(chunk, 0, this.data, offset, chunk.length);
+        } else {
+            final ByteBuffer buffer = ByteBuffer.wrap(chunk);
+            while (buffer.hasRemaining()) {
+                this.fileChannel.write(buffer, offset + buffer.position());
+            }
+        }
+        this.receivedChunks[chunkIndex] = true;
+
+        while (this.hashedChunks < this.receivedChunks.length && this.receivedChunks[this.hashedChunks]) {
+            final int chunkOffset = this.hashedChunks * this.maxChunkSize;
+            final int chunkLength = Math.min(this.maxChunkSize, this.length - chunkOffset);
+            if (this.data != null) {
+                this.sha256.update(this.data, chunkOffset, chunkLength);
+            } else if (this.hashedChunks == chunkIndex && chunk.length == chunkLength) {
+                this.sha256.update(chunk);
+            } else { // Chunk arrived out of order
+                final ByteBuffer buffer = ByteBuffer.allocate(chunkLength);
+                while (buffer.hasRemaining()) {
+                    if (this.fileChannel.read(buffer, chunkOffset + buffer.position()) < 0) {
+                        break; // Chunk was shorter than expected, the rest is zeros like for heap data
+                    }
+                }
+                this.sha256.update(buffer.array(), 0, chunkLength);
+            }
+            this.hashedChunks++;
+        }
+    }
+
+    boolean isComplete() {
+        return this.hashedChunks == this.receivedChunks.length;
+    }
+
+    /**
+     * @return The index of the next chunk to request or -1 if all chunks were requested
+     */
+    int pollChunkRequest() {
+        return this.requestedChunks < this.receivedChunks.length ? this.requestedChunks++ : -1;
+    }
+
+    /**
+     * @return The SHA-256 of the data. Can only be called once after the download completed.
+     */
+    byte[] getHash() {
+        return this.sha256.digest();
+    }
+
+    /**
+     * @return The received data. For temporary files this is a read only mapping which stays valid after {@link #close()}.
+     */
+    ByteBuffer getData() throws IOException {
+        if (this.adoptedData != null) {
+            return this.adoptedData.duplicate();
+        } else if (this.data != null) {
+            return ByteBuffer.wrap(this.data);
+        } else {
+            return this.fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, this.length);
+        }
+    }
+
+    boolean isSpilledToDisk() {
+        return this.fileChannel != null;
+    }
+
+    /**
+     * Closes and deletes the temporary file if there is one.
+     */
+    void close() throws IOException {
+        if (this.fileChannel != null) {
+            this.fileChannel.close();
+        }
+    }
+
+}
@@ -23,23 +23,28 @@ import com.viaversion.viaversion.libs.gson.JsonObject;
 import com.viaversion.viaversion.util.Key;
 import net.raphimc.viabedrock.ViaBedrock;
 import net.raphimc.viabedrock.api.util.JsonUtil;
-import net.raphimc.viabedrock.protocol.storage.ResourcePacksStorage;
+import net.raphimc.viabedrock.api.util.OverlayMap;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 
 // https://wiki.bedrock.dev/concepts/sounds.html
 public class SoundDefinitions {
 
-    private final Map<String, SoundDefinition> soundDefinitions = new HashMap<>();
-    private final Map<String, EventSound> eventSounds = new HashMap<>();
-    private final Map<String, EventSounds> entitySounds = new HashMap<>();
-    private final Map<String, EventSounds> blockSounds = new HashMap<>();
+    private final Map<String, SoundDefinition> soundDefinitions;
+    private final Map<String, EventSound> eventSounds;
+    private final Map<String, EventSounds> entitySounds;
+    private final Map<String, EventSounds> blockSounds;
 
-    public SoundDefinitions(final ResourcePacksStorage resourcePacksStorage) {
-        for (ResourcePack pack : resourcePacksStorage.getPackStackBottomToTop()) {
+    public SoundDefinitions(final SoundDefinitions parent, final List<ResourcePack> packsBottomToTop) {
+        this.soundDefinitions = parent != null ? new OverlayMap<>(parent.soundDefinitions) : new HashMap<>();
+        this.eventSounds = parent != null ? new OverlayMap<>(parent.eventSounds) : new HashMap<>();
+        this.entitySounds = parent != null ? new OverlayMap<>(parent.entitySounds) : new HashMap<>();
+        this.blockSounds = parent != null ? new OverlayMap<>(parent.blockSounds) : new HashMap<>();
+        for (ResourcePack pack : packsBottomToTop) {
             if (pack.content().contains("sounds/sound_definitions.json")) {
                 try {
                     JsonObject soundDefinitions = pack.content().getJson("sounds/sound_definitions.json");
@@ -143,8 +148,11 @@ public class SoundDefinitions {
                 }
             }
             final String key = namespace ? Key.namespaced(entry.getKey()) : entry.getKey();
-            if (soundMap.containsKey(key)) {
-                soundMap.get(key).eventSounds().putAll(eventSounds);
+            final EventSounds existingEventSounds = soundMap.get(key);
+            if (existingEventSounds != null) { // Merge into a copy, as the existing sounds might be shared with other definitions
+                final Map<String, ConfiguredSound> mergedEventSounds = new HashMap<>(existingEventSounds.eventSounds());
+                mergedEventSounds.putAll(eventSounds);
+                soundMap.put(key, new EventSounds(key, mergedEventSounds));
             } else {
                 soundMap.put(key, new EventSounds(key, eventSounds));
             }
@@ -18,9 +18,11 @@
 package net.raphimc.viabedrock.api.model.resourcepack;
 
 import net.lenni0451.mcstructs_bedrock.text.utils.BedrockTranslator;
-import net.raphimc.viabedrock.protocol.storage.ResourcePacksStorage;
+import net.raphimc.viabedrock.api.util.OverlayMap;
+import net.raphimc.viabedrock.api.util.TextCache;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
@@ -28,10 +30,11 @@ import java.util.function.Function;
 public class TextDefinitions {
 
     private final Map<String, String> translations;
+    private final TextCache<String> translationCache = new TextCache<>(1024); // New definitions are created when the pack stack changes, so cached translations never become stale
 
-    public TextDefinitions(final ResourcePacksStorage resourcePacksStorage) {
-        this.translations = new HashMap<>();
-        for (ResourcePack pack : resourcePacksStorage.getPackStackBottomToTop()) {
+    public TextDefinitions(final TextDefinitions parent, final List<ResourcePack> packsBottomToTop) {
+        this.translations = parent != null ? new OverlayMap<>(parent.translations) : new HashMap<>();
+        for (ResourcePack pack : packsBottomToTop) {
             if (pack.content().contains("texts/en_US.lang")) {
                 this.translations.putAll(pack.content().getLang("texts/en_US.lang"));
             }
@@ -39,7 +42,7 @@ public class TextDefinitions {
     }
 
     public String translate(final String text) {
-        return BedrockTranslator.translate(text, this.lookup(), new Object[0]);
+        return this.translationCache.get(text, t -> BedrockTranslator.translate(t, this.lookup(), new Object[0]));
     }
 
     public String get(final String key) {
@@ -50,4 +53,8 @@ public class TextDefinitions {
         return this::get;
     }
 
+    public TextCache<String> getTranslationCache() {
+        return this.translationCache;
+    }
+
 }
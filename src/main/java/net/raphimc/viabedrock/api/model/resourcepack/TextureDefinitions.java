@@ -20,17 +20,18 @@ package net.raphimc.viabedrock.api.model.resourcepack;
 import com.viaversion.viaversion.libs.gson.JsonElement;
 import com.viaversion.viaversion.libs.gson.JsonObject;
 import net.raphimc.viabedrock.ViaBedrock;
-import net.raphimc.viabedrock.protocol.storage.ResourcePacksStorage;
+import net.raphimc.viabedrock.api.util.OverlayMap;
 
 import java.util.*;
 import java.util.logging.Level;
 
 public class TextureDefinitions {
 
-    private final Map<String, List<ItemTextureDefinition>> itemTextures = new HashMap<>();
+    private final Map<String, List<ItemTextureDefinition>> itemTextures;
 
-    public TextureDefinitions(final ResourcePacksStorage resourcePacksStorage) {
-        for (ResourcePack pack : resourcePacksStorage.getPackStackBottomToTop()) {
+    public TextureDefinitions(final TextureDefinitions parent, final List<ResourcePack> packsBottomToTop) {
+        this.itemTextures = parent != null ? new OverlayMap<>(parent.itemTextures) : new HashMap<>();
+        for (ResourcePack pack : packsBottomToTop) {
             if (pack.content().contains("textures/item_texture.json")) {
                 try {
                     final JsonObject itemTexture = pack.content().getJson("textures/item_texture.json");
@@ -0,0 +1,129 @@
+/*
+ * This file is part of ViaBedrock - https://github.com/RaphiMC/ViaBedrock
+ * Copyright (C) 2023-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.viabedrock.api.model.resourcepack;
+
+import net.raphimc.viabedrock.protocol.BedrockProtocol;
+import net.raphimc.viabedrock.protocol.storage.ResourcePacksStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Definitions of the vanilla resource packs which are at the bottom of every pack stack.<br>
+ * They are parsed once on first use and shared between all connections. The definitions of a connection only parse the packs sent by the server and overlay them on top of these.
+ * The shared definitions are never modified.
+ */
+public class VanillaResourcePackDefinitions {
+
+    private static VanillaResourcePackDefinitions instance;
+
+    private final TextDefinitions texts;
+    private final BlockDefinitions blocks;
+    private final ItemDefinitions items;
+    private final AttachableDefinitions attachables;
+    private final TextureDefinitions textures;
+    private final SoundDefinitions sounds;
+    private final ParticleDefinitions particles;
+    private final EntityDefinitions entities;
+    private final ModelDefinitions models;
+    private final FogDefinitions fogs;
+    private final BiomeDefinitions biomes;
+    private final RenderControllerDefinitions renderControllers;
+
+    public VanillaResourcePackDefinitions(final List<ResourcePack> packsBottomToTop) {
+        this.texts = new TextDefinitions(null, packsBottomToTop);
+        this.blocks = new BlockDefinitions(null, packsBottomToTop);
+        this.items = new ItemDefinitions(null, packsBottomToTop);
+        this.attachables = new AttachableDefinitions(null, packsBottomToTop);
+        this.textures = new TextureDefinitions(null, packsBottomToTop);
+        this.sounds = new SoundDefinitions(null, packsBottomToTop);
+        this.particles = new ParticleDefinitions(null, packsBottomToTop);
+        this.entities = new EntityDefinitions(null, packsBottomToTop);
+        this.models = new ModelDefinitions(null, packsBottomToTop);
+        this.fogs = new FogDefinitions(null, packsBottomToTop);
+        this.biomes = new BiomeDefinitions(null, packsBottomToTop);
+        this.renderControllers = new RenderControllerDefinitions(null, packsBottomToTop);
+    }
+
+    /**
+     * Gets the shared vanilla definitions or parses them if this is the first call.
+     *
+     * @return The shared vanilla definitions
+     */
+    public static synchronized VanillaResourcePackDefinitions get() {
+        if (instance == null) {
+            final List<ResourcePack> packsBottomToTop = new ArrayList<>();
+            if (BedrockProtocol.MAPPINGS.getBedrockVanillaResourcePacks() != null) { // null if ran from ResourcePackConverterTest
+                for (String packName : ResourcePacksStorage.VANILLA_PACK_NAMES) {
+                    packsBottomToTop.add(BedrockProtocol.MAPPINGS.getBedrockVanillaResourcePacks().get(packName));
+                }
+            }
+            instance = new VanillaResourcePackDefinitions(packsBottomToTop);
+        }
+        return instance;
+    }
+
+    public TextDefinitions getTexts() {
+        return this.texts;
+    }
+
+    public BlockDefinitions getBlocks() {
+        return this.blocks;
+    }
+
+    public ItemDefinitions getItems() {
+        return this.items;
+    }
+
+    public AttachableDefinitions getAttachables() {
+        return this.attachables;
+    }
+
+    public TextureDefinitions getTextures() {
+        return this.textures;
+    }
+
+    public SoundDefinitions getSounds() {
+        return this.sounds;
+    }
+
+    public ParticleDefinitions getParticles() {
+        return this.particles;
+    }
+
+    public EntityDefinitions getEntities() {
+        return this.entities;
+    }
+
+    public ModelDefinitions getModels() {
+        return this.models;
+    }
+
+    public FogDefinitions getFogs() {
+        return this.fogs;
+    }
+
+    public BiomeDefinitions getBiomes() {
+        return this.biomes;
+    }
+
+    public RenderControllerDefinitions getRenderControllers() {
+        return this.renderControllers;
+    }
+
+}
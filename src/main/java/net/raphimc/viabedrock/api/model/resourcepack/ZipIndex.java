@@ -0,0 +1,255 @@
+/*
+ * This file is part of ViaBedrock - https://github.com/RaphiMC/ViaBedrock
+ * Copyright (C) 2023-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.viabedrock.api.model.resourcepack;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.UnaryOperator;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Index of the entries of a zip file built from its central directory.<br>
+ * Entries are only inflated when they are requested. Recently inflated entries are kept in a LRU cache which is bounded by their total size.
+ * The paths are kept sorted, so prefix queries only have to look at the matching paths.
+ */
+class ZipIndex {
+
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054B50;
+    private static final int CENTRAL_DIRECTORY_SIGNATURE = 0x02014B50;
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034B50;
+    private static final int METHOD_STORED = 0;
+    private static final int METHOD_DEFLATED = 8;
+
+    private final ByteBuffer zipData;
+    private final NavigableMap<String, Entry> entries = new TreeMap<>();
+    private final long maxCachedBytes;
+    private final Map<String, byte[]> cache = new LinkedHashMap<>(16, 0.75F, true);
+    private long cachedBytes;
+
+    private ZipIndex(final ByteBuffer zipData, final long maxCachedBytes) {
+        this.zipData = zipData;
+        this.maxCachedBytes = maxCachedBytes;
+    }
+
+    /**
+     * Reads the central directory of the given zip file.
+     *
+     * @param zipData        The zip file. Only accessed with absolute reads, so the position and limit don't matter.
+     * @param maxCachedBytes The maximum total size of the inflated entries to keep in memory
+     * @return The index or null if the zip file uses features which aren't supported (zip64, encryption, other compression methods) and has to be read as a stream
+     */
+    static ZipIndex read(final ByteBuffer zipData, final long maxCachedBytes) {
+        final ByteBuffer buffer = zipData.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int endOffset = -1;
+        for (int i = buffer.capacity() - 22; i >= Math.max(0, buffer.capacity() - 22 - 0xFFFF); i--) {
+            if (buffer.getInt(i) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+                endOffset = i;
+                break;
+            }
+        }
+        if (endOffset == -1) {
+            return null;
+        }
+
+        final int entryCount = buffer.getShort(endOffset + 10) & 0xFFFF;
+        final long directoryOffset = buffer.getInt(endOffset + 16) & 0xFFFFFFFFL;
+        if (entryCount == 0xFFFF || directoryOffset == 0xFFFFFFFFL || directoryOffset >= endOffset) {
+            return null;
+        }
+
+        final ZipIndex zipIndex = new ZipIndex(zipData, maxCachedBytes);
+        int offset = (int) directoryOffset;
+        for (int i = 0; i < entryCount; i++) {
+            if (offset + 46 > endOffset || buffer.getInt(offset) != CENTRAL_DIRECTORY_SIGNATURE) {
+                return null;
+            }
+            final int flags = buffer.getShort(offset + 8) & 0xFFFF;
+            final int method = buffer.getShort(offset + 10) & 0xFFFF;
+            final long compressedSize = buffer.getInt(offset + 20) & 0xFFFFFFFFL;
+            final long size = buffer.getInt(offset + 24) & 0xFFFFFFFFL;
+            final int nameLength = buffer.getShort(offset + 28) & 0xFFFF;
+            final int extraLength = buffer.getShort(offset + 30) & 0xFFFF;
+            final int commentLength = buffer.getShort(offset + 32) & 0xFFFF;
+            final long localHeaderOffset = buffer.getInt(offset + 42) & 0xFFFFFFFFL;
+            final byte[] nameBytes = new byte[nameLength];
+            buffer.get(offset + 46, nameBytes);
+            final String name = new String(nameBytes, StandardCharsets.UTF_8);
+            offset += 46 + nameLength + extraLength + commentLength;
+
+            if ((flags & 1) != 0 || (method != METHOD_STORED && method != METHOD_DEFLATED) || size > Integer.MAX_VALUE) {
+                return null;
+            }
+            if (localHeaderOffset + 30 > directoryOffset || buffer.getInt((int) localHeaderOffset) != LOCAL_HEADER_SIGNATURE) {
+                return null;
+            }
+            final long dataOffset = localHeaderOffset + 30 + (buffer.getShort((int) localHeaderOffset + 26) & 0xFFFF) + (buffer.getShort((int) localHeaderOffset + 28) & 0xFFFF);
+            if (dataOffset + compressedSize > directoryOffset) {
+                return null;
+            }
+            if (name.endsWith("/")) continue;
+
+            zipIndex.entries.put(name, new Entry((int) dataOffset, (int) compressedSize, (int) size, method == METHOD_DEFLATED, null));
+        }
+        return zipIndex;
+    }
+
+    boolean contains(final String path) {
+        return this.entries.containsKey(path);
+    }
+
+    int size() {
+        return this.entries.size();
+    }
+
+    Set<String> paths() {
+        return Collections.unmodifiableSet(this.entries.keySet());
+    }
+
+    /**
+     * @return All paths starting with the given prefix in sorted order
+     */
+    SortedSet<String> pathsStartingWith(final String prefix) {
+        if (prefix.isEmpty()) {
+            return this.entries.navigableKeySet();
+        }
+        return this.entries.navigableKeySet().subSet(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    byte[] get(final String path) {
+        final Entry entry = this.entries.get(path);
+        if (entry == null) {
+            return null;
+        }
+
+        synchronized (this.cache) {
+            final byte[] data = this.cache.get(path);
+            if (data != null) {
+                return data;
+            }
+        }
+        final byte[] data = this.load(entry);
+        if (data.length <= this.maxCachedBytes) {
+            synchronized (this.cache) {
+                if (this.cache.put(path, data) == null) {
+                    this.cachedBytes += data.length;
+                }
+                final Iterator<byte[]> iterator = this.cache.values().iterator();
+                while (this.cachedBytes > this.maxCachedBytes && iterator.hasNext()) {
+                    this.cachedBytes -= iterator.next().length;
+                    iterator.remove();
+                }
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Same as {@link #get(String)}, but doesn't put the entry into the cache. Used when reading all entries once.
+     */
+    byte[] getUncached(final String path) {
+        final Entry entry = this.entries.get(path);
+        if (entry == null) {
+            return null;
+        }
+
+        synchronized (this.cache) {
+            final byte[] data = this.cache.get(path);
+            if (data != null) {
+                return data;
+            }
+        }
+        return this.load(entry);
+    }
+
+    boolean remove(final String path) {
+        if (this.entries.remove(path) != null) {
+            this.invalidate(path);
+            return true;
+        }
+        return false;
+    }
+
+    void rename(final String path, final String newPath) {
+        final Entry entry = this.entries.remove(path);
+        if (entry != null) {
+            this.invalidate(path);
+            this.invalidate(newPath);
+            this.entries.put(newPath, entry);
+        }
+    }
+
+    /**
+     * Applies the given transformer to the data of the entry whenever it is inflated.
+     */
+    void transform(final String path, final UnaryOperator<byte[]> transformer) {
+        final Entry entry = this.entries.get(path);
+        if (entry != null) {
+            this.invalidate(path);
+            this.entries.put(path, new Entry(entry.offset, entry.compressedSize, entry.size, entry.deflated, entry.transformer != null ? data -> transformer.apply(entry.transformer.apply(data)) : transformer));
+        }
+    }
+
+    private void invalidate(final String path) {
+        synchronized (this.cache) {
+            final byte[] data = this.cache.remove(path);
+            if (data != null) {
+                this.cachedBytes -= data.length;
+            }
+        }
+    }
+
+    private byte[] load(final Entry entry) {
+        byte[] data;
+        if (entry.deflated) {
+            data = new byte[entry.size];
+            final Inflater inflater = new Inflater(true);
+            try {
+                inflater.setInput(this.zipData.slice(entry.offset, entry.compressedSize));
+                int length = 0;
+                while (length < data.length && !inflater.finished()) {
+                    final int inflated = inflater.inflate(data, length, data.length - length);
+                    if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    length += inflated;
+                }
+                if (length != data.length) {
+                    throw new IllegalStateException("Zip entry size mismatch: " + length + " != " + data.length);
+                }
+            } catch (DataFormatException e) {
+                throw new IllegalStateException("Failed to inflate zip entry", e);
+            } finally {
+                inflater.end();
+            }
+        } else {
+            data = new byte[entry.size];
+            this.zipData.get(entry.offset, data);
+        }
+        if (entry.transformer != null) {
+            data = entry.transformer.apply(data);
+        }
+        return data;
+    }
+
+    private record Entry(int offset, int compressedSize, int size, boolean deflated, UnaryOperator<byte[]> transformer) {
+    }
+
+}
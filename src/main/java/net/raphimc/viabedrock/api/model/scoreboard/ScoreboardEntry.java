@@ -45,6 +45,10 @@ public class ScoreboardEntry {
         return this.type == entry.type && Objects.equals(this.uniqueEntityId, entry.uniqueEntityId) && Objects.equals(this.fakePlayerName, entry.fakePlayerName);
     }
 
+    public Target target() {
+        return new Target(this.type, this.uniqueEntityId, this.fakePlayerName);
+    }
+
     public void updateTarget(final IdentityDefinition_Type type, final Long uniqueEntityId, final String fakePlayerName) {
         this.type = type;
         this.uniqueEntityId = uniqueEntityId;
@@ -95,4 +99,7 @@ public class ScoreboardEntry {
         }
     }
 
+    public record Target(IdentityDefinition_Type type, Long uniqueEntityId, String fakePlayerName) {
+    }
+
 }
@@ -25,18 +25,25 @@ import net.raphimc.viabedrock.protocol.BedrockProtocol;
 import net.raphimc.viabedrock.protocol.data.enums.bedrock.generated.IdentityDefinition_Type;
 import net.raphimc.viabedrock.protocol.data.enums.bedrock.generated.ObjectiveSortOrder;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 public class ScoreboardObjective {
 
     private final String name;
     private final Map<Long, ScoreboardEntry> entries;
+    private final Map<ScoreboardEntry.Target, List<ScoreboardEntry>> entriesByTarget; // Indexes of the entries. Lists because entries moved from other objectives can have the same target
+    private final Map<Long, List<ScoreboardEntry>> playerEntries;
     private final ObjectiveSortOrder sortOrder;
 
     public ScoreboardObjective(final String name, final ObjectiveSortOrder sortOrder) {
         this.name = name;
         this.entries = new HashMap<>();
+        this.entriesByTarget = new HashMap<>();
+        this.playerEntries = new HashMap<>();
         this.sortOrder = sortOrder;
     }
 
@@ -45,43 +52,76 @@ public class ScoreboardObjective {
     }
 
     public ScoreboardEntry getEntryWithSameTarget(final ScoreboardEntry entry) {
-        for (ScoreboardEntry value : this.entries.values()) {
-            if (value.isSameTarget(entry)) {
-                return value;
-            }
-        }
-
-        return null;
+        final List<ScoreboardEntry> entries = this.entriesByTarget.get(entry.target());
+        return entries != null ? entries.get(0) : null;
     }
 
     public ScoreboardEntry getEntryForPlayer(final long uniqueEntityId) {
-        for (ScoreboardEntry value : this.entries.values()) {
-            if (value.uniqueEntityId() != null && value.type() == IdentityDefinition_Type.Player && uniqueEntityId == value.uniqueEntityId()) {
-                return value;
-            }
-        }
-
-        return null;
+        final List<ScoreboardEntry> entries = this.playerEntries.get(uniqueEntityId);
+        return entries != null ? entries.get(0) : null;
     }
 
     public void addEntry(final UserConnection user, final long scoreboardId, final ScoreboardEntry entry) {
-        this.entries.put(scoreboardId, entry);
+        final ScoreboardEntry replacedEntry = this.entries.put(scoreboardId, entry);
+        if (replacedEntry != null) {
+            this.unindexEntry(replacedEntry);
+        }
+        this.indexEntry(entry);
         entry.updateJavaName(user);
         this.updateEntry0(user, entry);
     }
 
+    /**
+     * Updates the java name of an entry. Nothing is sent if the java name didn't change.
+     */
     public void updateEntry(final UserConnection user, final ScoreboardEntry entry) {
-        this.removeEntry0(user, entry);
+        final String oldJavaName = entry.javaName();
         entry.updateJavaName(user);
+        if (Objects.equals(entry.javaName(), oldJavaName)) {
+            return;
+        }
+
+        this.removeEntry0(user, oldJavaName);
         this.updateEntry0(user, entry);
     }
 
-    public void updateEntryInPlace(final UserConnection user, final ScoreboardEntry entry) {
-        this.updateEntry0(user, entry);
+    public void updateEntryTarget(final UserConnection user, final ScoreboardEntry entry, final IdentityDefinition_Type type, final Long uniqueEntityId, final String fakePlayerName) {
+        this.unindexEntry(entry);
+        entry.updateTarget(type, uniqueEntityId, fakePlayerName);
+        this.indexEntry(entry);
+        this.updateEntry(user, entry);
+    }
+
+    /**
+     * Sets the score of an entry. Nothing is sent if the score didn't change.
+     */
+    public void updateScore(final UserConnection user, final ScoreboardEntry entry, final int score) {
+        if (entry.score() != score) {
+            entry.setScore(score);
+            this.updateEntry0(user, entry);
+        }
     }
 
     public void removeEntry(final UserConnection user, final long scoreboardId) {
-        this.removeEntry0(user, this.entries.remove(scoreboardId));
+        final ScoreboardEntry entry = this.entries.remove(scoreboardId);
+        if (entry != null) {
+            this.unindexEntry(entry);
+            this.removeEntry0(user, entry.javaName());
+        }
+    }
+
+    private void indexEntry(final ScoreboardEntry entry) {
+        this.entriesByTarget.computeIfAbsent(entry.target(), target -> new ArrayList<>(1)).add(entry);
+        if (entry.type() == IdentityDefinition_Type.Player && entry.uniqueEntityId() != null) {
+            this.playerEntries.computeIfAbsent(entry.uniqueEntityId(), uniqueEntityId -> new ArrayList<>(1)).add(entry);
+        }
+    }
+
+    private void unindexEntry(final ScoreboardEntry entry) {
+        removeFromIndex(this.entriesByTarget, entry.target(), entry);
+        if (entry.type() == IdentityDefinition_Type.Player && entry.uniqueEntityId() != null) {
+            removeFromIndex(this.playerEntries, entry.uniqueEntityId(), entry);
+        }
     }
 
     private void updateEntry0(final UserConnection user, final ScoreboardEntry entry) {
@@ -94,11 +134,18 @@ public class ScoreboardObjective {
         setScore.send(BedrockProtocol.class);
     }
 
-    private void removeEntry0(final UserConnection user, final ScoreboardEntry entry) {
+    private void removeEntry0(final UserConnection user, final String javaName) {
         final PacketWrapper resetScore = PacketWrapper.create(ClientboundPackets1_21_9.RESET_SCORE, user);
-        resetScore.write(Types.STRING, entry.javaName()); // player name
+        resetScore.write(Types.STRING, javaName); // player name
         resetScore.write(Types.OPTIONAL_STRING, this.name); // objective name
         resetScore.send(BedrockProtocol.class);
     }
 
+    private static <K> void removeFromIndex(final Map<K, List<ScoreboardEntry>> index, final K key, final ScoreboardEntry entry) {
+        final List<ScoreboardEntry> entries = index.get(key);
+        if (entries != null && entries.remove(entry) && entries.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
 }
@@ -28,13 +28,24 @@ import team.unnamed.mocha.runtime.value.Value;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
-import java.util.List;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @SuppressWarnings("UnstableApiUsage")
 public class MoLangEngine {
 
+    private static final int MAX_CACHED_EXPRESSIONS = 4096;
+    private static final Pattern QUERY_PATTERN = Pattern.compile("(?<![\\w.])(?:query|q)\\.(\\w+)", Pattern.CASE_INSENSITIVE);
+    private static final Map<String, List<Expression>> COMPILED_EXPRESSIONS = new LinkedHashMap<>(16, 0.75F, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, List<Expression>> eldest) {
+            return this.size() > MAX_CACHED_EXPRESSIONS;
+        }
+    };
+
     public static Value eval(final Scope scope, final String expression) throws IOException {
-        return eval(scope, parse(expression));
+        return eval(scope, compile(expression));
     }
 
     public static Value eval(final Scope scope, final List<Expression> expressions) {
@@ -60,6 +71,42 @@ public class MoLangEngine {
         return lastResult;
     }
 
+    /**
+     * Parses the expression or returns the already parsed expression from a process wide cache.
+     *
+     * @param expression The expression
+     * @return The parsed expression. Must not be modified.
+     * @throws IOException If the expression couldn't be parsed
+     */
+    public static List<Expression> compile(final String expression) throws IOException {
+        synchronized (COMPILED_EXPRESSIONS) {
+            final List<Expression> expressions = COMPILED_EXPRESSIONS.get(expression);
+            if (expressions != null) {
+                return expressions;
+            }
+        }
+        final List<Expression> expressions = List.copyOf(parse(expression));
+        synchronized (COMPILED_EXPRESSIONS) {
+            COMPILED_EXPRESSIONS.put(expression, expressions);
+        }
+        return expressions;
+    }
+
+    /**
+     * Finds the names of all queries the expression reads.
+     *
+     * @param expression The expression
+     * @return The lower case query names without the query prefix
+     */
+    public static Set<String> getQueryNames(final String expression) {
+        final Set<String> queryNames = new HashSet<>();
+        final Matcher matcher = QUERY_PATTERN.matcher(expression);
+        while (matcher.find()) {
+            queryNames.add(matcher.group(1).toLowerCase(Locale.ROOT));
+        }
+        return queryNames;
+    }
+
     public static List<Expression> parse(final String expression) throws IOException {
         try (final StringReader reader = new StringReader(expression)) {
             return parse(reader);
@@ -0,0 +1,137 @@
+/*
+ * This file is part of ViaBedrock - https://github.com/RaphiMC/ViaBedrock
+ * Copyright (C) 2023-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.viabedrock.api.util;
+
+import java.util.*;
+
+/**
+ * Map which layers its own entries on top of a shared base map.<br>
+ * The base map is never modified, all writes only go into the overlay. This allows many instances to share one large base map while only paying for their own changes.
+ * Null values are not supported.
+ *
+ * @param <K> The key type
+ * @param <V> The value type
+ */
+public class OverlayMap<K, V> extends AbstractMap<K, V> {
+
+    private final Map<K, V> base;
+    private final Map<K, V> overlay = new HashMap<>();
+    private final Set<Object> removedBaseKeys = new HashSet<>();
+    private int addedKeys; // Keys of the overlay which are not in the base map
+
+    public OverlayMap(final Map<K, V> base) {
+        this.base = base;
+    }
+
+    @Override
+    public V get(final Object key) {
+        final V value = this.overlay.get(key);
+        if (value != null) {
+            return value;
+        } else if (this.removedBaseKeys.isEmpty() || !this.removedBaseKeys.contains(key)) {
+            return this.base.get(key);
+        } else {
+            return null;
+        }
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return this.get(key) != null;
+    }
+
+    @Override
+    public V put(final K key, final V value) {
+        Objects.requireNonNull(value, "value");
+        final V previousValue = this.get(key);
+        final boolean inBase = this.base.containsKey(key);
+        if (inBase) {
+            this.removedBaseKeys.remove(key);
+        }
+        if (this.overlay.put(key, value) == null && !inBase) {
+            this.addedKeys++;
+        }
+        return previousValue;
+    }
+
+    @Override
+    public V remove(final Object key) {
+        final V previousValue = this.get(key);
+        final boolean inBase = this.base.containsKey(key);
+        if (this.overlay.remove(key) != null && !inBase) {
+            this.addedKeys--;
+        }
+        if (inBase) {
+            this.removedBaseKeys.add(key);
+        }
+        return previousValue;
+    }
+
+    @Override
+    public int size() {
+        return this.base.size() - this.removedBaseKeys.size() + this.addedKeys;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                final Iterator<Entry<K, V>> overlayIterator = OverlayMap.this.overlay.entrySet().iterator();
+                final Iterator<Entry<K, V>> baseIterator = OverlayMap.this.base.entrySet().iterator();
+                return new Iterator<>() {
+                    private Entry<K, V> next;
+
+                    @Override
+                    public boolean hasNext() {
+                        if (this.next != null) return true;
+
+                        if (overlayIterator.hasNext()) {
+                            this.next = overlayIterator.next();
+                            return true;
+                        }
+                        while (baseIterator.hasNext()) {
+                            final Entry<K, V> entry = baseIterator.next();
+                            if (!OverlayMap.this.overlay.containsKey(entry.getKey()) && !OverlayMap.this.removedBaseKeys.contains(entry.getKey())) {
+                                this.next = entry;
+                                return true;
+                            }
+                        }
+                        return false;
+                    }
+
+                    @Override
+                    public Entry<K, V> next() {
+                        if (!this.hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        final Entry<K, V> entry = this.next;
+                        this.next = null;
+                        return new SimpleImmutableEntry<>(entry);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return OverlayMap.this.size();
+            }
+        };
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * This file is part of ViaBedrock - https://github.com/RaphiMC/ViaBedrock
+ * Copyright (C) 2023-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.viabedrock.api.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Thread-safe bounded LRU cache for results computed from text.<br>
+ * Most texts sent by servers (scoreboard lines, item names, titles) repeat all the time, so computing them only once saves a lot of parsing and serialization.
+ * Cached results are shared and must not be modified.
+ *
+ * @param <T> The type of the cached results
+ */
+public class TextCache<T> {
+
+    private final Map<String, T> cache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param maxSize The maximum amount of cached texts
+     */
+    public TextCache(final int maxSize) {
+        this.cache = new LinkedHashMap<>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, T> eldest) {
+                return this.size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Gets the cached result for the given text or computes and caches it.
+     *
+     * @param text     The text
+     * @param function The function which computes the result for uncached texts
+     * @return The shared result
+     */
+    public T get(final String text, final Function<String, T> function) {
+        synchronized (this.cache) {
+            final T cached = this.cache.get(text);
+            if (cached != null) {
+                this.hits.increment();
+                return cached;
+            }
+        }
+
+        this.misses.increment();
+        final T result = function.apply(text);
+        synchronized (this.cache) {
+            this.cache.put(text, result);
+        }
+        return result;
+    }
+
+    /**
+     * Removes all cached results. The hit and miss counters are kept.
+     */
+    public void clear() {
+        synchronized (this.cache) {
+            this.cache.clear();
+        }
+    }
+
+    public long getHitCount() {
+        return this.hits.sum();
+    }
+
+    public long getMissCount() {
+        return this.misses.sum();
+    }
+
+    /**
+     * @return The percentage of lookups which were answered from the cache
+     */
+    public double getHitRate() {
+        final long hits = this.getHitCount();
+        final long lookups = hits + this.getMissCount();
+        return lookups == 0 ? 0 : hits * 100D / lookups;
+    }
+
+    public int size() {
+        synchronized (this.cache) {
+            return this.cache.size();
+        }
+    }
+
+}
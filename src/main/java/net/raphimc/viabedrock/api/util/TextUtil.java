@@ -39,6 +39,11 @@ import java.util.function.Function;
 
 public class TextUtil {
 
+    private static final int MAX_CACHED_TEXTS = 4096;
+    private static final TextCache<TextComponent> TEXT_COMPONENT_CACHE = new TextCache<>(MAX_CACHED_TEXTS);
+    private static final TextCache<Tag> NBT_CACHE = new TextCache<>(MAX_CACHED_TEXTS);
+    private static final TextCache<String> JSON_CACHE = new TextCache<>(MAX_CACHED_TEXTS);
+
     private static final Function<Character, TextFormatting> BEDROCK_FORMATTING_RESOLVER = c -> Optional.ofNullable(BedrockTextFormatting.getByCode(c)).map(f -> {
         if (f.isColor()) {
             return new TextFormatting(f.getRgbValue());
@@ -56,7 +61,7 @@ public class TextUtil {
     }).orElse(null);
 
     public static String stringToJson(final String text) {
-        return textComponentToJson(stringToTextComponent(text));
+        return JSON_CACHE.get(text, t -> textComponentToJson(parse(t)));
     }
 
     public static String textComponentToJson(final TextComponent textComponent) {
@@ -64,7 +69,7 @@ public class TextUtil {
     }
 
     public static JsonElement stringToGson(final String text) {
-        return textComponentToGson(stringToTextComponent(text));
+        return textComponentToGson(TEXT_COMPONENT_CACHE.get(text, TextUtil::parse));
     }
 
     public static JsonElement textComponentToGson(final TextComponent textComponent) {
@@ -72,7 +77,7 @@ public class TextUtil {
     }
 
     public static Tag stringToNbt(final String text) {
-        return textComponentToNbt(stringToTextComponent(text));
+        return NBT_CACHE.get(text, t -> textComponentToNbt(parse(t))).copy();
     }
 
     public static Tag textComponentToNbt(final TextComponent textComponent) {
@@ -80,6 +85,37 @@ public class TextUtil {
     }
 
     public static TextComponent stringToTextComponent(final String text) {
+        return TEXT_COMPONENT_CACHE.get(text, TextUtil::parse).copy();
+    }
+
+    public static CompoundTag ensureCompoundTag(final Tag tag) {
+        if (tag instanceof CompoundTag compoundTag) {
+            return compoundTag;
+        } else if (tag instanceof StringTag stringTag) {
+            final CompoundTag compoundTag = new CompoundTag();
+            compoundTag.putString("text", stringTag.getValue());
+            return compoundTag;
+        } else {
+            final CompoundTag compoundTag = new CompoundTag();
+            compoundTag.putString("text", "");
+            compoundTag.put("extra", new ListTag<>(List.of(tag)));
+            return compoundTag;
+        }
+    }
+
+    public static TextCache<TextComponent> getTextComponentCache() {
+        return TEXT_COMPONENT_CACHE;
+    }
+
+    public static TextCache<Tag> getNbtCache() {
+        return NBT_CACHE;
+    }
+
+    public static TextCache<String> getJsonCache() {
+        return JSON_CACHE;
+    }
+
+    private static TextComponent parse(final String text) {
         final TextComponent textComponent = LegacyStringDeserializer.parse(appendFormattingCodesAfterColorCode(text), TextFormatting.COLOR_CHAR, ResetTrackingStyle::new, BEDROCK_FORMATTING_RESOLVER);
         final AtomicBoolean wasReset = new AtomicBoolean(false);
         TextUtils.iterateAll(textComponent, c -> {
@@ -102,21 +138,6 @@ public class TextUtil {
         return textComponent;
     }
 
-    public static CompoundTag ensureCompoundTag(final Tag tag) {
-        if (tag instanceof CompoundTag compoundTag) {
-            return compoundTag;
-        } else if (tag instanceof StringTag stringTag) {
-            final CompoundTag compoundTag = new CompoundTag();
-            compoundTag.putString("text", stringTag.getValue());
-            return compoundTag;
-        } else {
-            final CompoundTag compoundTag = new CompoundTag();
-            compoundTag.putString("text", "");
-            compoundTag.put("extra", new ListTag<>(List.of(tag)));
-            return compoundTag;
-        }
-    }
-
     /**
      * Preprocesses bedrock text to fix the java client resetting the formatting after a color code
      */
@@ -36,6 +36,21 @@ public interface ViaBedrockConfig extends Config {
      */
     BlobCacheMode getBlobCacheMode();
 
+    /**
+     * @return The maximum size of the disk blob cache in megabytes. 0 means unlimited
+     */
+    int getBlobCacheMaxSize();
+
+    /**
+     * @return The amount of days after which unused blobs are removed from the disk blob cache. 0 means never
+     */
+    int getBlobCacheMaxAge();
+
+    /**
+     * @return The maximum amount of memory used by the in-memory blob cache in megabytes
+     */
+    int getBlobCacheMemorySize();
+
     /**
      * @return If true, starts the resource pack HTTP server and enables resource pack translation
      */
@@ -61,6 +76,26 @@ public interface ViaBedrockConfig extends Config {
      */
     PackCacheMode getPackCacheMode();
 
+    /**
+     * @return The maximum amount of resource pack chunks which are requested from the server at once
+     */
+    int getPackDownloadWindow();
+
+    /**
+     * @return The size in megabytes above which downloaded resource packs are written to a temporary file instead of being kept in memory. 0 means never
+     */
+    int getPackDownloadSpillSize();
+
+    /**
+     * @return The maximum amount of threads which are used to download resource packs from CDNs. Shared by all connections
+     */
+    int getPackDownloadThreads();
+
+    /**
+     * @return The maximum amount of concurrent resource pack downloads from the same CDN host
+     */
+    int getPackDownloadHostLimit();
+
     /**
      * @return If true, translates bedrock's showCoordinates game rule to java's reduced debug info flag
      */
@@ -71,6 +106,11 @@ public interface ViaBedrockConfig extends Config {
      */
     boolean shouldDisableServerBlacklist();
 
+    /**
+     * @return The amount of worker threads used to remap chunks off the netty event loop. 0 remaps chunks on the netty event loop
+     */
+    int getChunkRemapThreads();
+
     enum BlobCacheMode {
 
         /**
@@ -84,7 +124,11 @@ public interface ViaBedrockConfig extends Config {
         /**
          * The blob cache will be enabled and blobs will be stored on disk.
          */
-        DISK(DiskBlobCacheProvider::new);
+        DISK(DiskBlobCacheProvider::new),
+        /**
+         * The blob cache will be enabled and blobs will be stored on disk. Frequently used blobs are additionally kept in memory.
+         */
+        TIERED(TieredBlobCacheProvider::new);
 
         private final Supplier<BlobCacheProvider> providerSupplier;
 
@@ -44,6 +44,10 @@ public interface ViaBedrockPlatform {
         this.getBlobCacheFolder().mkdirs();
     }
 
+    default void disable() {
+        ViaBedrock.shutdown();
+    }
+
     Logger getLogger();
 
     File getDataFolder();
@@ -60,4 +64,8 @@ public interface ViaBedrockPlatform {
         return new File(this.getDataCacheFolder(), "blob_cache");
     }
 
+    default File getConvertedPacksFolder() {
+        return new File(this.getDataCacheFolder(), "converted_packs");
+    }
+
 }
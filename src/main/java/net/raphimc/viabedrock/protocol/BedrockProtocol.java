@@ -150,7 +150,7 @@ public class BedrockProtocol extends StatelessTransitionProtocol<ClientboundBedr
         user.put(new BlobCache(user));
         user.put(new PacketSyncStorage(user));
         user.put(new ChannelStorage());
-        user.put(new PlayerListStorage());
+        user.put(new PlayerListStorage(user));
         user.put(new ScoreboardTracker());
         user.put(new InventoryTracker(user));
     }
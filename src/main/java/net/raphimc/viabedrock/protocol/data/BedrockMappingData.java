@@ -91,6 +91,7 @@ public class BedrockMappingData extends MappingDataBase {
     private BiMap<String, Integer> bedrockLegacyBlocks;
     private Int2ObjectMap<BedrockBlockState> bedrockLegacyBlockStates;
     private IntSet javaPreWaterloggedBlockStates;
+    private int[] javaWaterloggedBlockStates;
     private Int2IntMap javaPottedBlockStates;
     private Map<String, IntSet> javaHeightMapBlockStates;
 
@@ -282,6 +283,16 @@ public class BedrockMappingData extends MappingDataBase {
                 this.javaPreWaterloggedBlockStates.add(this.javaBlockStates.get(javaBlockState).intValue());
             }
 
+            this.javaWaterloggedBlockStates = new int[this.javaBlockStates.size()];
+            for (int i = 0; i < this.javaWaterloggedBlockStates.length; i++) {
+                if (this.javaPreWaterloggedBlockStates.contains(i)) {
+                    this.javaWaterloggedBlockStates[i] = i;
+                } else {
+                    final BlockState waterlogged = this.javaBlockStates.inverse().get(i).withProperty("waterlogged", "true");
+                    this.javaWaterloggedBlockStates[i] = this.javaBlockStates.getOrDefault(waterlogged, -1);
+                }
+            }
+
             final JsonObject javaPottedBlockStatesJson = this.readJson("custom/potted_blockstates.json");
             this.javaPottedBlockStates = new Int2IntOpenHashMap(javaPottedBlockStatesJson.size());
             for (Map.Entry<String, JsonElement> entry : javaPottedBlockStatesJson.entrySet()) {
@@ -998,6 +1009,10 @@ public class BedrockMappingData extends MappingDataBase {
         return this.javaPreWaterloggedBlockStates;
     }
 
+    public int[] getJavaWaterloggedBlockStates() {
+        return this.javaWaterloggedBlockStates;
+    }
+
     public Int2IntMap getJavaPottedBlockStates() {
         return this.javaPottedBlockStates;
     }
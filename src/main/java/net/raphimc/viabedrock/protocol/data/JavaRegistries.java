@@ -18,8 +18,15 @@
 package net.raphimc.viabedrock.protocol.data;
 
 import com.viaversion.nbt.tag.CompoundTag;
+import com.viaversion.nbt.tag.IntArrayTag;
 import com.viaversion.nbt.tag.StringTag;
+import com.viaversion.nbt.tag.Tag;
+import com.viaversion.viaversion.api.minecraft.RegistryEntry;
+import com.viaversion.viaversion.api.type.Types;
 import com.viaversion.viaversion.libs.fastutil.ints.IntIntPair;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
 import net.raphimc.viabedrock.ViaBedrock;
 import net.raphimc.viabedrock.api.model.resourcepack.BiomeDefinitions;
 import net.raphimc.viabedrock.api.model.resourcepack.FogDefinitions;
@@ -29,28 +36,156 @@ import net.raphimc.viabedrock.protocol.storage.GameSessionStorage;
 import net.raphimc.viabedrock.protocol.storage.ResourcePacksStorage;
 
 import java.awt.*;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 
 public class JavaRegistries {
 
     private static final int BEDROCK_DEFAULT_WATER_COLOR = 4501493;
     private static final int JAVA_DEFAULT_FOG_COLOR = 12638463;
+    private static final Set<String> UNUSED_REGISTRIES = Set.of("minecraft:dialog", "minecraft:test_instance", "minecraft:chat_type", "minecraft:test_environment");
+    private static final int MAX_ENCODED_SESSION_REGISTRIES = 32;
 
+    private static final Map<String, byte[]> ENCODED_VANILLA_REGISTRIES = new ConcurrentHashMap<>();
+    private static final Map<SessionRegistry, byte[]> ENCODED_SESSION_REGISTRIES = new LinkedHashMap<>(16, 0.75F, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<SessionRegistry, byte[]> eldest) {
+            return this.size() > MAX_ENCODED_SESSION_REGISTRIES;
+        }
+    };
+    private static byte[] encodedTags;
+
+    /**
+     * Creates the java registries for a game session.<br>
+     * Only the biome and dimension type registries depend on the session. All other registries are shared with the mappings and must not be modified.
+     *
+     * @param gameSession          The game session
+     * @param resourcePacksStorage The resource packs of the session
+     * @return The registries
+     */
     public static CompoundTag createJavaRegistries(final GameSessionStorage gameSession, final ResourcePacksStorage resourcePacksStorage) {
-        final CompoundTag registries = BedrockProtocol.MAPPINGS.getJavaRegistries().copy();
+        final CompoundTag vanillaRegistries = BedrockProtocol.MAPPINGS.getJavaRegistries();
+        final CompoundTag registries = new CompoundTag();
+        for (Map.Entry<String, Tag> entry : vanillaRegistries.entrySet()) {
+            if (!UNUSED_REGISTRIES.contains(entry.getKey())) {
+                registries.put(entry.getKey(), entry.getValue());
+            }
+        }
 
         registries.put("minecraft:worldgen/biome", buildJavaBiomeRegistry(gameSession.getBedrockBiomeDefinitions(), resourcePacksStorage));
-        modifyDimensionRegistry(gameSession, registries.getCompoundTag("minecraft:dimension_type"));
-        registries.remove("minecraft:dialog"); // Not needed
-        registries.remove("minecraft:test_instance"); // Not needed
-        registries.remove("minecraft:chat_type"); // Not needed
-        registries.remove("minecraft:test_environment"); // Not needed
+        final CompoundTag dimensionRegistry = vanillaRegistries.getCompoundTag("minecraft:dimension_type").copy();
+        modifyDimensionRegistry(gameSession, dimensionRegistry);
+        registries.put("minecraft:dimension_type", dimensionRegistry);
 
         return registries;
     }
 
+    /**
+     * Gets the encoded payload of a REGISTRY_DATA packet.<br>
+     * Registries shared with the mappings are only encoded once. Session specific registries are cached by their content, so sessions with the same biomes and dimensions share the payload.
+     *
+     * @param registryKey The key of the registry
+     * @param registry    The registry from {@link #createJavaRegistries(GameSessionStorage, ResourcePacksStorage)}
+     * @return The encoded payload. Must not be modified.
+     */
+    public static byte[] getEncodedRegistryData(final String registryKey, final CompoundTag registry) {
+        if (registry == BedrockProtocol.MAPPINGS.getJavaRegistries().get(registryKey)) {
+            return ENCODED_VANILLA_REGISTRIES.computeIfAbsent(registryKey, key -> encodeRegistryData(key, registry));
+        }
+
+        final SessionRegistry sessionRegistry = new SessionRegistry(registryKey, digest(registry)); // Keyed by a digest to not hash and compare the whole registry on every lookup or keep the tag alive
+        synchronized (ENCODED_SESSION_REGISTRIES) {
+            final byte[] encodedRegistry = ENCODED_SESSION_REGISTRIES.get(sessionRegistry);
+            if (encodedRegistry != null) {
+                return encodedRegistry;
+            }
+        }
+        final byte[] encodedRegistry = encodeRegistryData(registryKey, registry);
+        synchronized (ENCODED_SESSION_REGISTRIES) {
+            ENCODED_SESSION_REGISTRIES.put(sessionRegistry, encodedRegistry);
+        }
+        return encodedRegistry;
+    }
+
+    /**
+     * Gets the encoded payload of the UPDATE_TAGS packet. The tags are the same for all sessions, so they are only encoded once.
+     *
+     * @return The encoded payload. Must not be modified.
+     */
+    public static synchronized byte[] getEncodedTags() {
+        if (encodedTags == null) {
+            encodedTags = encode(buffer -> writeTags(buffer, BedrockProtocol.MAPPINGS.getJavaTags()));
+        }
+        return encodedTags;
+    }
+
+    /**
+     * Creates the entries of a REGISTRY_DATA packet. The entries reference the tags of the given registry, so a copy has to be passed if the entries are rewritten by other protocols.
+     *
+     * @param registry The registry
+     * @return The registry entries
+     */
+    public static RegistryEntry[] createRegistryEntries(final CompoundTag registry) {
+        final List<RegistryEntry> entries = new ArrayList<>(registry.size());
+        for (Map.Entry<String, Tag> entry : registry.entrySet()) {
+            entries.add(new RegistryEntry(entry.getKey(), entry.getValue()));
+        }
+        return entries.toArray(new RegistryEntry[0]);
+    }
+
+    private static void writeTags(final ByteBuf buffer, final CompoundTag tags) {
+        Types.VAR_INT.writePrimitive(buffer, tags.size()); // number of registries
+        for (Map.Entry<String, Tag> registryEntry : tags.entrySet()) {
+            final CompoundTag tag = (CompoundTag) registryEntry.getValue();
+            Types.STRING.write(buffer, registryEntry.getKey()); // registry key
+            Types.VAR_INT.writePrimitive(buffer, tag.size()); // number of tags
+            for (Map.Entry<String, Tag> tagEntry : tag.entrySet()) {
+                Types.STRING.write(buffer, tagEntry.getKey()); // tag name
+                Types.VAR_INT_ARRAY_PRIMITIVE.write(buffer, ((IntArrayTag) tagEntry.getValue()).getValue()); // tag ids
+            }
+        }
+    }
+
+    private static byte[] encodeRegistryData(final String registryKey, final CompoundTag registry) {
+        return encode(buffer -> {
+            Types.STRING.write(buffer, registryKey); // registry key
+            Types.REGISTRY_ENTRY_ARRAY.write(buffer, createRegistryEntries(registry)); // registry entries
+        });
+    }
+
+    private static String digest(final CompoundTag registry) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            registry.write(new DataOutputStream(new DigestOutputStream(OutputStream.nullOutputStream(), digest)));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Failed to digest registry", e);
+        }
+    }
+
+    private static byte[] encode(final Consumer<ByteBuf> writer) {
+        final ByteBuf buffer = Unpooled.buffer();
+        try {
+            writer.accept(buffer);
+            return ByteBufUtil.getBytes(buffer);
+        } finally {
+            buffer.release();
+        }
+    }
+
     private static void modifyDimensionRegistry(final GameSessionStorage gameSession, final CompoundTag dimensionRegistry) {
         dimensionRegistry.remove("minecraft:overworld_caves");
         if (gameSession.getBedrockVanillaVersion().isLowerThan("1.18.0")) {
@@ -199,4 +334,7 @@ public class JavaRegistries {
         return Color.HSBtoRGB(0.62222224F - f * 0.05F, 0.5F + f * 0.1F, 1F) & 0xFFFFFF;
     }
 
+    private record SessionRegistry(String registryKey, String digest) {
+    }
+
 }
@@ -34,6 +34,7 @@ import net.lenni0451.mcstructs_bedrock.text.utils.BedrockTranslator;
 import net.lenni0451.mcstructs_bedrock.text.utils.TranslatorOptions;
 import net.raphimc.viabedrock.ViaBedrock;
 import net.raphimc.viabedrock.api.model.entity.ClientPlayerEntity;
+import net.raphimc.viabedrock.api.model.resourcepack.TextDefinitions;
 import net.raphimc.viabedrock.api.util.PacketFactory;
 import net.raphimc.viabedrock.api.util.TextUtil;
 import net.raphimc.viabedrock.protocol.BedrockProtocol;
@@ -99,7 +100,8 @@ public class ChatPackets {
                     }
                     final boolean needsTranslation = wrapper.read(Types.BOOLEAN); // needs translation
 
-                    final Function<String, String> translator = wrapper.user().get(ResourcePacksStorage.class).getTexts().lookup();
+                    final TextDefinitions texts = wrapper.user().get(ResourcePacksStorage.class).getTexts();
+                    final Function<String, String> translator = texts.lookup();
                     String originalMessage = null;
                     try {
                         switch (type) {
@@ -107,7 +109,7 @@ public class ChatPackets {
                                 final String sourceName = wrapper.read(BedrockTypes.STRING); // source name
                                 String message = originalMessage = wrapper.read(BedrockTypes.STRING); // message
                                 if (needsTranslation) {
-                                    message = BedrockTranslator.translate(message, translator, new Object[0]);
+                                    message = texts.translate(message);
                                 }
 
                                 if (type == TextPacketType.Chat && !sourceName.isEmpty()) {
@@ -127,7 +129,7 @@ public class ChatPackets {
                                 });
                                 message = rootComponent.asString();
                                 if (needsTranslation) {
-                                    message = BedrockTranslator.translate(message, translator, new Object[0]);
+                                    message = texts.translate(message);
                                 }
 
                                 wrapper.write(Types.TAG, TextUtil.stringToNbt(message)); // message
@@ -136,7 +138,7 @@ public class ChatPackets {
                             case Raw, SystemMessage, Tip -> {
                                 String message = originalMessage = wrapper.read(BedrockTypes.STRING); // message
                                 if (needsTranslation) {
-                                    message = BedrockTranslator.translate(message, translator, new Object[0]);
+                                    message = texts.translate(message);
                                 }
 
                                 wrapper.write(Types.TAG, TextUtil.stringToNbt(message)); // message
@@ -17,7 +17,6 @@
  */
 package net.raphimc.viabedrock.protocol.packet;
 
-import com.viaversion.viaversion.api.Via;
 import com.viaversion.viaversion.api.minecraft.GameProfile;
 import com.viaversion.viaversion.api.protocol.packet.PacketWrapper;
 import com.viaversion.viaversion.api.protocol.remapper.PacketHandlers;
@@ -39,7 +38,6 @@ import net.raphimc.viabedrock.protocol.ClientboundBedrockPackets;
 import net.raphimc.viabedrock.protocol.data.enums.bedrock.generated.*;
 import net.raphimc.viabedrock.protocol.data.enums.java.*;
 import net.raphimc.viabedrock.protocol.model.SkinData;
-import net.raphimc.viabedrock.protocol.provider.SkinProvider;
 import net.raphimc.viabedrock.protocol.storage.*;
 import net.raphimc.viabedrock.protocol.types.BedrockTypes;
 
@@ -94,7 +92,7 @@ public class HudPackets {
                         wrapper.write(Types.BOOLEAN, true); // listed
                         wrapper.write(Types.OPTIONAL_TAG, TextUtil.stringToNbt(names[i])); // display name
 
-                        Via.getManager().getProviders().get(SkinProvider.class).setSkin(wrapper.user(), uuids[i], skin);
+                        playerListStorage.queueSkin(uuids[i], skin);
                     }
                     try {
                         for (int i = 0; i < length; i++) {
@@ -281,6 +279,10 @@ public class HudPackets {
                 final ScoreboardObjective objective = scoreboardTracker.getObjective(objectiveName);
                 final Pair<ScoreboardObjective, ScoreboardEntry> existingEntry = scoreboardTracker.getEntry(scoreboardId);
                 if (existingEntry != null) {
+                    if (entry != null && existingEntry.key() == objective) { // Entry stays in the same objective, so only the score can change
+                        objective.updateScore(wrapper.user(), existingEntry.value(), entry.score());
+                        continue;
+                    }
                     existingEntry.key().removeEntry(wrapper.user(), scoreboardId);
                     if (entry != null && objective != null) {
                         existingEntry.value().setScore(entry.score());
@@ -289,8 +291,7 @@ public class HudPackets {
                 } else if (entry != null && objective != null) {
                     final ScoreboardEntry sameTargetEntry = objective.getEntryWithSameTarget(entry);
                     if (sameTargetEntry != null) {
-                        sameTargetEntry.setScore(entry.score());
-                        objective.updateEntryInPlace(wrapper.user(), sameTargetEntry);
+                        objective.updateScore(wrapper.user(), sameTargetEntry, entry.score());
                     } else if (entry.isValid()) {
                         objective.addEntry(wrapper.user(), scoreboardId, entry);
                     }
@@ -318,8 +319,7 @@ public class HudPackets {
                         final ScoreboardEntry scoreboardEntry = entry.value();
 
                         if (scoreboardEntry.uniqueEntityId() == null) {
-                            scoreboardEntry.updateTarget(IdentityDefinition_Type.Player, uniqueEntityId, scoreboardEntry.fakePlayerName());
-                            entry.key().updateEntry(wrapper.user(), scoreboardEntry);
+                            entry.key().updateEntryTarget(wrapper.user(), scoreboardEntry, IdentityDefinition_Type.Player, uniqueEntityId, scoreboardEntry.fakePlayerName());
                         }
                     }
                     case Remove -> {
@@ -327,8 +327,7 @@ public class HudPackets {
                         final ScoreboardEntry scoreboardEntry = entry.value();
 
                         if (scoreboardEntry.fakePlayerName() != null) {
-                            scoreboardEntry.updateTarget(IdentityDefinition_Type.FakePlayer, null, scoreboardEntry.fakePlayerName());
-                            entry.key().updateEntry(wrapper.user(), scoreboardEntry);
+                            entry.key().updateEntryTarget(wrapper.user(), scoreboardEntry, IdentityDefinition_Type.FakePlayer, null, scoreboardEntry.fakePlayerName());
                         }
                     }
                     default -> throw new IllegalStateException("Unhandled ScoreboardIdentityPacketType: " + action);
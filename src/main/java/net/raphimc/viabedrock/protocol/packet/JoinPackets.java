@@ -24,7 +24,6 @@ import com.viaversion.nbt.tag.Tag;
 import com.viaversion.viaversion.api.connection.ProtocolInfo;
 import com.viaversion.viaversion.api.connection.UserConnection;
 import com.viaversion.viaversion.api.minecraft.GameProfile;
-import com.viaversion.viaversion.api.minecraft.RegistryEntry;
 import com.viaversion.viaversion.api.protocol.packet.PacketWrapper;
 import com.viaversion.viaversion.api.protocol.packet.State;
 import com.viaversion.viaversion.api.protocol.remapper.PacketHandler;
@@ -47,6 +46,7 @@ import net.raphimc.viabedrock.platform.ViaBedrockConfig;
 import net.raphimc.viabedrock.protocol.BedrockProtocol;
 import net.raphimc.viabedrock.protocol.ClientboundBedrockPackets;
 import net.raphimc.viabedrock.protocol.ServerboundBedrockPackets;
+import net.raphimc.viabedrock.protocol.data.JavaRegistries;
 import net.raphimc.viabedrock.protocol.data.ProtocolConstants;
 import net.raphimc.viabedrock.protocol.data.enums.Dimension;
 import net.raphimc.viabedrock.protocol.data.enums.bedrock.generated.*;
@@ -344,7 +344,7 @@ public class JoinPackets {
 
                     wrapper.user().put(new JoinGameStorage(levelName, difficulty, rainLevel, lightningLevel, currentTime, chunkTickRange));
                     wrapper.user().put(new GameRulesStorage(wrapper.user(), gameRules));
-                    wrapper.user().put(new BlockStateRewriter(blockProperties, hashedRuntimeBlockIds));
+                    wrapper.user().put(BlockStateRewriter.create(blockProperties, hashedRuntimeBlockIds));
                     wrapper.user().put(new ItemRewriter(wrapper.user(), new ItemEntry[0]));
                     wrapper.user().put(new ChunkTracker(wrapper.user(), dimension));
                     final EntityTracker entityTracker = new EntityTracker(wrapper.user());
@@ -473,27 +473,33 @@ public class JoinPackets {
         final CommandsStorage commandsStorage = user.get(CommandsStorage.class);
         final ClientPlayerEntity clientPlayer = user.get(EntityTracker.class).getClientPlayer();
 
+        // The encoded payloads can only be used if no other protocol has to rewrite the packets
+        final boolean sendEncoded = user.getProtocolInfo().protocolVersion().equals(ProtocolConstants.JAVA_VERSION);
         for (Map.Entry<String, Tag> registry : gameSession.getJavaRegistries().entrySet()) {
             final CompoundTag registryTag = (CompoundTag) registry.getValue();
             final PacketWrapper registryData = PacketWrapper.create(ClientboundConfigurationPackets1_21_9.REGISTRY_DATA, user);
-            registryData.write(Types.STRING, registry.getKey()); // registry key
-            final List<RegistryEntry> entries = new ArrayList<>();
-            for (Map.Entry<String, Tag> entry : registryTag.entrySet()) {
-                entries.add(new RegistryEntry(entry.getKey(), entry.getValue()));
+            if (sendEncoded) {
+                registryData.write(Types.REMAINING_BYTES, JavaRegistries.getEncodedRegistryData(registry.getKey(), registryTag)); // registry key and entries
+            } else {
+                registryData.write(Types.STRING, registry.getKey()); // registry key
+                registryData.write(Types.REGISTRY_ENTRY_ARRAY, JavaRegistries.createRegistryEntries(registryTag.copy())); // registry entries (copied, because other protocols rewrite them in place)
             }
-            registryData.write(Types.REGISTRY_ENTRY_ARRAY, entries.toArray(new RegistryEntry[0])); // registry entries
             registryData.send(BedrockProtocol.class);
         }
 
         final PacketWrapper updateTags = PacketWrapper.create(ClientboundConfigurationPackets1_21_9.UPDATE_TAGS, user);
-        updateTags.write(Types.VAR_INT, BedrockProtocol.MAPPINGS.getJavaTags().size()); // number of registries
-        for (Map.Entry<String, Tag> registryEntry : BedrockProtocol.MAPPINGS.getJavaTags().entrySet()) {
-            final CompoundTag tag = (CompoundTag) registryEntry.getValue();
-            updateTags.write(Types.STRING, registryEntry.getKey()); // registry key
-            updateTags.write(Types.VAR_INT, tag.size()); // number of tags
-            for (Map.Entry<String, Tag> tagEntry : tag.entrySet()) {
-                updateTags.write(Types.STRING, tagEntry.getKey()); // tag name
-                updateTags.write(Types.VAR_INT_ARRAY_PRIMITIVE, ((IntArrayTag) tagEntry.getValue()).getValue().clone()); // tag ids
+        if (sendEncoded) {
+            updateTags.write(Types.REMAINING_BYTES, JavaRegistries.getEncodedTags()); // tags
+        } else {
+            updateTags.write(Types.VAR_INT, BedrockProtocol.MAPPINGS.getJavaTags().size()); // number of registries
+            for (Map.Entry<String, Tag> registryEntry : BedrockProtocol.MAPPINGS.getJavaTags().entrySet()) {
+                final CompoundTag tag = (CompoundTag) registryEntry.getValue();
+                updateTags.write(Types.STRING, registryEntry.getKey()); // registry key
+                updateTags.write(Types.VAR_INT, tag.size()); // number of tags
+                for (Map.Entry<String, Tag> tagEntry : tag.entrySet()) {
+                    updateTags.write(Types.STRING, tagEntry.getKey()); // tag name
+                    updateTags.write(Types.VAR_INT_ARRAY_PRIMITIVE, ((IntArrayTag) tagEntry.getValue()).getValue().clone()); // tag ids
+                }
             }
         }
         updateTags.send(BedrockProtocol.class);
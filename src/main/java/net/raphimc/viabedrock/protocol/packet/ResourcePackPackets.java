@@ -18,6 +18,7 @@
 package net.raphimc.viabedrock.protocol.packet;
 
 import com.viaversion.viaversion.api.Via;
+import com.viaversion.viaversion.api.connection.UserConnection;
 import com.viaversion.viaversion.api.protocol.packet.PacketWrapper;
 import com.viaversion.viaversion.api.protocol.packet.State;
 import com.viaversion.viaversion.api.protocol.remapper.PacketHandler;
@@ -27,7 +28,6 @@ import com.viaversion.viaversion.protocols.v1_21_7to1_21_9.packet.ServerboundCon
 import com.viaversion.viaversion.util.Pair;
 import com.viaversion.viaversion.util.Triple;
 import net.raphimc.viabedrock.ViaBedrock;
-import net.raphimc.viabedrock.api.http.BedrockPackDownloader;
 import net.raphimc.viabedrock.api.model.resourcepack.ResourcePack;
 import net.raphimc.viabedrock.api.util.TextUtil;
 import net.raphimc.viabedrock.protocol.BedrockProtocol;
@@ -42,6 +42,7 @@ import net.raphimc.viabedrock.protocol.provider.ResourcePackProvider;
 import net.raphimc.viabedrock.protocol.storage.ResourcePacksStorage;
 import net.raphimc.viabedrock.protocol.types.BedrockTypes;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
@@ -73,11 +74,7 @@ public class ResourcePackPackets {
             }
 
             if (ViaBedrock.getConfig().shouldTranslateResourcePacks() && wrapper.user().getProtocolInfo().protocolVersion().newerThanOrEqualTo(ProtocolConstants.JAVA_VERSION)) {
-                final CompletableFuture<Void> httpFuture = resourcePacksStorage.runHttpTask(resourcePacksStorage.getPacks(), pack -> {
-                    final BedrockPackDownloader downloader = new BedrockPackDownloader(pack.cdnUrl());
-                    final int contentLength = downloader.getContentLength();
-                    pack.setCompressedDataLength(contentLength, contentLength);
-                }, (pack, e) -> {
+                final CompletableFuture<Void> httpFuture = resourcePacksStorage.runHttpTask(resourcePacksStorage.getPacks(), pack -> ViaBedrock.getPackDownloadService().getContentLength(pack.cdnUrl(), wrapper.user().getChannel()).thenAccept(pack::setCompressedDataLength), (pack, e) -> {
                     ViaBedrock.getPlatform().getLogger().log(Level.WARNING, "Failed to get content length for pack: " + pack.packId() + " (" + pack.cdnUrl() + ")", e);
                     pack.setCdnUrl(null); // Use the old resource pack downloading method
                 });
@@ -88,7 +85,7 @@ public class ResourcePackPackets {
                 final PacketWrapper resourcePackPush = PacketWrapper.create(wrapper.getPacketType(), wrapper.user());
                 resourcePackPush.write(Types.UUID, UUID.randomUUID()); // pack id
                 resourcePackPush.write(Types.STRING, ViaBedrock.getResourcePackServer().getUrl() + "?token=" + httpToken); // url
-                resourcePackPush.write(Types.STRING, ""); // hash
+                resourcePackPush.write(Types.STRING, ""); // hash | The pack stack isn't known yet, so the hash of the converted pack isn't either
                 resourcePackPush.write(Types.BOOLEAN, false); // requires accept
                 resourcePackPush.write(Types.OPTIONAL_TAG, TextUtil.stringToNbt(
                         "\n§aIf you press 'Yes', the resource packs will be downloaded and converted to the Java Edition format. " +
@@ -132,16 +129,23 @@ public class ResourcePackPackets {
                 resourcePack.setHash(hash);
                 resourcePack.setPremium(premium);
                 resourcePack.setType(type);
-                resourcePack.setCompressedDataLength((int) compressedPackSize, maxChunkSize);
+                final long spillSize = ViaBedrock.getConfig().getPackDownloadSpillSize() * 1024L * 1024L;
+                try {
+                    resourcePack.setCompressedDataLength((int) compressedPackSize, maxChunkSize, spillSize > 0 && compressedPackSize > spillSize);
+                } catch (IOException e) {
+                    throw new RuntimeException("Failed to prepare download of pack: " + idAndVersion.key(), e);
+                }
+
+                for (int i = 0; i < Math.max(1, ViaBedrock.getConfig().getPackDownloadWindow()); i++) { // More chunks are requested when the requested ones arrive
+                    final int chunkIndex = resourcePack.pollChunkRequest();
+                    if (chunkIndex == -1) break;
+                    sendChunkRequest(wrapper.user(), idAndVersion, chunkIndex);
+                }
             } else { // Bedrock client requests data anyway
                 ViaBedrock.getPlatform().getLogger().log(Level.WARNING, "Received RESOURCE_PACK_DATA_INFO for unknown pack: " + idAndVersion.key());
-            }
-
-            for (int i = 0; i < actualChunkCount; i++) {
-                final PacketWrapper resourcePackChunkRequest = wrapper.create(ServerboundBedrockPackets.RESOURCE_PACK_CHUNK_REQUEST);
-                resourcePackChunkRequest.write(BedrockTypes.PACK_ID_AND_VERSION, idAndVersion); // pack id and version
-                resourcePackChunkRequest.write(BedrockTypes.INT_LE, i); // chunk index
-                resourcePackChunkRequest.sendToServer(BedrockProtocol.class);
+                for (int i = 0; i < actualChunkCount; i++) {
+                    sendChunkRequest(wrapper.user(), idAndVersion, i);
+                }
             }
         });
         protocol.registerClientbound(ClientboundBedrockPackets.RESOURCE_PACK_CHUNK_DATA, null, wrapper -> {
@@ -160,9 +164,13 @@ public class ResourcePackPackets {
             if (resourcePacksStorage.hasPack(idAndVersion.key()) && !resourcePacksStorage.getPack(idAndVersion.key()).isDecompressed()) {
                 final ResourcePack resourcePack = resourcePacksStorage.getPack(idAndVersion.key());
                 try {
-                    if (resourcePack.processDataChunk(chunkIndex, data)) {
-                        Via.getManager().getProviders().get(ResourcePackProvider.class).addPack(resourcePack);
-                        resourcePacksStorage.sendResponseIfAllDownloadsCompleted();
+                    if (resourcePack.receiveDataChunk(chunkIndex, data)) {
+                        resourcePacksStorage.decompressPack(resourcePack, e -> BedrockProtocol.kickForIllegalState(wrapper.user(), "One of the server resource packs failed to process. Please try again later or decline the packs.", e));
+                    } else {
+                        final int nextChunkIndex = resourcePack.pollChunkRequest();
+                        if (nextChunkIndex != -1) {
+                            sendChunkRequest(wrapper.user(), idAndVersion, nextChunkIndex);
+                        }
                     }
                 } catch (Throwable e) {
                     throw new RuntimeException("Failed to process RESOURCE_PACK_CHUNK_DATA for pack: " + idAndVersion.key(), e);
@@ -269,21 +277,18 @@ public class ResourcePackPackets {
                             if (missingNonHttpPacks.isEmpty()) {
                                 wrapper.cancel();
                             }
-                            ViaBedrock.getPlatform().getLogger().log(Level.INFO, "Downloading " + missingHttpPacks.size() + " HTTP packs");
+                            ViaBedrock.getPlatform().getLogger().log(Level.INFO, "Downloading " + missingHttpPacks.size() + " HTTP packs (" + ViaBedrock.getPackDownloadService().getQueuedCount() + " downloads queued, " + ViaBedrock.getPackDownloadService().getActiveCount() + " running)");
+                            final long spillSize = ViaBedrock.getConfig().getPackDownloadSpillSize() * 1024L * 1024L;
                             resourcePacksStorage.runHttpTask(missingHttpPacks, pack -> {
-                                final BedrockPackDownloader downloader = new BedrockPackDownloader(pack.cdnUrl());
-                                final byte[] data = downloader.download();
-                                pack.setCompressedDataLength(data.length, data.length);
-                                wrapper.user().getChannel().eventLoop().submit(() -> {
+                                pack.startDownload();
+                                return ViaBedrock.getPackDownloadService().download(pack.cdnUrl(), spillSize, wrapper.user().getChannel()).thenAcceptAsync(data -> {
                                     try {
-                                        if (pack.processDataChunk(0, data)) {
-                                            Via.getManager().getProviders().get(ResourcePackProvider.class).addPack(pack);
-                                            resourcePacksStorage.sendResponseIfAllDownloadsCompleted();
-                                        }
+                                        pack.receiveData(data);
+                                        resourcePacksStorage.decompressPack(pack, e -> BedrockProtocol.kickForIllegalState(wrapper.user(), "One of the server resource packs failed to process. Please try again later or decline the packs.", e));
                                     } catch (Throwable e) {
                                         BedrockProtocol.kickForIllegalState(wrapper.user(), "One of the server resource packs failed to process. Please try again later or decline the packs.", e);
                                     }
-                                });
+                                }, wrapper.user().getChannel().eventLoop());
                             }, (pack, e) -> BedrockProtocol.kickForIllegalState(wrapper.user(), "One of the server resource packs failed to download. Please try again later or decline the packs.", e));
                         }
 
@@ -300,4 +305,11 @@ public class ResourcePackPackets {
         });
     }
 
+    private static void sendChunkRequest(final UserConnection user, final Pair<UUID, String> idAndVersion, final int chunkIndex) {
+        final PacketWrapper resourcePackChunkRequest = PacketWrapper.create(ServerboundBedrockPackets.RESOURCE_PACK_CHUNK_REQUEST, user);
+        resourcePackChunkRequest.write(BedrockTypes.PACK_ID_AND_VERSION, idAndVersion); // pack id and version
+        resourcePackChunkRequest.write(BedrockTypes.INT_LE, chunkIndex); // chunk index
+        resourcePackChunkRequest.sendToServer(BedrockProtocol.class);
+    }
+
 }
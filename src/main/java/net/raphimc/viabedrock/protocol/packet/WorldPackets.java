@@ -216,12 +216,11 @@ public class WorldPackets {
             chunk.setRequestSubChunks(sectionCount < 0);
 
             final int fRequestSectionCount = requestSectionCount;
-            final Consumer<byte[]> dataConsumer = combinedData -> {
+            final Consumer<ByteBuf> dataConsumer = dataBuf -> {
                 try {
                     if (fRequestSectionCount > 0) {
                         chunkTracker.requestSubChunks(chunkX, chunkZ, startY, MathUtil.clamp(startY + fRequestSectionCount, startY + 1, endY));
                     }
-                    final ByteBuf dataBuf = Unpooled.wrappedBuffer(combinedData);
 
                     final BedrockChunkSection[] sections = chunk.getSections();
                     final List<BlockEntity> blockEntities = chunk.blockEntities();
@@ -267,6 +266,8 @@ public class WorldPackets {
                     }
                 } catch (Throwable e) {
                     throw new RuntimeException("Error handling chunk data", e);
+                } finally {
+                    dataBuf.release();
                 }
             };
 
@@ -277,14 +278,9 @@ public class WorldPackets {
                     throw new IllegalStateException("Invalid blob count: " + blobs.length + " (expected " + expectedLength + ")");
                 }
                 final byte[] data = wrapper.read(BedrockTypes.BYTE_ARRAY); // data
-                wrapper.user().get(BlobCache.class).getBlob(blobs).thenAccept(blob -> {
-                    final byte[] combinedData = new byte[data.length + blob.length];
-                    System.arraycopy(blob, 0, combinedData, 0, blob.length);
-                    System.arraycopy(data, 0, combinedData, blob.length, data.length);
-                    dataConsumer.accept(combinedData);
-                });
+                wrapper.user().get(BlobCache.class).getBlob(blobs).thenAccept(blob -> dataConsumer.accept(Unpooled.wrappedBuffer(blob, Unpooled.wrappedBuffer(data))));
             } else {
-                dataConsumer.accept(wrapper.read(BedrockTypes.BYTE_ARRAY)); // data
+                dataConsumer.accept(Unpooled.wrappedBuffer(wrapper.read(BedrockTypes.BYTE_ARRAY))); // data
             }
         });
         protocol.registerClientbound(ClientboundBedrockPackets.SUB_CHUNK, null, wrapper -> {
@@ -313,15 +309,13 @@ public class WorldPackets {
                 }
 
                 final BlockPosition absolute = new BlockPosition(center.x() + offset.x(), center.y() + offset.y(), center.z() + offset.z());
-                final Consumer<byte[]> dataConsumer = combinedData -> {
+                final Consumer<ByteBuf> dataConsumer = dataBuf -> {
                     try {
                         if (result == SubChunkPacket_SubChunkRequestResult.SuccessAllAir) {
                             if (chunkTracker.mergeSubChunk(absolute.x(), absolute.y(), absolute.z(), new BedrockChunkSectionImpl(), new ArrayList<>())) {
                                 chunkTracker.sendChunkInNextTick(absolute.x(), absolute.z());
                             }
                         } else if (result == SubChunkPacket_SubChunkRequestResult.Success) {
-                            final ByteBuf dataBuf = Unpooled.wrappedBuffer(combinedData);
-
                             BedrockChunkSection section = new BedrockChunkSectionImpl();
                             final List<BedrockBlockEntity> blockEntities = new ArrayList<>();
                             try {
@@ -346,25 +340,16 @@ public class WorldPackets {
                         }
                     } catch (Throwable e) {
                         throw new RuntimeException("Error handling sub chunk data", e);
+                    } finally {
+                        dataBuf.release();
                     }
                 };
 
                 if (cachingEnabled) {
                     final long hash = wrapper.read(BedrockTypes.LONG_LE); // blob id
-                    wrapper.user().get(BlobCache.class).getBlob(hash).thenAccept(blob -> {
-                        if (data.length == 0) {
-                            dataConsumer.accept(blob);
-                        } else if (blob.length == 0) {
-                            dataConsumer.accept(data);
-                        } else {
-                            final byte[] combinedData = new byte[data.length + blob.length];
-                            System.arraycopy(blob, 0, combinedData, 0, blob.length);
-                            System.arraycopy(data, 0, combinedData, blob.length, data.length);
-                            dataConsumer.accept(combinedData);
-                        }
-                    });
+                    wrapper.user().get(BlobCache.class).getBlob(hash).thenAccept(blob -> dataConsumer.accept(data.length == 0 ? blob : Unpooled.wrappedBuffer(blob, Unpooled.wrappedBuffer(data))));
                 } else {
-                    dataConsumer.accept(data);
+                    dataConsumer.accept(Unpooled.wrappedBuffer(data));
                 }
             }
         });
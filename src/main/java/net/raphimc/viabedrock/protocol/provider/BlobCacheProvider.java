@@ -18,6 +18,8 @@
 package net.raphimc.viabedrock.protocol.provider;
 
 import com.viaversion.viaversion.api.platform.providers.Provider;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 
 public abstract class BlobCacheProvider implements Provider {
 
@@ -27,4 +29,18 @@ public abstract class BlobCacheProvider implements Provider {
 
     public abstract byte[] getBlob(final long hash);
 
+    /**
+     * Gets a blob as a buffer. The caller owns the returned buffer and has to release it.<br>
+     * Providers which don't store blobs as byte arrays can override this to avoid copying the blob.
+     *
+     * @param hash The hash of the blob
+     * @return The blob or null if it is not cached
+     */
+    public ByteBuf getBlobBuffer(final long hash) {
+        if (!this.hasBlob(hash)) return null;
+
+        final byte[] blob = this.getBlob(hash);
+        return blob != null ? Unpooled.wrappedBuffer(blob) : null;
+    }
+
 }
@@ -26,6 +26,7 @@ import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.stream.Stream;
 
@@ -36,9 +37,11 @@ public class DiskBlobCacheProvider extends BlobCacheProvider {
     public DiskBlobCacheProvider() {
         if (BLOB_DB != null) return;
 
+        final long maxSize = ViaBedrock.getConfig().getBlobCacheMaxSize() * 1024L * 1024L;
+        final long maxAge = TimeUnit.DAYS.toMillis(ViaBedrock.getConfig().getBlobCacheMaxAge());
         try {
             try {
-                BLOB_DB = new BlobDB(ViaBedrock.getPlatform().getBlobCacheFolder());
+                BLOB_DB = new BlobDB(ViaBedrock.getPlatform().getBlobCacheFolder(), maxSize, maxAge);
             } catch (Throwable e) {
                 ViaBedrock.getPlatform().getLogger().log(Level.WARNING, "Failed to open BlobDB, deleting it...", e);
                 try (Stream<Path> paths = Files.walk(ViaBedrock.getPlatform().getBlobCacheFolder().toPath())) {
@@ -46,7 +49,7 @@ public class DiskBlobCacheProvider extends BlobCacheProvider {
                         Files.delete(path);
                     }
                 }
-                BLOB_DB = new BlobDB(ViaBedrock.getPlatform().getBlobCacheFolder());
+                BLOB_DB = new BlobDB(ViaBedrock.getPlatform().getBlobCacheFolder(), maxSize, maxAge);
             }
 
             Runtime.getRuntime().addShutdownHook(new Thread(() -> {
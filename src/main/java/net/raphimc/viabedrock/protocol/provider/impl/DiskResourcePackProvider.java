@@ -21,8 +21,10 @@ import net.raphimc.viabedrock.ViaBedrock;
 import net.raphimc.viabedrock.api.model.resourcepack.ResourcePack;
 import net.raphimc.viabedrock.protocol.provider.ResourcePackProvider;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 
 public class DiskResourcePackProvider extends ResourcePackProvider {
@@ -46,7 +48,9 @@ public class DiskResourcePackProvider extends ResourcePackProvider {
 
     @Override
     public void addPack(final ResourcePack pack) throws IOException {
-        Files.write(this.getPackFile(pack).toPath(), pack.content().toZip());
+        try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(this.getPackFile(pack).toPath()))) {
+            pack.content().writeZip(outputStream);
+        }
     }
 
     private File getPackFile(final ResourcePack pack) {
@@ -17,14 +17,13 @@
  */
 package net.raphimc.viabedrock.protocol.provider.impl;
 
+import net.raphimc.viabedrock.ViaBedrock;
+import net.raphimc.viabedrock.api.io.SegmentedLruBlobCache;
 import net.raphimc.viabedrock.protocol.provider.BlobCacheProvider;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-
 public class InMemoryBlobCacheProvider extends BlobCacheProvider {
 
-    private final Map<Long, byte[]> blobs = new ConcurrentHashMap<>();
+    private final SegmentedLruBlobCache blobs = new SegmentedLruBlobCache(ViaBedrock.getConfig().getBlobCacheMemorySize() * 1024L * 1024L);
 
     @Override
     public void addBlob(final long hash, final byte[] blob) {
@@ -33,7 +32,7 @@ public class InMemoryBlobCacheProvider extends BlobCacheProvider {
 
     @Override
     public boolean hasBlob(final long hash) {
-        return this.blobs.containsKey(hash);
+        return this.blobs.contains(hash);
     }
 
     @Override
@@ -41,4 +40,8 @@ public class InMemoryBlobCacheProvider extends BlobCacheProvider {
         return this.blobs.get(hash);
     }
 
+    public SegmentedLruBlobCache getMemoryCache() {
+        return this.blobs;
+    }
+
 }
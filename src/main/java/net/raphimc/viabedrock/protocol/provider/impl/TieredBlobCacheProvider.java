@@ -0,0 +1,77 @@
+/*
+ * This file is part of ViaBedrock - https://github.com/RaphiMC/ViaBedrock
+ * Copyright (C) 2023-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.viabedrock.protocol.provider.impl;
+
+import net.raphimc.viabedrock.ViaBedrock;
+import net.raphimc.viabedrock.api.io.SegmentedLruBlobCache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Disk blob cache with an in-memory cache for frequently used blobs in front of it.<br>
+ * Blobs are content addressed, so the memory cache is shared between all connections and blobs are written through to disk when they are added.
+ */
+public class TieredBlobCacheProvider extends DiskBlobCacheProvider {
+
+    private final SegmentedLruBlobCache memoryCache = new SegmentedLruBlobCache(ViaBedrock.getConfig().getBlobCacheMemorySize() * 1024L * 1024L);
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder diskMisses = new LongAdder();
+
+    @Override
+    public void addBlob(final long hash, final byte[] blob) {
+        this.memoryCache.put(hash, blob);
+        if (!super.hasBlob(hash)) {
+            super.addBlob(hash, blob);
+        }
+    }
+
+    @Override
+    public boolean hasBlob(final long hash) {
+        return this.memoryCache.contains(hash) || super.hasBlob(hash);
+    }
+
+    @Override
+    public byte[] getBlob(final long hash) {
+        byte[] blob = this.memoryCache.get(hash);
+        if (blob != null) {
+            return blob;
+        }
+
+        blob = super.getBlob(hash);
+        if (blob != null) {
+            this.diskHits.increment();
+            this.memoryCache.put(hash, blob);
+        } else {
+            this.diskMisses.increment();
+        }
+        return blob;
+    }
+
+    public SegmentedLruBlobCache getMemoryCache() {
+        return this.memoryCache;
+    }
+
+    public long getDiskHitCount() {
+        return this.diskHits.sum();
+    }
+
+    public long getDiskMissCount() {
+        return this.diskMisses.sum();
+    }
+
+}
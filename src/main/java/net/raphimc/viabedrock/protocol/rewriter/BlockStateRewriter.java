@@ -21,11 +21,13 @@ import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
 import com.viaversion.nbt.tag.*;
 import com.viaversion.viaversion.api.connection.StorableObject;
+import com.viaversion.viaversion.libs.fastutil.HashCommon;
 import com.viaversion.viaversion.libs.fastutil.ints.*;
 import com.viaversion.viaversion.libs.fastutil.objects.Object2ObjectMap;
 import com.viaversion.viaversion.libs.fastutil.objects.Object2ObjectOpenHashMap;
 import com.viaversion.viaversion.util.Key;
 import net.raphimc.viabedrock.ViaBedrock;
+import net.raphimc.viabedrock.api.chunk.blockstate.BlockStateResolutionCache;
 import net.raphimc.viabedrock.api.chunk.blockstate.BlockStateSanitizer;
 import net.raphimc.viabedrock.api.model.BedrockBlockState;
 import net.raphimc.viabedrock.api.model.BlockState;
@@ -44,15 +46,30 @@ public class BlockStateRewriter implements StorableObject {
     public static final String TAG_WATER = "water";
     public static final String TAG_ITEM_FRAME = "item_frame";
 
-    private final Int2IntMap blockStateIdMappings = new Int2IntOpenHashMap(); // Bedrock -> Java
     private final Int2IntMap legacyBlockStateIdMappings = new Int2IntOpenHashMap(); // Bedrock -> Bedrock
     private final BiMap<BlockState, Integer> blockStateMappings = HashBiMap.create(); // Bedrock -> Bedrock
     private final Object2ObjectMap<String, IntSortedSet> validBlockStates = new Object2ObjectOpenHashMap<>(); // Bedrock -> Bedrock
-    private final Int2ObjectMap<String> blockStateTags = new Int2ObjectOpenHashMap<>(); // Bedrock
     private final BlockStateSanitizer blockStateSanitizer;
+    private final BlockStateResolutionCache persistentBlockStateCache = new BlockStateResolutionCache(16384); // Shared by all connections using this rewriter
+
+    // Open addressing table which maps hashed runtime ids to dense indices. Only used if the server uses hashed runtime ids, otherwise the runtime id is the dense index.
+    private final int[] hashedBlockStateIds;
+    private final int[] hashedBlockStateIndices;
+    private final int hashedBlockStateMask;
+
+    // Dense lookup tables indexed by the dense index of a block state
+    private final BlockState[] blockStates; // Bedrock
+    private final int[] javaBlockStateIds; // Bedrock -> Java
+    private final byte[] blockStateTagIds; // Bedrock -> Tag id
+
+    private final String[] tagNames; // Tag id -> Tag name (Tag id 0 means no tag)
+    private final Map<String, Byte> tagIds = new HashMap<>(); // Tag name -> Tag id
+    private final boolean[] javaBlockEntityTags; // Tag id -> Whether the tag represents a java block entity
+    private final byte waterTagId;
+    private final byte itemFrameTagId;
+    BlockStateRewriterCache cache;
 
     public BlockStateRewriter(final BlockProperties[] blockProperties, final boolean hashedRuntimeBlockIds) {
-        this.blockStateIdMappings.defaultReturnValue(-1);
         this.legacyBlockStateIdMappings.defaultReturnValue(-1);
 
         final List<BedrockBlockState> bedrockBlockStates = new ArrayList<>(BedrockProtocol.MAPPINGS.getBedrockBlockStates());
@@ -161,6 +178,39 @@ public class BlockStateRewriter implements StorableObject {
         bedrockBlockStates.addAll(customBlockStates);
         bedrockBlockStates.sort((a, b) -> HashedPaletteComparator.INSTANCE.compare(a.namespacedIdentifier(), b.namespacedIdentifier()));
 
+        final SortedSet<String> sortedTagNames = new TreeSet<>(blockTags.values());
+        if (sortedTagNames.size() >= Byte.MAX_VALUE) {
+            throw new IllegalStateException("Too many block tags: " + sortedTagNames.size());
+        }
+        this.tagNames = new String[sortedTagNames.size() + 1];
+        this.javaBlockEntityTags = new boolean[this.tagNames.length];
+        int tagId = 1;
+        for (String tagName : sortedTagNames) {
+            this.tagNames[tagId] = tagName;
+            this.tagIds.put(tagName, (byte) tagId);
+            tagId++;
+        }
+        for (int i = 0; i < this.tagNames.length; i++) {
+            this.javaBlockEntityTags[i] = BlockEntityRewriter.isJavaBlockEntity(this.tagNames[i]);
+        }
+        this.waterTagId = this.tagId(TAG_WATER);
+        this.itemFrameTagId = this.tagId(TAG_ITEM_FRAME);
+
+        this.blockStates = new BlockState[bedrockBlockStates.size()];
+        this.javaBlockStateIds = new int[bedrockBlockStates.size()];
+        this.blockStateTagIds = new byte[bedrockBlockStates.size()];
+        if (hashedRuntimeBlockIds) {
+            final int tableSize = HashCommon.arraySize(bedrockBlockStates.size(), 0.5F);
+            this.hashedBlockStateIds = new int[tableSize];
+            this.hashedBlockStateIndices = new int[tableSize];
+            this.hashedBlockStateMask = tableSize - 1;
+            Arrays.fill(this.hashedBlockStateIndices, -1);
+        } else {
+            this.hashedBlockStateIds = null;
+            this.hashedBlockStateIndices = null;
+            this.hashedBlockStateMask = 0;
+        }
+
         for (int i = 0; i < bedrockBlockStates.size(); i++) {
             final BedrockBlockState bedrockBlockState = bedrockBlockStates.get(i);
             int bedrockId = hashedRuntimeBlockIds ? bedrockBlockState.blockStateTag().getIntTag("network_id").asInt() : i;
@@ -170,18 +220,25 @@ public class BlockStateRewriter implements StorableObject {
 
             this.blockStateMappings.put(bedrockBlockState, bedrockId);
             this.validBlockStates.computeIfAbsent(bedrockBlockState.namespacedIdentifier(), k -> new IntLinkedOpenHashSet()).add(bedrockId);
+            if (hashedRuntimeBlockIds) {
+                int slot = HashCommon.mix(bedrockId) & this.hashedBlockStateMask;
+                while (this.hashedBlockStateIndices[slot] != -1) {
+                    slot = (slot + 1) & this.hashedBlockStateMask;
+                }
+                this.hashedBlockStateIds[slot] = bedrockId;
+                this.hashedBlockStateIndices[slot] = i;
+            }
+            this.blockStates[i] = bedrockBlockState;
 
             if (blockTags.containsKey(bedrockBlockState.namespacedIdentifier())) {
-                this.blockStateTags.put(bedrockId, blockTags.get(bedrockBlockState.namespacedIdentifier()));
+                this.blockStateTagIds[i] = this.tagId(blockTags.get(bedrockBlockState.namespacedIdentifier()));
             }
 
             if (bedrockToJavaBlockStates.containsKey(bedrockBlockState)) {
-                final int javaId = javaBlockStates.get(bedrockToJavaBlockStates.get(bedrockBlockState));
-                this.blockStateIdMappings.put(bedrockId, javaId);
+                this.javaBlockStateIds[i] = javaBlockStates.get(bedrockToJavaBlockStates.get(bedrockBlockState));
             } else {
                 ViaBedrock.getPlatform().getLogger().log(Level.WARNING, "Missing bedrock -> java block state mapping: " + bedrockBlockState.toBlockStateString());
-                final int javaId = javaBlockStates.get(bedrockToJavaBlockStates.get(BedrockBlockState.INFO_UPDATE));
-                this.blockStateIdMappings.put(bedrockId, javaId);
+                this.javaBlockStateIds[i] = javaBlockStates.get(bedrockToJavaBlockStates.get(BedrockBlockState.INFO_UPDATE));
             }
         }
 
@@ -193,10 +250,33 @@ public class BlockStateRewriter implements StorableObject {
             this.legacyBlockStateIdMappings.put(legacyId << 4 | legacyData & 15, this.blockStateMappings.getOrDefault(entry.getValue(), -1).intValue());
         }
 
+        for (Map.Entry<String, IntSortedSet> entry : this.validBlockStates.entrySet()) {
+            entry.setValue(IntSortedSets.unmodifiable(entry.getValue()));
+        }
+
         this.blockStateSanitizer = new BlockStateSanitizer(bedrockBlockStates);
     }
 
+    public static BlockStateRewriter create(final BlockProperties[] blockProperties, final boolean hashedRuntimeBlockIds) {
+        return BlockStateRewriterCache.INSTANCE.acquire(blockProperties, hashedRuntimeBlockIds);
+    }
+
+    @Override
+    public void onRemove() {
+        if (this.cache != null) {
+            this.cache.release(this);
+        }
+    }
+
     public int bedrockId(final CompoundTag bedrockBlockStateTag) {
+        return this.persistentBlockStateCache.resolve(bedrockBlockStateTag, this::resolveBedrockId);
+    }
+
+    public int bedrockId(final BlockState bedrockBlockState) {
+        return this.blockStateMappings.getOrDefault(bedrockBlockState, -1);
+    }
+
+    private int resolveBedrockId(final CompoundTag bedrockBlockStateTag) {
         final CompoundTag bedrockBlockStateTagClone = bedrockBlockStateTag.copy();
         try {
             BedrockProtocol.MAPPINGS.getBedrockBlockStateUpgrader().upgradeToLatest(bedrockBlockStateTagClone);
@@ -209,12 +289,9 @@ public class BlockStateRewriter implements StorableObject {
         }
     }
 
-    public int bedrockId(final BlockState bedrockBlockState) {
-        return this.blockStateMappings.getOrDefault(bedrockBlockState, -1);
-    }
-
     public BlockState blockState(final int bedrockBlockStateId) {
-        return this.blockStateMappings.inverse().get(bedrockBlockStateId);
+        final int index = this.index(bedrockBlockStateId);
+        return index != -1 ? this.blockStates[index] : null;
     }
 
     public int bedrockId(final int legacyBlockStateId) {
@@ -222,16 +299,17 @@ public class BlockStateRewriter implements StorableObject {
     }
 
     public int javaId(final int bedrockBlockStateId) {
-        return this.blockStateIdMappings.get(bedrockBlockStateId);
+        final int index = this.index(bedrockBlockStateId);
+        return index != -1 ? this.javaBlockStateIds[index] : -1;
     }
 
     public int waterlog(final int javaBlockStateId) {
-        if (BedrockProtocol.MAPPINGS.getJavaPreWaterloggedBlockStates().contains(javaBlockStateId)) {
-            return javaBlockStateId;
+        final int[] javaWaterloggedBlockStates = BedrockProtocol.MAPPINGS.getJavaWaterloggedBlockStates();
+        if (javaBlockStateId < 0 || javaBlockStateId >= javaWaterloggedBlockStates.length) {
+            return -1;
         }
 
-        final BlockState waterlogged = BedrockProtocol.MAPPINGS.getJavaBlockStates().inverse().get(javaBlockStateId).withProperty("waterlogged", "true");
-        return BedrockProtocol.MAPPINGS.getJavaBlockStates().getOrDefault(waterlogged, -1);
+        return javaWaterloggedBlockStates[javaBlockStateId];
     }
 
     public IntSortedSet validBlockStates(final String bedrockBlockIdentifier) {
@@ -239,7 +317,60 @@ public class BlockStateRewriter implements StorableObject {
     }
 
     public String tag(final int bedrockBlockStateId) {
-        return this.blockStateTags.get(bedrockBlockStateId);
+        return this.tagNames[this.tagId(bedrockBlockStateId)];
+    }
+
+    /**
+     * @param bedrockBlockStateId The bedrock block state id
+     * @return The tag id of the block state or 0 if the block state has no tag
+     */
+    public byte tagId(final int bedrockBlockStateId) {
+        final int index = this.index(bedrockBlockStateId);
+        return index != -1 ? this.blockStateTagIds[index] : 0;
+    }
+
+    /**
+     * @param tag The tag name
+     * @return The tag id of the tag or -1 if the tag is unknown
+     */
+    public byte tagId(final String tag) {
+        return this.tagIds.getOrDefault(tag, (byte) -1);
+    }
+
+    public String tagName(final byte tagId) {
+        return this.tagNames[tagId];
+    }
+
+    public boolean isJavaBlockEntity(final byte tagId) {
+        return this.javaBlockEntityTags[tagId];
+    }
+
+    public byte waterTagId() {
+        return this.waterTagId;
+    }
+
+    public byte itemFrameTagId() {
+        return this.itemFrameTagId;
+    }
+
+    public int blockStateCount() {
+        return this.blockStates.length;
+    }
+
+    private int index(final int bedrockBlockStateId) {
+        if (this.hashedBlockStateIndices == null) {
+            return bedrockBlockStateId >= 0 && bedrockBlockStateId < this.blockStates.length ? bedrockBlockStateId : -1;
+        }
+
+        int slot = HashCommon.mix(bedrockBlockStateId) & this.hashedBlockStateMask;
+        int index;
+        while ((index = this.hashedBlockStateIndices[slot]) != -1) {
+            if (this.hashedBlockStateIds[slot] == bedrockBlockStateId) {
+                return index;
+            }
+            slot = (slot + 1) & this.hashedBlockStateMask;
+        }
+        return -1;
     }
 
 }
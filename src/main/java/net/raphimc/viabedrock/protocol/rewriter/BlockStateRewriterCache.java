@@ -0,0 +1,174 @@
+/*
+ * This file is part of ViaBedrock - https://github.com/RaphiMC/ViaBedrock
+ * Copyright (C) 2023-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.viabedrock.protocol.rewriter;
+
+import net.raphimc.viabedrock.protocol.model.BlockProperties;
+
+import java.util.*;
+
+/**
+ * Process-wide cache of {@link BlockStateRewriter} instances.<br>
+ * Connections which send the same custom block properties share a single (immutable) rewriter instance.
+ * Entries are reference counted and evicted as soon as the last connection using them releases its reference.
+ */
+public class BlockStateRewriterCache {
+
+    public static final BlockStateRewriterCache INSTANCE = new BlockStateRewriterCache();
+
+    private final Map<Key, Entry> entries = new HashMap<>();
+    private final Map<BlockStateRewriter, Entry> rewriterEntries = new IdentityHashMap<>();
+    private long hits;
+    private long misses;
+
+    /**
+     * Gets a shared rewriter for the given block properties or creates a new one if there is none.<br>
+     * The returned rewriter has to be released using {@link #release(BlockStateRewriter)} once it is no longer used.
+     *
+     * @param blockProperties       The custom block properties sent by the server
+     * @param hashedRuntimeBlockIds Whether the server uses hashed runtime block ids
+     * @return The shared rewriter
+     */
+    public BlockStateRewriter acquire(final BlockProperties[] blockProperties, final boolean hashedRuntimeBlockIds) {
+        final Key key = new Key(blockProperties, hashedRuntimeBlockIds);
+        final Entry entry;
+        synchronized (this) {
+            final Entry existingEntry = this.entries.get(key);
+            if (existingEntry != null) {
+                entry = existingEntry;
+                this.hits++;
+            } else {
+                entry = new Entry(key);
+                this.entries.put(key, entry);
+                this.misses++;
+            }
+            entry.references++;
+        }
+
+        try {
+            return entry.get();
+        } catch (Throwable e) {
+            synchronized (this) {
+                if (--entry.references <= 0) {
+                    this.entries.remove(key, entry);
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Releases a reference to a rewriter which was previously acquired using {@link #acquire(BlockProperties[], boolean)}.
+     *
+     * @param blockStateRewriter The rewriter to release
+     */
+    public synchronized void release(final BlockStateRewriter blockStateRewriter) {
+        final Entry entry = this.rewriterEntries.get(blockStateRewriter);
+        if (entry == null) return;
+
+        if (--entry.references <= 0) {
+            this.entries.remove(entry.key, entry);
+            this.rewriterEntries.remove(blockStateRewriter);
+        }
+    }
+
+    public synchronized long getHitCount() {
+        return this.hits;
+    }
+
+    public synchronized long getMissCount() {
+        return this.misses;
+    }
+
+    public synchronized double getHitRate() {
+        final long requests = this.hits + this.misses;
+        return requests == 0 ? 0D : (double) this.hits / requests;
+    }
+
+    /**
+     * @return The amount of rewriters currently held by the cache
+     */
+    public synchronized int getResidentRewriterCount() {
+        return this.rewriterEntries.size();
+    }
+
+    /**
+     * @return The total amount of block states of all rewriters currently held by the cache
+     */
+    public synchronized long getResidentBlockStateCount() {
+        long count = 0;
+        for (BlockStateRewriter blockStateRewriter : this.rewriterEntries.keySet()) {
+            count += blockStateRewriter.blockStateCount();
+        }
+        return count;
+    }
+
+    private final class Entry {
+
+        private final Key key;
+        private int references;
+        private BlockStateRewriter blockStateRewriter;
+
+        private Entry(final Key key) {
+            this.key = key;
+        }
+
+        private BlockStateRewriter get() {
+            synchronized (this) {
+                if (this.blockStateRewriter == null) {
+                    this.blockStateRewriter = new BlockStateRewriter(this.key.blockProperties, this.key.hashedRuntimeBlockIds);
+                    this.blockStateRewriter.cache = BlockStateRewriterCache.this;
+                    synchronized (BlockStateRewriterCache.this) {
+                        BlockStateRewriterCache.this.rewriterEntries.put(this.blockStateRewriter, this);
+                    }
+                }
+                return this.blockStateRewriter;
+            }
+        }
+
+    }
+
+    private static final class Key {
+
+        private final BlockProperties[] blockProperties;
+        private final boolean hashedRuntimeBlockIds;
+        private final int hashCode;
+
+        private Key(final BlockProperties[] blockProperties, final boolean hashedRuntimeBlockIds) {
+            this.blockProperties = new BlockProperties[blockProperties.length];
+            for (int i = 0; i < blockProperties.length; i++) { // Copy the properties to guard against later modifications of the packet data
+                this.blockProperties[i] = new BlockProperties(blockProperties[i].name(), blockProperties[i].properties().copy());
+            }
+            this.hashedRuntimeBlockIds = hashedRuntimeBlockIds;
+            this.hashCode = 31 * Arrays.hashCode(this.blockProperties) + Boolean.hashCode(hashedRuntimeBlockIds);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return this.hashCode == key.hashCode && this.hashedRuntimeBlockIds == key.hashedRuntimeBlockIds && Arrays.equals(this.blockProperties, key.blockProperties);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+
+    }
+
+}
@@ -54,6 +54,7 @@ import net.raphimc.viabedrock.protocol.types.item.BedrockItemType;
 
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
@@ -61,12 +62,20 @@ import java.util.logging.Level;
 public class ItemRewriter extends StoredObject {
 
     private static final Map<String, NbtRewriter> ITEM_NBT_REWRITERS = new HashMap<>();
+    private static final int MAX_CACHED_ITEMS = 1024;
 
     private final BiMap<String, Integer> items;
     private final Set<String> componentItems;
     private final Int2ObjectMap<IntSortedSet> blockItemValidBlockStates;
     private final Type<BedrockItem> itemType;
     private final Type<BedrockItem[]> itemArrayType;
+    private final Map<ItemKey, JavaItemPrototype> javaItemCache = new LinkedHashMap<>(16, 0.75F, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<ItemKey, JavaItemPrototype> eldest) {
+            return this.size() > MAX_CACHED_ITEMS;
+        }
+    };
+    private int javaItemCacheGeneration = -1;
 
     static {
         // TODO: Add missing item nbt rewriters
@@ -117,14 +126,48 @@ public class ItemRewriter extends StoredObject {
             ViaBedrock.getPlatform().getLogger().log(Level.WARNING, "Missing item identifier for id: " + bedrockItem.identifier());
             return StructuredItem.empty();
         }
+        if (bedrockItem.blockRuntimeId() == 0 && BedrockProtocol.MAPPINGS.getBedrockToJavaBlockItems().containsKey(identifier)) { // Manually constructed items might not have a valid block state set
+            final IntSortedSet validBlockStates = this.blockItemValidBlockStates.get(bedrockItem.identifier());
+            bedrockItem.setBlockRuntimeId(validBlockStates.firstInt());
+        }
+
+        final int resourcePacksGeneration = this.user().get(ResourcePacksStorage.class).getGeneration();
+        if (this.javaItemCacheGeneration != resourcePacksGeneration) {
+            this.javaItemCache.clear();
+            this.javaItemCacheGeneration = resourcePacksGeneration;
+        }
+        final ItemKey itemKey = new ItemKey(bedrockItem.identifier(), bedrockItem.data(), bedrockItem.blockRuntimeId());
+        JavaItemPrototype prototype = this.javaItemCache.get(itemKey);
+        if (prototype == null) {
+            prototype = this.createJavaItemPrototype(bedrockItem, identifier);
+            this.javaItemCache.put(itemKey, prototype);
+        }
+        final Item javaItem = prototype.createItem(bedrockItem.amount());
+
+        final CompoundTag bedrockTag = bedrockItem.tag();
+        if (bedrockTag != null) {
+            if (bedrockTag.get("display") instanceof CompoundTag display) {
+                if (display.contains("Name")) { // Bedrock client defaults to empty string if the type is wrong
+                    javaItem.dataContainer().set(StructuredDataKey.CUSTOM_NAME, TextUtil.stringToNbt(display.getString("Name", "")));
+                }
+            }
+        }
 
+        final String tag = BedrockProtocol.MAPPINGS.getBedrockItemTags().get(identifier);
+        if (ITEM_NBT_REWRITERS.containsKey(tag)) {
+            ITEM_NBT_REWRITERS.get(tag).toJava(this.user(), bedrockItem, javaItem);
+        }
+
+        return javaItem;
+    }
+
+    /**
+     * Creates the part of the java item which only depends on the item id, data, block runtime id and the loaded resource packs.
+     */
+    private JavaItemPrototype createJavaItemPrototype(final BedrockItem bedrockItem, final String identifier) {
         final BedrockMappingData.JavaItemMapping javaItemMapping;
         final Map<BlockState, BedrockMappingData.JavaItemMapping> blockItemMappings = BedrockProtocol.MAPPINGS.getBedrockToJavaBlockItems().get(identifier);
         if (blockItemMappings != null) {
-            if (bedrockItem.blockRuntimeId() == 0) { // Manually constructed items might not have a valid block state set
-                final IntSortedSet validBlockStates = this.blockItemValidBlockStates.get(bedrockItem.identifier());
-                bedrockItem.setBlockRuntimeId(validBlockStates.firstInt());
-            }
             javaItemMapping = blockItemMappings.get(this.user().get(BlockStateRewriter.class).blockState(bedrockItem.blockRuntimeId()));
         } else {
             final int meta = bedrockItem.data() & 0xFFFF;
@@ -154,9 +197,8 @@ public class ItemRewriter extends StoredObject {
             }
         }
 
-        final Item javaItem;
+        final StructuredDataContainer data = ProtocolConstants.createStructuredDataContainer();
         if (javaItemMapping != null) {
-            final StructuredDataContainer data = ProtocolConstants.createStructuredDataContainer();
             if (javaItemMapping.overrideTag() != null) {
                 // javaTag.setValue(this.overrideTag.copy().getValue());
                 // TODO: Update: Fix this
@@ -166,11 +208,10 @@ public class ItemRewriter extends StoredObject {
                 data.set(StructuredDataKey.ITEM_NAME, TextUtil.stringToNbt(resourcePacksStorage.getTexts().get(javaItemMapping.name())));
                 data.set(StructuredDataKey.LORE, new Tag[]{TextUtil.stringToNbt("§7[ViaBedrock] Mapped item: " + identifier)});
             }
-            javaItem = new StructuredItem(javaItemMapping.id(), bedrockItem.amount(), data);
+            return new JavaItemPrototype(javaItemMapping.id(), data);
         } else {
             final ResourcePacksStorage resourcePacksStorage = this.user().get(ResourcePacksStorage.class);
             final ItemDefinitions.ItemDefinition itemDefinition = resourcePacksStorage.getItems().get(identifier);
-            final StructuredDataContainer data = ProtocolConstants.createStructuredDataContainer();
 
             if (itemDefinition != null) {
                 if (itemDefinition.displayNameComponent() != null) {
@@ -194,24 +235,8 @@ public class ItemRewriter extends StoredObject {
                 ViaBedrock.getPlatform().getLogger().log(Level.WARNING, "Missing bedrock -> java item mapping for " + identifier);
                 data.set(StructuredDataKey.ITEM_NAME, TextUtil.stringToNbt("§cMissing item: " + identifier));
             }
-            javaItem = new StructuredItem(BedrockProtocol.MAPPINGS.getJavaItems().get("minecraft:paper"), bedrockItem.amount(), data);
+            return new JavaItemPrototype(BedrockProtocol.MAPPINGS.getJavaItems().get("minecraft:paper"), data);
         }
-
-        final CompoundTag bedrockTag = bedrockItem.tag();
-        if (bedrockTag != null) {
-            if (bedrockTag.get("display") instanceof CompoundTag display) {
-                if (display.contains("Name")) { // Bedrock client defaults to empty string if the type is wrong
-                    javaItem.dataContainer().set(StructuredDataKey.CUSTOM_NAME, TextUtil.stringToNbt(display.getString("Name", "")));
-                }
-            }
-        }
-
-        final String tag = BedrockProtocol.MAPPINGS.getBedrockItemTags().get(identifier);
-        if (ITEM_NBT_REWRITERS.containsKey(tag)) {
-            ITEM_NBT_REWRITERS.get(tag).toJava(this.user(), bedrockItem, javaItem);
-        }
-
-        return javaItem;
     }
 
     public CompoundTag javaItem(final CompoundTag bedrockTag) {
@@ -256,10 +281,44 @@ public class ItemRewriter extends StoredObject {
         return this.itemArrayType;
     }
 
+    /**
+     * Clears the cache of translated java items. Cached items are also invalidated automatically when the resource packs change.
+     */
+    public void clearJavaItemCache() {
+        this.javaItemCache.clear();
+    }
+
     public interface NbtRewriter {
 
         void toJava(final UserConnection user, final BedrockItem bedrockItem, final Item javaItem);
 
     }
 
+    private record ItemKey(int identifier, int data, int blockRuntimeId) {
+    }
+
+    /**
+     * The translated java item without the data which depends on the item tag. Never modified, every translated item gets its own copy.
+     */
+    private record JavaItemPrototype(int id, StructuredDataContainer data) {
+
+        private Item createItem(final int amount) {
+            final StructuredDataContainer data = this.data.copy();
+            final Tag itemName = data.get(StructuredDataKey.ITEM_NAME);
+            if (itemName != null) {
+                data.set(StructuredDataKey.ITEM_NAME, itemName.copy());
+            }
+            final Tag[] lore = data.get(StructuredDataKey.LORE);
+            if (lore != null) {
+                final Tag[] loreCopy = new Tag[lore.length];
+                for (int i = 0; i < lore.length; i++) {
+                    loreCopy[i] = lore[i].copy();
+                }
+                data.set(StructuredDataKey.LORE, loreCopy);
+            }
+            return new StructuredItem(this.id, amount, data);
+        }
+
+    }
+
 }
@@ -32,11 +32,23 @@ import net.raphimc.viabedrock.protocol.storage.ResourcePacksStorage;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.logging.Level;
 
 public class ResourcePackRewriter {
 
     private static final List<Rewriter> REWRITERS = new ArrayList<>();
+    /**
+     * Pool the rewriters and their parallel streams run on. Kept separate from the common pool so conversions don't starve other users of it.
+     */
+    private static final ForkJoinPool CONVERSION_POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), pool -> {
+        final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("ViaBedrock-Pack-Converter-Worker-" + thread.getPoolIndex());
+        return thread;
+    }, null, false);
 
     static {
         REWRITERS.add(new GlyphSheetResourceRewriter());
@@ -46,22 +58,53 @@ public class ResourcePackRewriter {
     }
 
     public static ResourcePack.Content bedrockToJava(final ResourcePacksStorage resourcePacksStorage) {
-        final ResourcePack.Content javaContent = new ResourcePack.Content();
+        return bedrockToJava(resourcePacksStorage, null);
+    }
+
+    /**
+     * Converts the pack stack of a connection into a java resource pack.<br>
+     * All rewriters run concurrently on a fork-join pool and write into a concurrent content. Every output file only depends on the pack stack, so the result is the same regardless of scheduling.
+     *
+     * @param resourcePacksStorage The resource packs of the connection
+     * @param rewriterTimings      If not null, receives the time in milliseconds each rewriter took, keyed by the rewriter class name
+     * @return The converted java resource pack
+     */
+    public static ResourcePack.Content bedrockToJava(final ResourcePacksStorage resourcePacksStorage, final Map<String, Long> rewriterTimings) {
+        final ResourcePack.Content javaContent = new ResourcePack.Content(true);
 
-        for (Rewriter rewriter : REWRITERS) {
-            rewriter.apply(resourcePacksStorage, javaContent);
+        final long[] durations = new long[REWRITERS.size()];
+        final List<ForkJoinTask<?>> tasks = new ArrayList<>(REWRITERS.size());
+        for (int i = 0; i < REWRITERS.size(); i++) {
+            final Rewriter rewriter = REWRITERS.get(i);
+            final int index = i;
+            tasks.add(CONVERSION_POOL.submit(() -> {
+                final long start = System.nanoTime();
+                rewriter.apply(resourcePacksStorage, javaContent);
+                durations[index] = System.nanoTime() - start;
+            }));
         }
 
         javaContent.putJson("pack.mcmeta", createPackManifest());
 
-        final ChannelStorage channelStorage = resourcePacksStorage.user().get(ChannelStorage.class);
-        if (channelStorage.hasChannel(ViaBedrockUtilityInterface.CONFIRM_CHANNEL)) {
+        final ChannelStorage channelStorage = resourcePacksStorage.user() != null ? resourcePacksStorage.user().get(ChannelStorage.class) : null; // null if ran from ResourcePackConverterTest
+        if (channelStorage != null && channelStorage.hasChannel(ViaBedrockUtilityInterface.CONFIRM_CHANNEL)) {
             for (ResourcePack pack : resourcePacksStorage.getPacks()) {
-                try {
-                    javaContent.put("bedrock/" + pack.packId() + ".mcpack", pack.content().toZip());
-                } catch (IOException e) {
-                    ViaBedrock.getPlatform().getLogger().log(Level.WARNING, "Failed to put bedrock pack " + pack.packId() + " into java resource pack", e);
-                }
+                tasks.add(CONVERSION_POOL.submit(() -> {
+                    try {
+                        javaContent.put("bedrock/" + pack.packId() + ".mcpack", pack.content().toZip());
+                    } catch (IOException e) {
+                        ViaBedrock.getPlatform().getLogger().log(Level.WARNING, "Failed to put bedrock pack " + pack.packId() + " into java resource pack", e);
+                    }
+                }));
+            }
+        }
+
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        if (rewriterTimings != null) {
+            for (int i = 0; i < REWRITERS.size(); i++) {
+                rewriterTimings.put(REWRITERS.get(i).getClass().getSimpleName(), durations[i] / 1_000_000L);
             }
         }
 
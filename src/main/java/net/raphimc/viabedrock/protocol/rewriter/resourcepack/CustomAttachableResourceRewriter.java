@@ -27,6 +27,8 @@ import org.cube.converter.converter.enums.RotationType;
 import org.cube.converter.model.impl.bedrock.BedrockGeometryModel;
 import org.cube.converter.model.impl.java.JavaItemModel;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -38,18 +40,14 @@ public class CustomAttachableResourceRewriter extends ItemModelResourceRewriter
 
     @Override
     protected void apply(final ResourcePacksStorage resourcePacksStorage, final ResourcePack.Content javaContent, final Set<String> modelsList) {
-        for (Map.Entry<String, AttachableDefinitions.AttachableDefinition> attachableEntry : resourcePacksStorage.getAttachables().attachables().entrySet()) {
-            for (String bedrockPath : attachableEntry.getValue().attachableData().getTextures().values()) {
-                for (ResourcePack pack : resourcePacksStorage.getPackStackTopToBottom()) {
-                    final ResourcePack.Content bedrockContent = pack.content();
-                    final ResourcePack.Content.LazyImage texture = bedrockContent.getShortnameImage(bedrockPath);
-                    if (texture != null) {
-                        javaContent.putPngImage("assets/viabedrock/textures/" + this.getJavaTexturePath(bedrockPath) + ".png", texture);
-                        break;
-                    }
-                }
-            }
+        final List<Map.Entry<String, AttachableDefinitions.AttachableDefinition>> attachableEntries = new ArrayList<>(resourcePacksStorage.getAttachables().attachables().entrySet());
+        final List<String> bedrockTexturePaths = new ArrayList<>();
+        for (Map.Entry<String, AttachableDefinitions.AttachableDefinition> attachableEntry : attachableEntries) {
+            bedrockTexturePaths.addAll(attachableEntry.getValue().attachableData().getTextures().values());
+        }
+        this.putTextures(resourcePacksStorage, javaContent, bedrockTexturePaths);
 
+        attachableEntries.parallelStream().forEach(attachableEntry -> {
             final AttachableDefinitions.AttachableDefinition attachableDefinition = attachableEntry.getValue();
             for (Map.Entry<String, String> modelEntry : attachableDefinition.attachableData().getGeometries().entrySet()) {
                 final BedrockGeometryModel bedrockGeometry = resourcePacksStorage.getModels().entityModels().get(modelEntry.getValue());
@@ -85,7 +83,7 @@ public class CustomAttachableResourceRewriter extends ItemModelResourceRewriter
                 javaContent.putJson("assets/viabedrock/models/" + this.getJavaModelName(key) + ".json", itemModel);
                 modelsList.add(key);
             }
-        }
+        });
     }
 
 }
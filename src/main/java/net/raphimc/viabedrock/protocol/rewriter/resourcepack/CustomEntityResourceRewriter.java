@@ -24,6 +24,8 @@ import org.cube.converter.converter.enums.RotationType;
 import org.cube.converter.model.impl.bedrock.BedrockGeometryModel;
 import org.cube.converter.model.impl.java.JavaItemModel;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -35,18 +37,14 @@ public class CustomEntityResourceRewriter extends ItemModelResourceRewriter {
 
     @Override
     protected void apply(final ResourcePacksStorage resourcePacksStorage, final ResourcePack.Content javaContent, final Set<String> modelsList) {
-        for (Map.Entry<String, EntityDefinitions.EntityDefinition> entityEntry : resourcePacksStorage.getEntities().entities().entrySet()) {
-            for (String bedrockPath : entityEntry.getValue().entityData().getTextures().values()) {
-                for (ResourcePack pack : resourcePacksStorage.getPackStackTopToBottom()) {
-                    final ResourcePack.Content bedrockContent = pack.content();
-                    final ResourcePack.Content.LazyImage texture = bedrockContent.getShortnameImage(bedrockPath);
-                    if (texture != null) {
-                        javaContent.putPngImage("assets/viabedrock/textures/" + this.getJavaTexturePath(bedrockPath) + ".png", texture);
-                        break;
-                    }
-                }
-            }
+        final List<Map.Entry<String, EntityDefinitions.EntityDefinition>> entityEntries = new ArrayList<>(resourcePacksStorage.getEntities().entities().entrySet());
+        final List<String> bedrockTexturePaths = new ArrayList<>();
+        for (Map.Entry<String, EntityDefinitions.EntityDefinition> entityEntry : entityEntries) {
+            bedrockTexturePaths.addAll(entityEntry.getValue().entityData().getTextures().values());
+        }
+        this.putTextures(resourcePacksStorage, javaContent, bedrockTexturePaths);
 
+        entityEntries.parallelStream().forEach(entityEntry -> {
             final EntityDefinitions.EntityDefinition entityDefinition = entityEntry.getValue();
             for (Map.Entry<String, String> modelEntry : entityDefinition.entityData().getGeometries().entrySet()) {
                 final BedrockGeometryModel bedrockGeometry = resourcePacksStorage.getModels().entityModels().get(modelEntry.getValue());
@@ -61,7 +59,7 @@ public class CustomEntityResourceRewriter extends ItemModelResourceRewriter {
                     modelsList.add(key);
                 }
             }
-        }
+        });
     }
 
 }
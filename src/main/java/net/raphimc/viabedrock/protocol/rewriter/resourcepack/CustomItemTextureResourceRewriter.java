@@ -22,6 +22,7 @@ import net.raphimc.viabedrock.api.model.resourcepack.ResourcePack;
 import net.raphimc.viabedrock.api.model.resourcepack.TextureDefinitions;
 import net.raphimc.viabedrock.protocol.storage.ResourcePacksStorage;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -34,7 +35,16 @@ public class CustomItemTextureResourceRewriter extends ItemModelResourceRewriter
 
     @Override
     protected void apply(final ResourcePacksStorage resourcePacksStorage, final ResourcePack.Content javaContent, final Set<String> modelsList) {
-        for (Map.Entry<String, List<TextureDefinitions.ItemTextureDefinition>> entry : resourcePacksStorage.getTextures().itemTextures().entrySet()) {
+        final List<Map.Entry<String, List<TextureDefinitions.ItemTextureDefinition>>> itemTextureEntries = new ArrayList<>(resourcePacksStorage.getTextures().itemTextures().entrySet());
+        final List<String> bedrockTexturePaths = new ArrayList<>();
+        for (Map.Entry<String, List<TextureDefinitions.ItemTextureDefinition>> itemTextureEntry : itemTextureEntries) {
+            for (TextureDefinitions.ItemTextureDefinition itemTextureDefinition : itemTextureEntry.getValue()) {
+                bedrockTexturePaths.add(itemTextureDefinition.texturePath());
+            }
+        }
+        this.putTextures(resourcePacksStorage, javaContent, bedrockTexturePaths);
+
+        itemTextureEntries.parallelStream().forEach(entry -> {
             for (int i = 0; i < entry.getValue().size(); i++) {
                 final TextureDefinitions.ItemTextureDefinition itemTextureDefinition = entry.getValue().get(i);
                 for (ResourcePack pack : resourcePacksStorage.getPackStackTopToBottom()) {
@@ -42,8 +52,6 @@ public class CustomItemTextureResourceRewriter extends ItemModelResourceRewriter
                     final ResourcePack.Content.LazyImage texture = bedrockContent.getShortnameImage(itemTextureDefinition.texturePath());
                     if (texture == null) continue;
 
-                    javaContent.putPngImage("assets/viabedrock/textures/" + this.getJavaTexturePath(itemTextureDefinition.texturePath()) + ".png", texture);
-
                     final JsonObject itemModel = new JsonObject();
                     itemModel.addProperty("parent", "minecraft:item/generated");
                     final JsonObject layer0 = new JsonObject();
@@ -54,7 +62,7 @@ public class CustomItemTextureResourceRewriter extends ItemModelResourceRewriter
                     break;
                 }
             }
-        }
+        });
     }
 
 }
@@ -24,6 +24,7 @@ import net.raphimc.viabedrock.protocol.rewriter.ResourcePackRewriter;
 import net.raphimc.viabedrock.protocol.storage.ResourcePacksStorage;
 
 import java.util.Locale;
+import java.util.stream.IntStream;
 
 // https://wiki.bedrock.dev/concepts/emojis
 public class GlyphSheetResourceRewriter implements ResourcePackRewriter.Rewriter {
@@ -34,39 +35,11 @@ public class GlyphSheetResourceRewriter implements ResourcePackRewriter.Rewriter
     @Override
     public void apply(final ResourcePacksStorage resourcePacksStorage, final ResourcePack.Content javaContent) {
         final JsonArray providers = new JsonArray();
-
-        for (int i = 0; i < 0xFF; i++) {
-            final String pageName = "glyph_" + String.format("%1$02X", i) + ".png";
-            final String bedrockPath = "font/" + pageName;
-            final String javaPath = "font/" + pageName.toLowerCase(Locale.ROOT);
-
-            for (ResourcePack pack : resourcePacksStorage.getPackStackTopToBottom()) {
-                final ResourcePack.Content bedrockContent = pack.content();
-                if (!bedrockContent.contains(bedrockPath)) continue;
-
-                javaContent.copyFrom(bedrockContent, bedrockPath, "assets/viabedrock/textures/" + javaPath);
-                final ResourcePack.Content.LazyImage image = bedrockContent.getImage(bedrockPath);
-                final int glyphHeight = image.getImage().getHeight() / GLYPHS_PER_COLUMN;
-
-                final JsonObject glyphPage = new JsonObject();
+        IntStream.range(0, 0xFF).parallel().mapToObj(i -> this.convertGlyphPage(resourcePacksStorage, javaContent, i)).toList().forEach(glyphPage -> { // Collected in page order
+            if (glyphPage != null) {
                 providers.add(glyphPage);
-                glyphPage.addProperty("type", "bitmap");
-                glyphPage.addProperty("file", "viabedrock:" + javaPath);
-                glyphPage.addProperty("ascent", glyphHeight / 2 + 5);
-                glyphPage.addProperty("height", glyphHeight);
-                final JsonArray chars = new JsonArray();
-                glyphPage.add("chars", chars);
-                for (int c = 0; c < GLYPHS_PER_COLUMN; c++) {
-                    final StringBuilder row = new StringBuilder();
-                    for (int r = 0; r < GLYPHS_PER_ROW; r++) {
-                        final int idx = c * GLYPHS_PER_COLUMN + r;
-                        row.append((char) (i << 8 | idx));
-                    }
-                    chars.add(row.toString());
-                }
-                break;
             }
-        }
+        });
 
         if (!providers.isEmpty()) {
             final JsonObject defaultJson = new JsonObject();
@@ -75,4 +48,37 @@ public class GlyphSheetResourceRewriter implements ResourcePackRewriter.Rewriter
         }
     }
 
+    private JsonObject convertGlyphPage(final ResourcePacksStorage resourcePacksStorage, final ResourcePack.Content javaContent, final int i) {
+        final String pageName = "glyph_" + String.format("%1$02X", i) + ".png";
+        final String bedrockPath = "font/" + pageName;
+        final String javaPath = "font/" + pageName.toLowerCase(Locale.ROOT);
+
+        for (ResourcePack pack : resourcePacksStorage.getPackStackTopToBottom()) {
+            final ResourcePack.Content bedrockContent = pack.content();
+            if (!bedrockContent.contains(bedrockPath)) continue;
+
+            javaContent.copyFrom(bedrockContent, bedrockPath, "assets/viabedrock/textures/" + javaPath);
+            final ResourcePack.Content.LazyImage image = bedrockContent.getImage(bedrockPath);
+            final int glyphHeight = image.getImage().getHeight() / GLYPHS_PER_COLUMN;
+
+            final JsonObject glyphPage = new JsonObject();
+            glyphPage.addProperty("type", "bitmap");
+            glyphPage.addProperty("file", "viabedrock:" + javaPath);
+            glyphPage.addProperty("ascent", glyphHeight / 2 + 5);
+            glyphPage.addProperty("height", glyphHeight);
+            final JsonArray chars = new JsonArray();
+            glyphPage.add("chars", chars);
+            for (int c = 0; c < GLYPHS_PER_COLUMN; c++) {
+                final StringBuilder row = new StringBuilder();
+                for (int r = 0; r < GLYPHS_PER_ROW; r++) {
+                    final int idx = c * GLYPHS_PER_COLUMN + r;
+                    row.append((char) (i << 8 | idx));
+                }
+                chars.add(row.toString());
+            }
+            return glyphPage;
+        }
+        return null;
+    }
+
 }
@@ -25,8 +25,14 @@ import net.raphimc.viabedrock.api.util.StringUtil;
 import net.raphimc.viabedrock.protocol.rewriter.ResourcePackRewriter;
 import net.raphimc.viabedrock.protocol.storage.ResourcePacksStorage;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 public abstract class ItemModelResourceRewriter implements ResourcePackRewriter.Rewriter {
 
@@ -44,11 +50,11 @@ public abstract class ItemModelResourceRewriter implements ResourcePackRewriter.
 
     @Override
     public final void apply(final ResourcePacksStorage resourcePacksStorage, final ResourcePack.Content javaContent) {
-        final Set<String> modelsList = new HashSet<>();
+        final Set<String> modelsList = ConcurrentHashMap.newKeySet(); // Filled from parallel streams
         this.apply(resourcePacksStorage, javaContent, modelsList);
         if (!modelsList.isEmpty()) {
             final JsonArray cases = new JsonArray();
-            for (String modelKey : modelsList) {
+            for (String modelKey : new TreeSet<>(modelsList)) { // Sorted to not depend on the order the models were converted in
                 final JsonObject caseObj = new JsonObject();
                 caseObj.addProperty("when", modelKey);
 
@@ -70,8 +76,40 @@ public abstract class ItemModelResourceRewriter implements ResourcePackRewriter.
         }
     }
 
+    /**
+     * Converts the given models into java models. Implementations may convert in parallel, so all writes have to be thread safe.
+     *
+     * @param resourcePacksStorage The resource packs of the connection
+     * @param javaContent          The concurrent java pack content
+     * @param modelsList           The concurrent set to add the keys of the converted models to
+     */
     protected abstract void apply(final ResourcePacksStorage resourcePacksStorage, final ResourcePack.Content javaContent, final Set<String> modelsList);
 
+    /**
+     * Converts the given textures in parallel. Every texture is taken from the topmost pack which contains it.<br>
+     * Bedrock paths which map to the same java path are resolved before the parallel write, so the output doesn't depend on thread timing. The last one in sorted order which exists in any pack wins.
+     */
+    protected void putTextures(final ResourcePacksStorage resourcePacksStorage, final ResourcePack.Content javaContent, final Collection<String> bedrockPaths) {
+        final Map<String, List<String>> bedrockPathsByJavaPath = new HashMap<>();
+        for (String bedrockPath : new TreeSet<>(bedrockPaths)) {
+            bedrockPathsByJavaPath.computeIfAbsent(this.getJavaTexturePath(bedrockPath), javaPath -> new ArrayList<>(1)).add(bedrockPath);
+        }
+
+        bedrockPathsByJavaPath.entrySet().parallelStream().forEach(entry -> {
+            final List<String> candidates = entry.getValue();
+            for (int i = candidates.size() - 1; i >= 0; i--) {
+                for (ResourcePack pack : resourcePacksStorage.getPackStackTopToBottom()) {
+                    final ResourcePack.Content bedrockContent = pack.content();
+                    final ResourcePack.Content.LazyImage texture = bedrockContent.getShortnameImage(candidates.get(i));
+                    if (texture != null) {
+                        javaContent.putPngImage("assets/viabedrock/textures/" + entry.getKey() + ".png", texture);
+                        return;
+                    }
+                }
+            }
+        });
+    }
+
     protected String getJavaModelName(final String bedrockName) {
         return this.subFolder + '/' + StringUtil.makeIdentifierValueSafe(bedrockName);
     }
@@ -21,7 +21,9 @@ import com.viaversion.viaversion.api.Via;
 import com.viaversion.viaversion.api.connection.StoredObject;
 import com.viaversion.viaversion.api.connection.UserConnection;
 import com.viaversion.viaversion.api.protocol.packet.PacketWrapper;
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
 import net.jpountz.xxhash.XXHash64;
 import net.jpountz.xxhash.XXHashFactory;
 import net.raphimc.viabedrock.protocol.BedrockProtocol;
@@ -29,52 +31,65 @@ import net.raphimc.viabedrock.protocol.ServerboundBedrockPackets;
 import net.raphimc.viabedrock.protocol.provider.BlobCacheProvider;
 import net.raphimc.viabedrock.protocol.types.BedrockTypes;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class BlobCache extends StoredObject {
 
     private static final XXHash64 XXHASH64 = XXHashFactory.fastestInstance().hash64();
+    private static final long SUBSCRIPTION_TIMEOUT = 5000; // After this time a blob requested by another connection is requested from the own server as well
 
     private final Map<Long, CompletableFuture<byte[]>> pending = new HashMap<>();
-    private final List<Long> missing = new ArrayList<>();
-    private final List<Long> acked = new ArrayList<>();
+    private final LongQueue missing = new LongQueue();
+    private final LongQueue acked = new LongQueue();
+    private final Set<Long> requested = new HashSet<>(); // Blobs which were requested from the server and not received from it yet
+    private final Map<Long, Long> subscriptions = new HashMap<>(); // Blobs which another connection requested -> time of subscription
 
     public BlobCache(final UserConnection user) {
         super(user);
     }
 
     public void tick() {
+        if (!this.subscriptions.isEmpty()) {
+            final long now = System.currentTimeMillis();
+            final Iterator<Map.Entry<Long, Long>> iterator = this.subscriptions.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final Map.Entry<Long, Long> entry = iterator.next();
+                if (now - entry.getValue() < SUBSCRIPTION_TIMEOUT) continue;
+
+                iterator.remove();
+                if (this.pending.containsKey(entry.getKey())) { // The other connection might never receive the blob
+                    BlobRequestCoordinator.INSTANCE.unsubscribe(entry.getKey(), this);
+                    this.requestBlob(entry.getKey());
+                }
+            }
+        }
         if (this.missing.isEmpty() && this.acked.isEmpty()) {
             return;
         }
 
-        final List<Long> missingSubSet = this.missing.subList(0, Math.min(1024, this.missing.size()));
-        final List<Long> ackedSubSet = this.acked.subList(0, Math.min(1024, this.acked.size()));
+        final int missingCount = Math.min(1024, this.missing.size());
+        final int ackedCount = Math.min(1024, this.acked.size());
 
         final PacketWrapper clientCacheBlobStatus = PacketWrapper.create(ServerboundBedrockPackets.CLIENT_CACHE_BLOB_STATUS, this.user());
-        clientCacheBlobStatus.write(BedrockTypes.UNSIGNED_VAR_INT, missingSubSet.size()); // missing blob count
-        clientCacheBlobStatus.write(BedrockTypes.UNSIGNED_VAR_INT, ackedSubSet.size()); // acked blob count
-        for (long hash : missingSubSet) {
-            clientCacheBlobStatus.write(BedrockTypes.LONG_LE, hash); // missing blob hash
+        clientCacheBlobStatus.write(BedrockTypes.UNSIGNED_VAR_INT, missingCount); // missing blob count
+        clientCacheBlobStatus.write(BedrockTypes.UNSIGNED_VAR_INT, ackedCount); // acked blob count
+        for (int i = 0; i < missingCount; i++) {
+            clientCacheBlobStatus.write(BedrockTypes.LONG_LE, this.missing.poll()); // missing blob hash
         }
-        for (long hash : ackedSubSet) {
-            clientCacheBlobStatus.write(BedrockTypes.LONG_LE, hash); // acked blob hash
+        for (int i = 0; i < ackedCount; i++) {
+            clientCacheBlobStatus.write(BedrockTypes.LONG_LE, this.acked.poll()); // acked blob hash
         }
         clientCacheBlobStatus.sendToServer(BedrockProtocol.class);
-
-        this.missing.removeAll(missingSubSet);
-        this.acked.removeAll(ackedSubSet);
     }
 
     public void addBlob(final long hash, final byte[] blob) {
         // Blob validation: https://github.com/Mojang/bedrock-protocol-docs/blob/e8b16c2ada3de6946c2d09f76a477d37aa1c074b/additional_docs/ClientCacheMissResponsePacketValidation.md
         if (!this.pending.containsKey(hash)) {
+            if (this.requested.remove(hash)) { // Another connection received the blob first
+                return;
+            }
             throw new IllegalStateException("Received unexpected blob: " + hash + " (" + ByteBufUtil.hexDump(blob) + ")");
         }
         final long expectedHash = XXHASH64.hash(blob, 0, blob.length, 0);
@@ -82,9 +97,15 @@ public class BlobCache extends StoredObject {
             throw new IllegalStateException("Received blob with unexpected hash: " + hash + " != " + expectedHash + " (" + ByteBufUtil.hexDump(blob) + ")");
         }
 
-        Via.getManager().getProviders().get(BlobCacheProvider.class).addBlob(hash, blob);
+        final BlobCacheProvider blobCacheProvider = Via.getManager().getProviders().get(BlobCacheProvider.class);
+        if (!blobCacheProvider.hasBlob(hash)) {
+            blobCacheProvider.addBlob(hash, blob);
+        }
         this.acked.add(hash);
+        this.requested.remove(hash);
+        this.subscriptions.remove(hash);
         this.pending.remove(hash).complete(blob);
+        BlobRequestCoordinator.INSTANCE.complete(hash, blob, this);
     }
 
     public boolean hasBlob(final long... hashes) {
@@ -96,11 +117,11 @@ public class BlobCache extends StoredObject {
         return true;
     }
 
-    public CompletableFuture<byte[]> getBlob(final long... hashes) {
+    public CompletableFuture<ByteBuf> getBlob(final long... hashes) {
         return this.getBlob(true, hashes);
     }
 
-    public CompletableFuture<byte[]> getBlob(final Long[] hashes) {
+    public CompletableFuture<ByteBuf> getBlob(final Long[] hashes) {
         final long[] longs = new long[hashes.length];
         for (int i = 0; i < hashes.length; i++) {
             longs[i] = hashes[i];
@@ -109,54 +130,138 @@ public class BlobCache extends StoredObject {
         return this.getBlob(true, longs);
     }
 
-    public CompletableFuture<byte[]> getBlob(final boolean acknowledge, final long... hashes) {
-        if (acknowledge) {
-            for (long hash : hashes) {
-                if (this.hasBlob(hash)) {
+    /**
+     * Gets the concatenated blobs of the given hashes. Blobs which are not cached yet are requested from the server.<br>
+     * The returned buffer is a view over the cached blobs and has to be released by the caller.
+     *
+     * @param acknowledge Whether the blobs should be acknowledged or requested from the server
+     * @param hashes      The hashes of the blobs
+     * @return A future which is completed with the concatenated blobs once all blobs are available
+     */
+    public CompletableFuture<ByteBuf> getBlob(final boolean acknowledge, final long... hashes) {
+        final BlobCacheProvider blobCacheProvider = Via.getManager().getProviders().get(BlobCacheProvider.class);
+        final ByteBuf[] blobs = new ByteBuf[hashes.length];
+        final CompletableFuture<byte[]>[] pendingBlobs = new CompletableFuture[hashes.length];
+        final List<CompletableFuture<byte[]>> missingBlobs = new ArrayList<>();
+        for (int i = 0; i < hashes.length; i++) {
+            final long hash = hashes[i];
+            blobs[i] = blobCacheProvider.getBlobBuffer(hash); // Only looked up once, as the shared cache might evict the blob at any time
+            if (blobs[i] != null) {
+                if (acknowledge) {
                     this.acked.add(hash);
-                } else if (!this.pending.containsKey(hash)) {
-                    this.missing.add(hash);
                 }
+            } else { // The blob is used from the pending future instead of the cache, so it doesn't matter if the cache evicts it in the meantime
+                if (acknowledge && !this.pending.containsKey(hash)) {
+                    if (BlobRequestCoordinator.INSTANCE.request(hash, this)) { // Only request the blob if no other connection is already waiting for it
+                        this.requestBlob(hash);
+                    } else {
+                        this.subscriptions.put(hash, System.currentTimeMillis());
+                    }
+                }
+                missingBlobs.add(pendingBlobs[i] = this.pending.computeIfAbsent(hash, h -> new CompletableFuture<>()));
             }
         }
+        if (missingBlobs.isEmpty()) {
+            return CompletableFuture.completedFuture(concat(blobs));
+        }
 
-        if (this.hasBlob(hashes)) {
-            final ByteArrayOutputStream output = new ByteArrayOutputStream();
-            try {
-                for (long hash : hashes) {
-                    output.write(Via.getManager().getProviders().get(BlobCacheProvider.class).getBlob(hash));
+        return CompletableFuture.allOf(missingBlobs.toArray(new CompletableFuture[0])).handle((unused, throwable) -> {
+            if (throwable != null) {
+                for (ByteBuf blob : blobs) {
+                    if (blob != null) {
+                        blob.release();
+                    }
                 }
-            } catch (final IOException ignored) {
+                throw new CompletionException(throwable);
             }
-            return CompletableFuture.completedFuture(output.toByteArray());
-        }
+            for (int i = 0; i < pendingBlobs.length; i++) {
+                if (pendingBlobs[i] != null) {
+                    blobs[i] = Unpooled.wrappedBuffer(pendingBlobs[i].join());
+                }
+            }
+            return concat(blobs);
+        });
+    }
 
-        final CompletableFuture<byte[]> rootFuture = new CompletableFuture<>();
-        for (long hash : hashes) {
-            if (this.hasBlob(hash)) continue;
-
-            CompletableFuture<byte[]> subFuture = new CompletableFuture<>();
-            final CompletableFuture<byte[]> existing = this.pending.get(hash);
-            if (existing != null) {
-                subFuture.whenComplete((blob, throwable) -> {
-                    if (throwable != null) {
-                        existing.completeExceptionally(throwable);
-                    } else {
-                        existing.complete(blob);
-                    }
-                });
+    @Override
+    public void onRemove() {
+        BlobRequestCoordinator.INSTANCE.release(this);
+    }
+
+    /**
+     * Called by the {@link BlobRequestCoordinator} when another connection received a blob this connection is waiting for.
+     */
+    void receiveSharedBlob(final long hash, final byte[] blob) {
+        this.user().getChannel().eventLoop().execute(() -> {
+            this.subscriptions.remove(hash);
+            final CompletableFuture<byte[]> future = this.pending.remove(hash);
+            if (future != null) {
+                this.acked.add(hash);
+                future.complete(blob);
             }
-            subFuture.whenComplete((blob, throwable) -> {
-                if (throwable != null) {
-                    rootFuture.completeExceptionally(throwable);
-                } else if (this.hasBlob(hashes)) {
-                    rootFuture.complete(this.getBlob(false, hashes).getNow(null));
+        });
+    }
+
+    /**
+     * Called by the {@link BlobRequestCoordinator} when the connection which requested a blob closed before receiving it.
+     */
+    void takeOverRequest(final long hash) {
+        this.user().getChannel().eventLoop().execute(() -> {
+            this.subscriptions.remove(hash);
+            if (this.pending.containsKey(hash)) {
+                this.requestBlob(hash);
+            }
+        });
+    }
+
+    private void requestBlob(final long hash) {
+        this.missing.add(hash);
+        this.requested.add(hash);
+    }
+
+    private static ByteBuf concat(final ByteBuf[] blobs) {
+        return blobs.length == 1 ? blobs[0] : Unpooled.wrappedBuffer(blobs);
+    }
+
+    /**
+     * Growable ring buffer of primitive longs.
+     */
+    private static class LongQueue {
+
+        private long[] elements = new long[64];
+        private int head;
+        private int size;
+
+        private void add(final long value) {
+            if (this.size == this.elements.length) {
+                final long[] newElements = new long[this.elements.length * 2];
+                for (int i = 0; i < this.size; i++) {
+                    newElements[i] = this.elements[(this.head + i) & (this.elements.length - 1)];
                 }
-            });
-            this.pending.put(hash, subFuture);
+                this.elements = newElements;
+                this.head = 0;
+            }
+            this.elements[(this.head + this.size++) & (this.elements.length - 1)] = value;
+        }
+
+        private long poll() {
+            if (this.size == 0) {
+                throw new NoSuchElementException();
+            }
+            final long value = this.elements[this.head];
+            this.head = (this.head + 1) & (this.elements.length - 1);
+            this.size--;
+            return value;
+        }
+
+        private int size() {
+            return this.size;
+        }
+
+        private boolean isEmpty() {
+            return this.size == 0;
         }
 
-        return rootFuture;
     }
 
 }
@@ -0,0 +1,138 @@
+/*
+ * This file is part of ViaBedrock - https://github.com/RaphiMC/ViaBedrock
+ * Copyright (C) 2023-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.viabedrock.protocol.storage;
+
+import java.util.*;
+
+/**
+ * Process-wide coordinator for blobs which are requested from a server.<br>
+ * Blobs are content addressed, so if multiple connections miss the same blob, only the first one requests it from its server.
+ * The other connections subscribe to the request and receive the blob once it arrived and was validated.
+ * If the requesting connection closes before the blob arrived, one of the subscribers takes over the request.
+ * Subscribers which wait too long unsubscribe and request the blob from their own server.
+ */
+public class BlobRequestCoordinator {
+
+    public static final BlobRequestCoordinator INSTANCE = new BlobRequestCoordinator();
+
+    private final Map<Long, BlobRequest> requests = new HashMap<>();
+
+    /**
+     * Registers the interest of a connection in a blob.
+     *
+     * @param hash      The hash of the blob
+     * @param blobCache The blob cache of the connection
+     * @return true if the connection has to request the blob from its server, false if another connection already requested it
+     */
+    public synchronized boolean request(final long hash, final BlobCache blobCache) {
+        final BlobRequest request = this.requests.get(hash);
+        if (request == null) {
+            this.requests.put(hash, new BlobRequest(blobCache));
+            return true;
+        } else if (request.owner != blobCache && !request.subscribers.contains(blobCache)) {
+            request.subscribers.add(blobCache);
+        }
+        return false;
+    }
+
+    /**
+     * Removes the interest of a subscribed connection in a blob. Used when the connection requests the blob from its own server instead.
+     *
+     * @param hash      The hash of the blob
+     * @param blobCache The blob cache of the connection
+     */
+    public synchronized void unsubscribe(final long hash, final BlobCache blobCache) {
+        final BlobRequest request = this.requests.get(hash);
+        if (request != null) {
+            request.subscribers.remove(blobCache);
+        }
+    }
+
+    /**
+     * Completes the request of a blob and passes the blob to all subscribed connections.
+     *
+     * @param hash      The hash of the blob
+     * @param blob      The validated blob
+     * @param blobCache The blob cache of the connection which received the blob
+     */
+    public void complete(final long hash, final byte[] blob, final BlobCache blobCache) {
+        final BlobRequest request;
+        synchronized (this) {
+            request = this.requests.remove(hash);
+        }
+        if (request == null) return;
+
+        if (request.owner != blobCache) {
+            request.owner.receiveSharedBlob(hash, blob);
+        }
+        for (BlobCache subscriber : request.subscribers) {
+            if (subscriber != blobCache) {
+                subscriber.receiveSharedBlob(hash, blob);
+            }
+        }
+    }
+
+    /**
+     * Removes a connection from all requests. Requests owned by the connection are handed over to a subscriber.
+     *
+     * @param blobCache The blob cache of the closed connection
+     */
+    public void release(final BlobCache blobCache) {
+        final List<Map.Entry<Long, BlobCache>> handovers = new ArrayList<>();
+        synchronized (this) {
+            final Iterator<Map.Entry<Long, BlobRequest>> iterator = this.requests.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final Map.Entry<Long, BlobRequest> entry = iterator.next();
+                final BlobRequest request = entry.getValue();
+                if (request.owner == blobCache) {
+                    if (request.subscribers.isEmpty()) {
+                        iterator.remove();
+                    } else {
+                        request.owner = request.subscribers.remove(0);
+                        handovers.add(Map.entry(entry.getKey(), request.owner));
+                    }
+                } else {
+                    request.subscribers.remove(blobCache);
+                }
+            }
+        }
+
+        for (Map.Entry<Long, BlobCache> handover : handovers) {
+            handover.getValue().takeOverRequest(handover.getKey());
+        }
+    }
+
+    /**
+     * @return The amount of blobs which are currently requested from any server
+     */
+    public synchronized int getInFlightCount() {
+        return this.requests.size();
+    }
+
+    private static class BlobRequest {
+
+        private final List<BlobCache> subscribers = new ArrayList<>(1);
+        private BlobCache owner;
+
+        private BlobRequest(final BlobCache owner) {
+            this.owner = owner;
+        }
+
+    }
+
+}
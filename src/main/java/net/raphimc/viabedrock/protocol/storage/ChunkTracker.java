@@ -20,6 +20,8 @@ package net.raphimc.viabedrock.protocol.storage;
 import com.viaversion.nbt.tag.CompoundTag;
 import com.viaversion.viaversion.api.connection.StoredObject;
 import com.viaversion.viaversion.api.connection.UserConnection;
+import com.viaversion.viaversion.api.minecraft.BlockChangeRecord;
+import com.viaversion.viaversion.api.minecraft.BlockChangeRecord1_16_2;
 import com.viaversion.viaversion.api.minecraft.BlockPosition;
 import com.viaversion.viaversion.api.minecraft.ChunkPosition;
 import com.viaversion.viaversion.api.minecraft.blockentity.BlockEntity;
@@ -37,13 +39,19 @@ import net.raphimc.viabedrock.ViaBedrock;
 import net.raphimc.viabedrock.api.chunk.BedrockBlockEntity;
 import net.raphimc.viabedrock.api.chunk.BedrockChunk;
 import net.raphimc.viabedrock.api.chunk.BlockEntityWithBlockState;
+import net.raphimc.viabedrock.api.chunk.ChunkLightEncoder;
+import net.raphimc.viabedrock.api.chunk.ChunkRemapExecutor;
+import net.raphimc.viabedrock.api.chunk.RemappedChunkSection;
+import net.raphimc.viabedrock.api.chunk.datapalette.BedrockBiomeArray;
 import net.raphimc.viabedrock.api.chunk.datapalette.BedrockBlockArray;
 import net.raphimc.viabedrock.api.chunk.datapalette.BedrockDataPalette;
 import net.raphimc.viabedrock.api.chunk.section.BedrockChunkSection;
 import net.raphimc.viabedrock.api.chunk.section.BedrockChunkSectionImpl;
 import net.raphimc.viabedrock.api.model.BedrockBlockState;
+import net.raphimc.viabedrock.api.util.PacketFactory;
 import net.raphimc.viabedrock.protocol.BedrockProtocol;
 import net.raphimc.viabedrock.protocol.ServerboundBedrockPackets;
+import net.raphimc.viabedrock.protocol.data.ProtocolConstants;
 import net.raphimc.viabedrock.protocol.data.enums.Dimension;
 import net.raphimc.viabedrock.protocol.data.enums.java.HeightmapType;
 import net.raphimc.viabedrock.protocol.model.Position3f;
@@ -52,18 +60,14 @@ import net.raphimc.viabedrock.protocol.rewriter.BlockStateRewriter;
 import net.raphimc.viabedrock.protocol.types.BedrockTypes;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 
 // TODO: Feature: Block connections
-// TODO: Feature: Lighting
 public class ChunkTracker extends StoredObject {
 
-    private static final byte[] FULL_LIGHT = new byte[ChunkSectionLight.LIGHT_LENGTH];
-
-    static {
-        Arrays.fill(FULL_LIGHT, (byte) 0xFF);
-    }
+    private static final int MAX_SECTION_BLOCK_CHANGES = 1024; // Above this amount of changes in a single section the whole chunk is resent
 
     private final Dimension dimension;
     private final int minY;
@@ -76,6 +80,9 @@ public class ChunkTracker extends StoredObject {
     private final Set<SubChunkPosition> subChunkRequests = new HashSet<>();
     private final Set<SubChunkPosition> pendingSubChunks = new HashSet<>();
 
+    private final Map<Long, PendingChunk> pendingChunks = new HashMap<>();
+    private final Queue<PendingChunk> pendingChunkQueue = new ArrayDeque<>();
+
     private int centerX = 0;
     private int centerZ = 0;
     private int radius;
@@ -129,12 +136,14 @@ public class ChunkTracker extends StoredObject {
                 chunk.getSections()[i] = new BedrockChunkSectionImpl(true);
             }
         }
+        this.cancelPendingChunk(ChunkPosition.chunkKey(chunk.getX(), chunk.getZ()));
         this.chunks.put(ChunkPosition.chunkKey(chunk.getX(), chunk.getZ()), chunk);
         return chunk;
     }
 
     public void unloadChunk(final ChunkPosition chunkPos) {
         this.chunks.remove(chunkPos.chunkKey());
+        this.cancelPendingChunk(chunkPos.chunkKey());
         this.user().get(EntityTracker.class).removeItemFrame(chunkPos);
 
         final PacketWrapper unloadChunk = PacketWrapper.create(ClientboundPackets1_21_9.FORGET_LEVEL_CHUNK, this.user());
@@ -196,7 +205,7 @@ public class ChunkTracker extends StoredObject {
 
         if (blockPalettes.size() > 1) {
             final int layer1BlockState = blockPalettes.get(1).idAt(sectionX, sectionY, sectionZ);
-            if (BlockStateRewriter.TAG_WATER.equals(blockStateRewriter.tag(layer1BlockState))) { // Waterlogging
+            if (blockStateRewriter.tagId(layer1BlockState) == blockStateRewriter.waterTagId()) { // Waterlogging
                 final int prevBlockState = remappedBlockState;
                 remappedBlockState = blockStateRewriter.waterlog(remappedBlockState);
                 if (remappedBlockState == -1) {
@@ -221,6 +230,10 @@ public class ChunkTracker extends StoredObject {
 
         chunk.removeBlockEntityAt(bedrockBlockEntity.position());
         chunk.blockEntities().add(bedrockBlockEntity);
+        final BedrockChunkSection section = this.getChunkSection(bedrockBlockEntity.position());
+        if (section != null) {
+            section.invalidateRemappedSection();
+        }
     }
 
     public boolean isChunkLoaded(final ChunkPosition chunkPos) {
@@ -241,7 +254,7 @@ public class ChunkTracker extends StoredObject {
         if (chunkSection.hasPendingBlockUpdates()) {
             return true;
         }
-        return this.dirtyChunks.contains(chunkPos.chunkKey());
+        return this.dirtyChunks.contains(chunkPos.chunkKey()) || this.pendingChunks.containsKey(chunkPos.chunkKey());
     }
 
     public boolean isInLoadDistance(final int chunkX, final int chunkZ) {
@@ -332,18 +345,24 @@ public class ChunkTracker extends StoredObject {
         }
         final DataPalette palette = section.palettes(PaletteType.BLOCKS).get(layer);
         final int prevBlockState = palette.idAt(sectionX, sectionY, sectionZ);
-        final String prevTag = blockStateRewriter.tag(prevBlockState);
-        final String tag = blockStateRewriter.tag(blockState);
+        final byte prevTagId = blockStateRewriter.tagId(prevBlockState);
+        final byte tagId = blockStateRewriter.tagId(blockState);
         palette.setIdAt(sectionX, sectionY, sectionZ, blockState);
+        section.invalidateRemappedSection();
 
         int remappedBlockState = this.getJavaBlockState(section, sectionX, sectionY, sectionZ);
-        if (!Objects.equals(prevTag, tag)) {
+        final long chunkKey = ChunkPosition.chunkKey(blockPosition.x() >> 4, blockPosition.z() >> 4);
+        if (this.pendingChunks.containsKey(chunkKey)) { // The java client doesn't have the chunk yet and the pending chunk is based on outdated data
+            this.dirtyChunks.add(chunkKey);
+        }
+        if (prevTagId != tagId) {
             this.getChunk(blockPosition.x() >> 4, blockPosition.z() >> 4).removeBlockEntityAt(blockPosition);
             entityTracker.removeItemFrame(blockPosition);
         }
 
         if (prevBlockState != blockState) {
-            if (BlockEntityRewriter.isJavaBlockEntity(tag)) {
+            if (blockStateRewriter.isJavaBlockEntity(tagId)) {
+                final String tag = blockStateRewriter.tagName(tagId);
                 final BedrockBlockEntity bedrockBlockEntity = this.getBlockEntity(blockPosition);
                 BlockEntity javaBlockEntity = null;
                 if (bedrockBlockEntity != null) {
@@ -359,7 +378,7 @@ public class ChunkTracker extends StoredObject {
                 if (javaBlockEntity != null && javaBlockEntity.tag() != null) {
                     return new IntObjectImmutablePair<>(remappedBlockState, javaBlockEntity);
                 }
-            } else if (BlockStateRewriter.TAG_ITEM_FRAME.equals(tag)) {
+            } else if (tagId == blockStateRewriter.itemFrameTagId()) {
                 entityTracker.spawnItemFrame(blockPosition, blockStateRewriter.blockState(blockState));
             }
         }
@@ -383,22 +402,34 @@ public class ChunkTracker extends StoredObject {
             return;
         }
 
-        final Chunk remappedChunk = this.remapChunk(chunk);
+        final BlockStateRewriter blockStateRewriter = this.user().get(BlockStateRewriter.class);
+        final int airId = this.airId();
 
-        final PacketWrapper levelChunkWithLight = PacketWrapper.create(ClientboundPackets1_21_9.LEVEL_CHUNK_WITH_LIGHT, this.user());
-        final BitSet lightMask = new BitSet();
-        lightMask.set(0, remappedChunk.getSections().length + 2);
-        levelChunkWithLight.write(this.chunkType, remappedChunk); // chunk
-        levelChunkWithLight.write(Types.LONG_ARRAY_PRIMITIVE, lightMask.toLongArray()); // sky light mask
-        levelChunkWithLight.write(Types.LONG_ARRAY_PRIMITIVE, new long[0]); // block light mask
-        levelChunkWithLight.write(Types.LONG_ARRAY_PRIMITIVE, new long[0]); // empty sky light mask
-        levelChunkWithLight.write(Types.LONG_ARRAY_PRIMITIVE, lightMask.toLongArray()); // empty block light mask
-        levelChunkWithLight.write(Types.VAR_INT, remappedChunk.getSections().length + 2); // sky light length
-        for (int i = 0; i < remappedChunk.getSections().length + 2; i++) {
-            levelChunkWithLight.write(Types.BYTE_ARRAY_PRIMITIVE, FULL_LIGHT.clone()); // sky light
-        }
-        levelChunkWithLight.write(Types.VAR_INT, 0); // block light length
-        levelChunkWithLight.send(BedrockProtocol.class);
+        // Only sections which changed since they were last remapped have to be remapped again
+        final BedrockChunkSection[] outdatedSections = new BedrockChunkSection[chunk.getSections().length];
+        final int[] modificationCounts = new int[outdatedSections.length];
+        for (int i = 0; i < outdatedSections.length; i++) {
+            final BedrockChunkSection section = chunk.getSections()[i];
+            if (!section.isRemappedSectionValid()) {
+                outdatedSections[i] = section;
+                modificationCounts[i] = section.getModificationCount();
+            }
+        }
+
+        final ChunkRemapExecutor chunkRemapExecutor = ViaBedrock.getChunkRemapExecutor();
+        if (chunkRemapExecutor == null) {
+            this.sendChunk(chunk, remapSections(blockStateRewriter, outdatedSections, airId), modificationCounts);
+            return;
+        }
+
+        final long chunkKey = ChunkPosition.chunkKey(chunkX, chunkZ);
+        this.cancelPendingChunk(chunkKey);
+        final BedrockChunkSection[] sectionsSnapshot = snapshotSections(outdatedSections);
+        final PendingChunk pendingChunk = new PendingChunk(chunkKey, chunk, modificationCounts);
+        pendingChunk.future = chunkRemapExecutor.submit(() -> pendingChunk.cancelled ? null : remapSections(blockStateRewriter, sectionsSnapshot, airId));
+        this.pendingChunks.put(chunkKey, pendingChunk);
+        this.pendingChunkQueue.add(pendingChunk);
+        pendingChunk.future.whenComplete((sections, throwable) -> this.user().getChannel().eventLoop().execute(this::sendPendingChunks));
     }
 
     public Dimension getDimension() {
@@ -458,29 +489,188 @@ public class ChunkTracker extends StoredObject {
         }
     }
 
-    private Chunk remapChunk(final BedrockChunk chunk) {
-        final BlockStateRewriter blockStateRewriter = this.user().get(BlockStateRewriter.class);
-        final int airId = this.airId();
+    /**
+     * Sends the chunk to the java client. If the client already has the chunk, only the changed blocks are sent.
+     *
+     * @param chunk              The bedrock chunk
+     * @param updatedSections    The newly remapped chunk sections (null for sections which didn't change)
+     * @param modificationCounts The modification counts of the bedrock chunk sections at the time they were remapped
+     */
+    private void sendChunk(final BedrockChunk chunk, final RemappedChunkSection[] updatedSections, final int[] modificationCounts) {
+        final BedrockChunkSection[] bedrockSections = chunk.getSections();
+        final RemappedChunkSection[] sections = new RemappedChunkSection[bedrockSections.length];
+        final RemappedChunkSection[] previousSections = new RemappedChunkSection[bedrockSections.length];
+        for (int idx = 0; idx < sections.length; idx++) {
+            final BedrockChunkSection bedrockSection = bedrockSections[idx];
+            if (updatedSections[idx] == null) {
+                sections[idx] = bedrockSection.getRemappedSection();
+                continue;
+            }
 
-        final Chunk remappedChunk = new Chunk1_21_5(chunk.getX(), chunk.getZ(), new ChunkSection[chunk.getSections().length], new Heightmap[2], new ArrayList<>());
+            this.finishSection(chunk, idx, updatedSections[idx]);
+            sections[idx] = updatedSections[idx];
+            previousSections[idx] = bedrockSection.getRemappedSection();
+            bedrockSection.setRemappedSection(updatedSections[idx]);
+            if (bedrockSection.getModificationCount() != modificationCounts[idx]) { // The section changed while it was being remapped
+                bedrockSection.invalidateRemappedSection();
+            }
+        }
 
-        final BedrockChunkSection[] bedrockSections = chunk.getSections();
-        final ChunkSection[] remappedSections = remappedChunk.getSections();
+        if (chunk.isSentToJavaClient() && this.sendSectionUpdates(chunk, updatedSections, previousSections)) {
+            return;
+        }
+
+        final Chunk remappedChunk = this.createJavaChunk(chunk, sections);
+        final PacketWrapper levelChunkWithLight = PacketWrapper.create(ClientboundPackets1_21_9.LEVEL_CHUNK_WITH_LIGHT, this.user());
+        levelChunkWithLight.write(this.chunkType, remappedChunk); // chunk
+        this.writeLight(levelChunkWithLight, chunk); // light data
+        levelChunkWithLight.send(BedrockProtocol.class);
+        chunk.setSentToJavaClient(true);
+    }
+
+    /**
+     * Writes the light data of the chunk. Uses the shared pre-encoded data if no other protocol reads the packet again.
+     *
+     * @param wrapper The LEVEL_CHUNK_WITH_LIGHT packet
+     * @param chunk   The bedrock chunk
+     */
+    private void writeLight(final PacketWrapper wrapper, final BedrockChunk chunk) {
+        // TODO: Feature: Lighting
+        if (this.isNativeJavaVersion()) {
+            ChunkLightEncoder.writeEncodedFullBright(wrapper, chunk.getSections().length);
+        } else {
+            ChunkLightEncoder.writeFullBright(wrapper, chunk.getSections().length);
+        }
+    }
+
+    /**
+     * Sends the differences between the previously sent and the updated chunk sections to the java client.
+     *
+     * @param chunk            The bedrock chunk
+     * @param updatedSections  The newly remapped chunk sections (null for sections which didn't change)
+     * @param previousSections The previously sent chunk sections
+     * @return false if the changes can't be expressed as section updates and the whole chunk has to be resent
+     */
+    private boolean sendSectionUpdates(final BedrockChunk chunk, final RemappedChunkSection[] updatedSections, final RemappedChunkSection[] previousSections) {
+        final List<BlockChangeRecord>[] sectionChanges = new List[updatedSections.length];
+        for (int idx = 0; idx < updatedSections.length; idx++) {
+            if (updatedSections[idx] == null) continue;
+            if (previousSections[idx] == null) return false;
+
+            final ChunkSection section = updatedSections[idx].section();
+            final ChunkSection previousSection = previousSections[idx].section();
+            final DataPalette biomePalette = section.palette(PaletteType.BIOMES);
+            final DataPalette previousBiomePalette = previousSection.palette(PaletteType.BIOMES);
+            for (int i = 0; i < ChunkSection.BIOME_SIZE; i++) {
+                if (biomePalette.idAt(i) != previousBiomePalette.idAt(i)) { // There is no packet to update biomes of a single section
+                    return false;
+                }
+            }
+
+            final DataPalette blockPalette = section.palette(PaletteType.BLOCKS);
+            final DataPalette previousBlockPalette = previousSection.palette(PaletteType.BLOCKS);
+            final List<BlockChangeRecord> changes = sectionChanges[idx] = new ArrayList<>();
+            for (int x = 0; x < 16; x++) {
+                for (int y = 0; y < 16; y++) {
+                    for (int z = 0; z < 16; z++) {
+                        final int blockState = blockPalette.idAt(x, y, z);
+                        if (blockState != previousBlockPalette.idAt(x, y, z)) {
+                            changes.add(new BlockChangeRecord1_16_2(x, y, z, blockState));
+                        }
+                    }
+                }
+            }
+            if (changes.size() > MAX_SECTION_BLOCK_CHANGES) {
+                return false;
+            }
+        }
+
+        for (int idx = 0; idx < updatedSections.length; idx++) {
+            final List<BlockChangeRecord> changes = sectionChanges[idx];
+            if (changes == null) continue;
+
+            if (!changes.isEmpty()) {
+                final int sectionY = (this.minY >> 4) + idx;
+                final long sectionKey = (chunk.getX() & 0x3FFFFFL) << 42 | (chunk.getZ() & 0x3FFFFFL) << 20 | (sectionY & 0xFFFL);
+                final PacketWrapper sectionBlocksUpdate = PacketWrapper.create(ClientboundPackets1_21_9.SECTION_BLOCKS_UPDATE, this.user());
+                sectionBlocksUpdate.write(Types.LONG, sectionKey); // chunk position
+                sectionBlocksUpdate.write(Types.VAR_LONG_BLOCK_CHANGE_ARRAY, changes.toArray(new BlockChangeRecord[0])); // block change records
+                sectionBlocksUpdate.send(BedrockProtocol.class);
+            }
+            for (BlockEntity blockEntity : updatedSections[idx].blockEntities()) {
+                final BlockPosition position = new BlockPosition(chunk.getX() * 16 + (blockEntity.packedXZ() >> 4 & 15), blockEntity.y(), chunk.getZ() * 16 + (blockEntity.packedXZ() & 15));
+                PacketFactory.sendJavaBlockEntityData(this.user(), position, this.isNativeJavaVersion() ? blockEntity : copyBlockEntity(blockEntity));
+            }
+        }
+        return true;
+    }
+
+    private void sendPendingChunks() {
+        if (!this.user().getChannel().isActive()) {
+            return;
+        }
+
+        PendingChunk pendingChunk;
+        while ((pendingChunk = this.pendingChunkQueue.peek()) != null && (pendingChunk.cancelled || pendingChunk.future.isDone())) {
+            this.pendingChunkQueue.poll();
+            if (pendingChunk.cancelled) continue;
+            this.pendingChunks.remove(pendingChunk.chunkKey, pendingChunk);
+            if (this.user().get(ChunkTracker.class) != this || this.chunks.get(pendingChunk.chunkKey) != pendingChunk.chunk) continue;
+
+            try {
+                this.sendChunk(pendingChunk.chunk, pendingChunk.future.join(), pendingChunk.modificationCounts);
+            } catch (Throwable e) {
+                BedrockProtocol.kickForIllegalState(this.user(), "Error remapping chunk. See console for details.", e);
+                return;
+            }
+        }
+    }
+
+    private void cancelPendingChunk(final long chunkKey) {
+        final PendingChunk pendingChunk = this.pendingChunks.remove(chunkKey);
+        if (pendingChunk != null) {
+            pendingChunk.cancelled = true;
+            pendingChunk.future.cancel(false);
+        }
+    }
+
+    /**
+     * Converts the bedrock chunk sections into java chunk sections.<br>
+     * This method only accesses immutable shared state and the given sections, so it is safe to call off the netty event loop.
+     *
+     * @param blockStateRewriter The block state rewriter of the connection
+     * @param bedrockSections    The bedrock chunk sections (null entries are skipped)
+     * @param airId              The bedrock air block state id
+     * @return The remapped chunk sections
+     */
+    private static RemappedChunkSection[] remapSections(final BlockStateRewriter blockStateRewriter, final BedrockChunkSection[] bedrockSections, final int airId) {
+        final IntSet motionBlockingBlockStates = BedrockProtocol.MAPPINGS.getJavaHeightMapBlockStates().get("motion_blocking");
+        final byte waterTagId = blockStateRewriter.waterTagId();
+        final byte itemFrameTagId = blockStateRewriter.itemFrameTagId();
+        final byte[] paletteIndexTagIds = new byte[ChunkSection.SIZE];
+        final int[] subBiomeIds = new int[4 * 4 * 4];
+        final int[] subBiomeCounts = new int[4 * 4 * 4];
+
+        final RemappedChunkSection[] remappedSections = new RemappedChunkSection[bedrockSections.length];
         for (int idx = 0; idx < bedrockSections.length; idx++) {
             final BedrockChunkSection bedrockSection = bedrockSections[idx];
+            if (bedrockSection == null) continue;
+
             final List<DataPalette> blockPalettes = bedrockSection.palettes(PaletteType.BLOCKS);
-            final ChunkSection remappedSection = remappedSections[idx] = new ChunkSectionImpl(false);
+            final ChunkSection remappedSection = new ChunkSectionImpl(false);
             final DataPalette remappedBlockPalette = remappedSection.palette(PaletteType.BLOCKS);
+            final RemappedChunkSection remappedChunkSection = remappedSections[idx] = new RemappedChunkSection(remappedSection);
 
             if (!blockPalettes.isEmpty()) {
                 final DataPalette layer0 = blockPalettes.get(0);
+                final DataPalette layer1 = blockPalettes.size() > 1 ? blockPalettes.get(1) : null;
                 if (layer0.size() == 1) {
                     remappedBlockPalette.addId(layer0.idByIndex(0));
                 } else {
-                    this.transferPaletteData(layer0, remappedBlockPalette);
+                    transferPaletteData(layer0, remappedBlockPalette);
                 }
 
-                final String[] paletteIndexBlockStateTags = new String[remappedBlockPalette.size()];
+                boolean hasTaggedBlockStates = false;
                 for (int i = 0; i < remappedBlockPalette.size(); i++) {
                     final int bedrockBlockState = remappedBlockPalette.idByIndex(i);
                     int javaBlockState = blockStateRewriter.javaId(bedrockBlockState);
@@ -490,7 +680,9 @@ public class ChunkTracker extends StoredObject {
                     }
                     remappedBlockPalette.setIdByIndex(i, javaBlockState);
 
-                    paletteIndexBlockStateTags[i] = blockStateRewriter.tag(bedrockBlockState);
+                    final byte tagId = blockStateRewriter.tagId(bedrockBlockState);
+                    paletteIndexTagIds[i] = tagId != 0 && (blockStateRewriter.isJavaBlockEntity(tagId) || tagId == itemFrameTagId) ? tagId : 0;
+                    hasTaggedBlockStates |= paletteIndexTagIds[i] != 0;
                 }
 
                 int nonAirBlockCount = 0;
@@ -502,37 +694,19 @@ public class ChunkTracker extends StoredObject {
                             if (javaBlockState != 0) {
                                 nonAirBlockCount++;
                             }
+                            if (!hasTaggedBlockStates) continue;
 
-                            final String tag = paletteIndexBlockStateTags[paletteIndex];
-                            if (tag == null) continue;
-
-                            final int absY = this.minY + idx * 16 + y;
-                            final BlockPosition position = new BlockPosition(chunk.getX() * 16 + x, absY, chunk.getZ() * 16 + z);
-                            if (BlockEntityRewriter.isJavaBlockEntity(tag)) {
-                                final BedrockBlockEntity bedrockBlockEntity = chunk.getBlockEntityAt(position);
-                                if (bedrockBlockEntity != null) {
-                                    final BlockEntity javaBlockEntity = BlockEntityRewriter.toJava(this.user(), layer0.idAt(x, y, z), bedrockBlockEntity);
-                                    if (javaBlockEntity instanceof BlockEntityWithBlockState blockEntityWithBlockState) {
-                                        remappedBlockPalette.setIdAt(x, y, z, blockEntityWithBlockState.blockState());
-                                    }
-                                    if (javaBlockEntity != null && javaBlockEntity.tag() != null) {
-                                        remappedChunk.blockEntities().add(javaBlockEntity);
-                                    }
-                                } else if (BedrockProtocol.MAPPINGS.getJavaBlockEntities().containsKey(tag)) {
-                                    final int javaType = BedrockProtocol.MAPPINGS.getJavaBlockEntities().get(tag);
-                                    final BlockEntity javaBlockEntity = new BlockEntityImpl(BlockEntity.pack(x, z), (short) absY, javaType, new CompoundTag());
-                                    remappedChunk.blockEntities().add(javaBlockEntity);
-                                }
-                            } else if (BlockStateRewriter.TAG_ITEM_FRAME.equals(tag)) {
-                                this.user().get(EntityTracker.class).spawnItemFrame(position, blockStateRewriter.blockState(layer0.idAt(x, y, z)));
-                            }
+                            final byte tagId = paletteIndexTagIds[paletteIndex];
+                            if (tagId == 0) continue;
+
+                            final boolean waterlogged = layer1 != null && blockStateRewriter.tagId(layer1.idAt(x, y, z)) == waterTagId;
+                            remappedChunkSection.addTaggedBlock(RemappedChunkSection.packTaggedBlock(x, y, z, tagId, waterlogged), layer0.idAt(x, y, z));
                         }
                     }
                 }
                 remappedSection.setNonAirBlocksCount(nonAirBlockCount);
 
-                if (blockPalettes.size() > 1) {
-                    final DataPalette layer1 = blockPalettes.get(1);
+                if (layer1 != null) {
                     if (layer1.size() != 1 || layer1.idByIndex(0) != airId) {
                         for (int x = 0; x < 16; x++) {
                             for (int z = 0; z < 16; z++) {
@@ -543,7 +717,7 @@ public class ChunkTracker extends StoredObject {
                                     if (blockState == airId) continue;
                                     final int javaBlockState = remappedBlockPalette.idAt(x, y, z);
 
-                                    if (BlockStateRewriter.TAG_WATER.equals(blockStateRewriter.tag(blockState))) { // Waterlogging
+                                    if (blockStateRewriter.tagId(blockState) == waterTagId) { // Waterlogging
                                         final int remappedBlockState = blockStateRewriter.waterlog(javaBlockState);
                                         if (remappedBlockState == -1) {
                                             ViaBedrock.getPlatform().getLogger().log(Level.WARNING, "Missing waterlogged block state: " + prevBlockState);
@@ -561,6 +735,7 @@ public class ChunkTracker extends StoredObject {
             } else {
                 remappedBlockPalette.addId(0);
             }
+            remappedChunkSection.updateHeightmap(motionBlockingBlockStates);
 
             final DataPalette biomePalette = bedrockSection.palette(PaletteType.BIOMES);
             final DataPalette remappedBiomePalette = new DataPaletteImpl(ChunkSection.BIOME_SIZE);
@@ -573,15 +748,22 @@ public class ChunkTracker extends StoredObject {
                     for (int x = 0; x < 4; x++) {
                         for (int z = 0; z < 4; z++) {
                             for (int y = 0; y < 4; y++) {
-                                final Int2IntMap subBiomes = new Int2IntOpenHashMap();
+                                int subBiomeCount = 0;
                                 int maxBiomeId = -1;
                                 int maxValue = -1;
                                 for (int subX = 0; subX < 4; subX++) {
                                     for (int subZ = 0; subZ < 4; subZ++) {
                                         for (int subY = 0; subY < 4; subY++) {
                                             final int biomeId = biomePalette.idAt(x * 4 + subX, y * 4 + subY, z * 4 + subZ);
-                                            final int value = subBiomes.getOrDefault(biomeId, 0) + 1;
-                                            subBiomes.put(biomeId, value);
+                                            int subBiomeIndex = 0;
+                                            while (subBiomeIndex < subBiomeCount && subBiomeIds[subBiomeIndex] != biomeId) {
+                                                subBiomeIndex++;
+                                            }
+                                            if (subBiomeIndex == subBiomeCount) {
+                                                subBiomeIds[subBiomeCount] = biomeId;
+                                                subBiomeCounts[subBiomeCount++] = 0;
+                                            }
+                                            final int value = ++subBiomeCounts[subBiomeIndex];
                                             if (value > maxValue) {
                                                 maxBiomeId = biomeId;
                                                 maxValue = value;
@@ -612,41 +794,108 @@ public class ChunkTracker extends StoredObject {
             }
         }
 
-        final IntSet motionBlockingBlockStates = BedrockProtocol.MAPPINGS.getJavaHeightMapBlockStates().get("motion_blocking");
-        final int[] worldSurface = new int[16 * 16];
-        final int[] motionBlocking = new int[16 * 16];
-        Arrays.fill(worldSurface, Integer.MIN_VALUE);
-        Arrays.fill(motionBlocking, Integer.MIN_VALUE);
-        for (int x = 0; x < 16; x++) {
-            for (int z = 0; z < 16; z++) {
-                final int index = z << 4 | x;
-                FIND_Y:
-                for (int idx = remappedSections.length - 1; idx >= 0; idx--) {
-                    final DataPalette blockPalette = remappedSections[idx].palette(PaletteType.BLOCKS);
-                    if (blockPalette.size() == 1 && blockPalette.idByIndex(0) == 0) continue;
-
-                    for (int y = 15; y >= 0; y--) {
-                        final int blockState = blockPalette.idAt(x, y, z);
-                        if (blockState != 0) {
-                            final int value = idx * 16 + y + 1;
+        return remappedSections;
+    }
 
-                            if (worldSurface[index] == Integer.MIN_VALUE) {
-                                worldSurface[index] = value;
-                            }
-                            if (motionBlocking[index] == Integer.MIN_VALUE && motionBlockingBlockStates.contains(blockState)) {
-                                motionBlocking[index] = value;
-                                break FIND_Y;
+    /**
+     * Finishes a remapped chunk section by converting the block entities and spawning the item frames. Has to be called on the netty event loop.
+     *
+     * @param chunk   The bedrock chunk
+     * @param idx     The index of the section within the chunk
+     * @param section The remapped chunk section
+     */
+    private void finishSection(final BedrockChunk chunk, final int idx, final RemappedChunkSection section) {
+        final BlockStateRewriter blockStateRewriter = this.user().get(BlockStateRewriter.class);
+        final IntSet motionBlockingBlockStates = BedrockProtocol.MAPPINGS.getJavaHeightMapBlockStates().get("motion_blocking");
+        final byte itemFrameTagId = blockStateRewriter.itemFrameTagId();
+        final DataPalette remappedBlockPalette = section.section().palette(PaletteType.BLOCKS);
+
+        for (int i = 0; i < section.taggedBlocks().size(); i++) {
+            final int taggedBlock = section.taggedBlocks().getInt(i);
+            final int bedrockBlockState = section.taggedBlockStates().getInt(i);
+            final int x = RemappedChunkSection.unpackX(taggedBlock);
+            final int y = RemappedChunkSection.unpackY(taggedBlock);
+            final int z = RemappedChunkSection.unpackZ(taggedBlock);
+            final byte tagId = RemappedChunkSection.unpackTagId(taggedBlock);
+
+            final int absY = this.minY + idx * 16 + y;
+            final BlockPosition position = new BlockPosition(chunk.getX() * 16 + x, absY, chunk.getZ() * 16 + z);
+            if (blockStateRewriter.isJavaBlockEntity(tagId)) {
+                final String tag = blockStateRewriter.tagName(tagId);
+                final BedrockBlockEntity bedrockBlockEntity = chunk.getBlockEntityAt(position);
+                if (bedrockBlockEntity != null) {
+                    final BlockEntity javaBlockEntity = BlockEntityRewriter.toJava(this.user(), bedrockBlockState, bedrockBlockEntity);
+                    if (javaBlockEntity instanceof BlockEntityWithBlockState blockEntityWithBlockState) {
+                        final int prevBlockState = remappedBlockPalette.idAt(x, y, z);
+                        int blockState = blockEntityWithBlockState.blockState();
+                        if (RemappedChunkSection.unpackWaterlogged(taggedBlock)) { // Waterlogging
+                            final int waterloggedBlockState = blockStateRewriter.waterlog(blockState);
+                            if (waterloggedBlockState == -1) {
+                                ViaBedrock.getPlatform().getLogger().log(Level.WARNING, "Missing waterlogged block state: " + bedrockBlockState);
+                            } else {
+                                blockState = waterloggedBlockState;
                             }
                         }
+                        remappedBlockPalette.setIdAt(x, y, z, blockState);
+                        if (motionBlockingBlockStates.contains(prevBlockState) != motionBlockingBlockStates.contains(blockState)) {
+                            section.updateHeightmap(x, z, motionBlockingBlockStates);
+                        }
                     }
+                    if (javaBlockEntity != null && javaBlockEntity.tag() != null) {
+                        section.blockEntities().add(javaBlockEntity);
+                    }
+                } else if (BedrockProtocol.MAPPINGS.getJavaBlockEntities().containsKey(tag)) {
+                    final int javaType = BedrockProtocol.MAPPINGS.getJavaBlockEntities().get(tag);
+                    section.blockEntities().add(new BlockEntityImpl(BlockEntity.pack(x, z), (short) absY, javaType, new CompoundTag()));
                 }
+            } else if (tagId == itemFrameTagId) {
+                this.user().get(EntityTracker.class).spawnItemFrame(position, blockStateRewriter.blockState(bedrockBlockState));
+            }
+        }
+    }
 
-                if (worldSurface[index] == Integer.MIN_VALUE) {
-                    worldSurface[index] = this.minY;
+    /**
+     * Assembles the java chunk out of finished remapped chunk sections.
+     *
+     * @param chunk    The bedrock chunk
+     * @param sections The finished remapped chunk sections
+     * @return The java chunk
+     */
+    private Chunk createJavaChunk(final BedrockChunk chunk, final RemappedChunkSection[] sections) {
+        final boolean shareSections = this.isNativeJavaVersion();
+        final Chunk remappedChunk = new Chunk1_21_5(chunk.getX(), chunk.getZ(), new ChunkSection[sections.length], new Heightmap[2], new ArrayList<>());
+        for (int idx = 0; idx < sections.length; idx++) {
+            if (shareSections) {
+                remappedChunk.getSections()[idx] = sections[idx].section();
+                remappedChunk.blockEntities().addAll(sections[idx].blockEntities());
+            } else { // Protocols for older java versions rewrite the palettes and block entities in place, which would corrupt the cached sections
+                remappedChunk.getSections()[idx] = copySection(sections[idx].section());
+                for (BlockEntity blockEntity : sections[idx].blockEntities()) {
+                    remappedChunk.blockEntities().add(copyBlockEntity(blockEntity));
                 }
-                if (motionBlocking[index] == Integer.MIN_VALUE) {
-                    motionBlocking[index] = this.minY;
+            }
+        }
+
+        final int[] worldSurface = new int[16 * 16];
+        final int[] motionBlocking = new int[16 * 16];
+        Arrays.fill(worldSurface, Integer.MIN_VALUE);
+        Arrays.fill(motionBlocking, Integer.MIN_VALUE);
+        for (int index = 0; index < worldSurface.length; index++) {
+            for (int idx = sections.length - 1; idx >= 0; idx--) {
+                if (worldSurface[index] == Integer.MIN_VALUE && sections[idx].worldSurface()[index] != 0) {
+                    worldSurface[index] = idx * 16 + sections[idx].worldSurface()[index];
                 }
+                if (sections[idx].motionBlocking()[index] != 0) {
+                    motionBlocking[index] = idx * 16 + sections[idx].motionBlocking()[index];
+                    break;
+                }
+            }
+
+            if (worldSurface[index] == Integer.MIN_VALUE) {
+                worldSurface[index] = this.minY;
+            }
+            if (motionBlocking[index] == Integer.MIN_VALUE) {
+                motionBlocking[index] = this.minY;
             }
         }
 
@@ -657,6 +906,68 @@ public class ChunkTracker extends StoredObject {
         return remappedChunk;
     }
 
+    /**
+     * @return true if the java client runs the version ViaBedrock translates to, so no other protocol modifies the sent chunk data
+     */
+    private boolean isNativeJavaVersion() {
+        return this.user().getProtocolInfo().protocolVersion().equals(ProtocolConstants.JAVA_VERSION);
+    }
+
+    private static ChunkSection copySection(final ChunkSection section) {
+        final ChunkSection copy = new ChunkSectionImpl(false);
+        copyPalette(section.palette(PaletteType.BLOCKS), copy.palette(PaletteType.BLOCKS), ChunkSection.SIZE);
+        final DataPalette biomePalette = new DataPaletteImpl(ChunkSection.BIOME_SIZE);
+        copyPalette(section.palette(PaletteType.BIOMES), biomePalette, ChunkSection.BIOME_SIZE);
+        copy.addPalette(PaletteType.BIOMES, biomePalette);
+        copy.setNonAirBlocksCount(section.getNonAirBlocksCount());
+        return copy;
+    }
+
+    private static void copyPalette(final DataPalette from, final DataPalette to, final int size) {
+        if (from.size() == 1) {
+            to.addId(from.idByIndex(0));
+        } else {
+            for (int i = 0; i < size; i++) {
+                to.setIdAt(i, from.idAt(i));
+            }
+        }
+    }
+
+    private static BlockEntity copyBlockEntity(final BlockEntity blockEntity) {
+        return new BlockEntityImpl(blockEntity.packedXZ(), blockEntity.y(), blockEntity.typeId(), blockEntity.tag() != null ? blockEntity.tag().copy() : null);
+    }
+
+    private static BedrockChunkSection[] snapshotSections(final BedrockChunkSection[] sections) {
+        final BedrockChunkSection[] snapshot = new BedrockChunkSection[sections.length];
+        for (int i = 0; i < sections.length; i++) {
+            if (sections[i] == null) continue;
+
+            final BedrockChunkSection sectionSnapshot = snapshot[i] = new BedrockChunkSectionImpl(true);
+            for (DataPalette palette : sections[i].palettes(PaletteType.BLOCKS)) {
+                sectionSnapshot.addPalette(PaletteType.BLOCKS, copyPalette(palette));
+            }
+            final DataPalette biomePalette = sections[i].palette(PaletteType.BIOMES);
+            if (biomePalette != null) {
+                sectionSnapshot.addPalette(PaletteType.BIOMES, copyPalette(biomePalette));
+            }
+        }
+        return snapshot;
+    }
+
+    private static DataPalette copyPalette(final DataPalette palette) {
+        if (palette instanceof BedrockDataPalette bedrockDataPalette) {
+            return bedrockDataPalette.clone();
+        } else if (palette instanceof BedrockBiomeArray bedrockBiomeArray) {
+            return bedrockBiomeArray.clone();
+        } else if (palette instanceof BedrockBlockArray bedrockBlockArray) {
+            return bedrockBlockArray.clone();
+        } else {
+            final BedrockDataPalette copy = new BedrockDataPalette();
+            transferPaletteData(palette, copy);
+            return copy;
+        }
+    }
+
     private void resolvePersistentIds(final BedrockChunkSection bedrockSection) {
         final BlockStateRewriter blockStateRewriter = this.user().get(BlockStateRewriter.class);
 
@@ -685,7 +996,7 @@ public class ChunkTracker extends StoredObject {
         for (DataPalette palette : palettes) {
             if (palette instanceof BedrockBlockArray blockArray) {
                 final BedrockDataPalette dataPalette = new BedrockDataPalette();
-                this.transferPaletteData(blockArray, dataPalette);
+                transferPaletteData(blockArray, dataPalette);
                 for (int i = 0; i < dataPalette.size(); i++) {
                     final int blockState = dataPalette.idByIndex(i);
                     int remappedBlockState = blockStateRewriter.bedrockId(blockState);
@@ -706,7 +1017,7 @@ public class ChunkTracker extends StoredObject {
      * @param source The source palette
      * @param target The target palette
      */
-    private void transferPaletteData(final DataPalette source, final DataPalette target) {
+    private static void transferPaletteData(final DataPalette source, final DataPalette target) {
         for (int x = 0; x < 16; x++) {
             for (int y = 0; y < 16; y++) {
                 for (int z = 0; z < 16; z++) {
@@ -719,4 +1030,20 @@ public class ChunkTracker extends StoredObject {
     private record SubChunkPosition(int chunkX, int subChunkY, int chunkZ) {
     }
 
+    private static class PendingChunk {
+
+        private final long chunkKey;
+        private final BedrockChunk chunk;
+        private final int[] modificationCounts;
+        private CompletableFuture<RemappedChunkSection[]> future;
+        private volatile boolean cancelled;
+
+        private PendingChunk(final long chunkKey, final BedrockChunk chunk, final int[] modificationCounts) {
+            this.chunkKey = chunkKey;
+            this.chunk = chunk;
+            this.modificationCounts = modificationCounts;
+        }
+
+    }
+
 }
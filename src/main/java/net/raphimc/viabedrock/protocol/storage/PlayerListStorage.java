@@ -17,23 +17,44 @@
  */
 package net.raphimc.viabedrock.protocol.storage;
 
-import com.viaversion.viaversion.api.connection.StorableObject;
+import com.viaversion.viaversion.api.Via;
+import com.viaversion.viaversion.api.connection.StoredObject;
+import com.viaversion.viaversion.api.connection.UserConnection;
 import com.viaversion.viaversion.util.Pair;
+import net.raphimc.viabedrock.protocol.model.SkinData;
+import net.raphimc.viabedrock.protocol.provider.SkinProvider;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.UUID;
 
-public class PlayerListStorage implements StorableObject {
+public class PlayerListStorage extends StoredObject {
 
     private final Map<UUID, Pair<Long, String>> playerList = new HashMap<>();
+    private final Map<Long, UUID> uniqueEntityIdIndex = new HashMap<>();
+    private final Map<UUID, SkinData> pendingSkins = new LinkedHashMap<>();
+
+    public PlayerListStorage(final UserConnection user) {
+        super(user);
+    }
 
     public Pair<Long, String> addPlayer(final UUID uuid, final long uniqueEntityId, final String name) {
-        return this.playerList.put(uuid, new Pair<>(uniqueEntityId, name));
+        final Pair<Long, String> previousEntry = this.playerList.put(uuid, new Pair<>(uniqueEntityId, name));
+        if (previousEntry != null) {
+            this.uniqueEntityIdIndex.remove(previousEntry.key(), uuid);
+        }
+        this.uniqueEntityIdIndex.put(uniqueEntityId, uuid);
+        return previousEntry;
     }
 
     public Pair<Long, String> removePlayer(final UUID uuid) {
-        return this.playerList.remove(uuid);
+        final Pair<Long, String> entry = this.playerList.remove(uuid);
+        if (entry != null) {
+            this.uniqueEntityIdIndex.remove(entry.key(), uuid);
+            this.pendingSkins.remove(uuid);
+        }
+        return entry;
     }
 
     public boolean containsPlayer(final UUID uuid) {
@@ -45,13 +66,36 @@ public class PlayerListStorage implements StorableObject {
     }
 
     public Pair<UUID, String> getPlayer(final long uniqueEntityId) {
-        for (final Map.Entry<UUID, Pair<Long, String>> entry : this.playerList.entrySet()) {
-            if (entry.getValue().key() == uniqueEntityId) {
-                return new Pair<>(entry.getKey(), entry.getValue().value());
-            }
+        final UUID uuid = this.uniqueEntityIdIndex.get(uniqueEntityId);
+        if (uuid != null) {
+            return new Pair<>(uuid, this.playerList.get(uuid).value());
         }
 
         return null;
     }
 
+    /**
+     * Queues a skin to be sent to the client after the current packet was handled, so large player list updates aren't held back by the skins.<br>
+     * Only the latest skin of a player is sent and skins of players which are removed from the player list before are dropped.
+     *
+     * @param uuid The uuid of the player
+     * @param skin The skin
+     */
+    public void queueSkin(final UUID uuid, final SkinData skin) {
+        if (this.pendingSkins.isEmpty()) {
+            this.user().getChannel().eventLoop().execute(this::sendPendingSkins);
+        }
+        this.pendingSkins.put(uuid, skin);
+    }
+
+    private void sendPendingSkins() {
+        if (this.user().getChannel().isActive()) {
+            final SkinProvider skinProvider = Via.getManager().getProviders().get(SkinProvider.class);
+            for (Map.Entry<UUID, SkinData> entry : this.pendingSkins.entrySet()) {
+                skinProvider.setSkin(this.user(), entry.getKey(), entry.getValue());
+            }
+        }
+        this.pendingSkins.clear();
+    }
+
 }
@@ -18,6 +18,7 @@
 package net.raphimc.viabedrock.protocol.storage;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.viaversion.viaversion.api.Via;
 import com.viaversion.viaversion.api.connection.StoredObject;
 import com.viaversion.viaversion.api.connection.UserConnection;
 import com.viaversion.viaversion.api.protocol.packet.PacketWrapper;
@@ -27,15 +28,14 @@ import net.raphimc.viabedrock.api.model.resourcepack.*;
 import net.raphimc.viabedrock.protocol.BedrockProtocol;
 import net.raphimc.viabedrock.protocol.ServerboundBedrockPackets;
 import net.raphimc.viabedrock.protocol.data.enums.bedrock.generated.ResourcePackResponse;
+import net.raphimc.viabedrock.protocol.provider.ResourcePackProvider;
 import net.raphimc.viabedrock.protocol.types.BedrockTypes;
 
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.logging.Level;
 
 public class ResourcePacksStorage extends StoredObject {
@@ -91,13 +91,16 @@ public class ResourcePacksStorage extends StoredObject {
             "vanilla_1.21.120"
     );
 
+    private static final ExecutorService PACK_DECODER = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() / 2), new ThreadFactoryBuilder().setDaemon(true).setNameFormat("ViaBedrock-Pack-Decoder-%d").build());
+
     private final Map<UUID, ResourcePack> packs = new HashMap<>();
     private final List<ResourcePack> packStackTopToBottom = new ArrayList<>();
     private final List<ResourcePack> packStackBottomToTop = new ArrayList<>();
 
     private boolean javaClientWaitingForPack;
     private boolean loadedOnJavaClient;
-    private final Map<String, Object> converterData = new HashMap<>();
+    private final Map<String, Object> converterData = new ConcurrentHashMap<>(); // Written by the parallel pack conversion
+    private int generation;
 
     private TextDefinitions texts;
     private BlockDefinitions blocks;
@@ -111,11 +114,19 @@ public class ResourcePacksStorage extends StoredObject {
     private FogDefinitions fogs;
     private BiomeDefinitions biomes;
     private RenderControllerDefinitions renderControllers;
+    private final CompletableFuture<Void> loadingFuture = new CompletableFuture<>();
 
     public ResourcePacksStorage(final UserConnection user) {
         super(user);
     }
 
+    @Override
+    public void onRemove() {
+        for (ResourcePack pack : this.packs.values()) {
+            pack.release();
+        }
+    }
+
     public void sendResponseIfAllDownloadsCompleted() {
         if (this.packs.values().stream().allMatch(ResourcePack::isDecompressed)) {
             ViaBedrock.getPlatform().getLogger().log(Level.INFO, "All packs have been downloaded and decompressed");
@@ -126,42 +137,61 @@ public class ResourcePacksStorage extends StoredObject {
         }
     }
 
-    public CompletableFuture<Void> runHttpTask(final Collection<ResourcePack> packs, final Consumer<ResourcePack> task, final BiConsumer<ResourcePack, Throwable> errorHandler) {
-        final List<Runnable> tasks = new ArrayList<>();
-        for (ResourcePack pack : packs) {
-            if (pack.cdnUrl() == null) continue;
-            tasks.add(() -> {
-                try {
-                    task.accept(pack);
-                } catch (Throwable e) {
-                    if (e.getCause() instanceof InterruptedException) return;
-                    errorHandler.accept(pack, e);
-                }
-            });
-        }
-        if (tasks.isEmpty()) {
-            return CompletableFuture.completedFuture(null);
-        }
-
-        final ExecutorService httpExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactoryBuilder().setDaemon(true).setNameFormat("ViaBedrock-Pack-Downloader-%d").build());
-        this.user().getChannel().closeFuture().addListener(future -> httpExecutor.shutdownNow());
-
-        for (Runnable runnable : tasks) {
-            httpExecutor.execute(runnable);
-        }
-        httpExecutor.shutdown();
-
-        return CompletableFuture.runAsync(() -> {
+    /**
+     * Decompresses a fully received pack on a worker thread and adds it to the pack cache, so the event loop isn't blocked.<br>
+     * Afterwards the response is sent to the server if all packs are ready. The error handler is called on the event loop.
+     *
+     * @param pack         The pack to decompress
+     * @param errorHandler The error handler
+     */
+    public void decompressPack(final ResourcePack pack, final Consumer<Throwable> errorHandler) {
+        PACK_DECODER.execute(() -> {
+            Throwable error = null;
             try {
-                if (!httpExecutor.awaitTermination(5, TimeUnit.MINUTES)) {
-                    httpExecutor.shutdownNow();
+                pack.decompressAndDecrypt();
+                if (!pack.isDecompressed()) { // The pack was released because the connection closed
+                    return;
                 }
-            } catch (InterruptedException e) {
-                httpExecutor.shutdownNow();
+                Via.getManager().getProviders().get(ResourcePackProvider.class).addPack(pack);
+                final long downloadTime = Math.max(1, pack.downloadTime());
+                ViaBedrock.getPlatform().getLogger().log(Level.INFO, "Pack " + pack.packId() + " (" + pack.compressedDataLength() / 1024 + "KB) was downloaded in " + downloadTime + "ms (" + pack.compressedDataLength() / downloadTime * 1000 / 1024 + "KB/s) and ready after " + pack.timeToReady() + "ms");
+            } catch (Throwable e) {
+                error = e;
             }
+            final Throwable finalError = error;
+            this.user().getChannel().eventLoop().execute(() -> {
+                if (finalError != null) {
+                    errorHandler.accept(finalError);
+                } else {
+                    this.sendResponseIfAllDownloadsCompleted();
+                }
+            });
         });
     }
 
+    /**
+     * Runs a download task for all given packs which have a CDN url.
+     *
+     * @param packs        The packs
+     * @param task         The task. Should use the futures of the {@link net.raphimc.viabedrock.api.http.PackDownloadService}, so it is cancelled when the connection closes.
+     * @param errorHandler Called if the task failed for a pack. Not called if the task was cancelled.
+     * @return A future which completes when the task completed or failed for all packs
+     */
+    public CompletableFuture<Void> runHttpTask(final Collection<ResourcePack> packs, final Function<ResourcePack, CompletableFuture<?>> task, final BiConsumer<ResourcePack, Throwable> errorHandler) {
+        final List<CompletableFuture<?>> futures = new ArrayList<>();
+        for (ResourcePack pack : packs) {
+            if (pack.cdnUrl() == null) continue;
+            futures.add(task.apply(pack).handle((result, e) -> {
+                final Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                if (cause != null && !(cause instanceof CancellationException)) {
+                    errorHandler.accept(pack, cause);
+                }
+                return null;
+            }));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
     public boolean hasPack(final UUID packId) {
         return this.packs.containsKey(packId);
     }
@@ -175,13 +205,17 @@ public class ResourcePacksStorage extends StoredObject {
     }
 
     public void addPack(final ResourcePack pack) {
-        this.packs.put(pack.packId(), pack);
+        final ResourcePack previousPack = this.packs.put(pack.packId(), pack);
+        if (previousPack != null && previousPack != pack) {
+            previousPack.release();
+        }
     }
 
     public void setPackStack(final UUID[] resourcePackStack, final UUID[] behaviourPackStack) {
         this.packStackTopToBottom.clear();
         Arrays.stream(behaviourPackStack).map(this.packs::get).filter(Objects::nonNull).forEach(this.packStackTopToBottom::add);
         Arrays.stream(resourcePackStack).map(this.packs::get).filter(Objects::nonNull).forEach(this.packStackTopToBottom::add);
+        final int serverPackCount = this.packStackTopToBottom.size();
         if (BedrockProtocol.MAPPINGS.getBedrockVanillaResourcePacks() != null) { // null if ran from ResourcePackConverterTest
             for (int i = VANILLA_PACK_NAMES.size() - 1; i >= 0; i--) {
                 this.packStackTopToBottom.add(BedrockProtocol.MAPPINGS.getBedrockVanillaResourcePacks().get(VANILLA_PACK_NAMES.get(i)));
@@ -191,18 +225,25 @@ public class ResourcePacksStorage extends StoredObject {
         this.packStackBottomToTop.addAll(this.packStackTopToBottom);
         Collections.reverse(this.packStackBottomToTop);
 
-        this.texts = new TextDefinitions(this);
-        this.blocks = new BlockDefinitions(this);
-        this.items = new ItemDefinitions(this);
-        this.attachables = new AttachableDefinitions(this);
-        this.textures = new TextureDefinitions(this);
-        this.sounds = new SoundDefinitions(this);
-        this.particles = new ParticleDefinitions(this);
-        this.entities = new EntityDefinitions(this);
-        this.models = new ModelDefinitions(this);
-        this.fogs = new FogDefinitions(this);
-        this.biomes = new BiomeDefinitions(this);
-        this.renderControllers = new RenderControllerDefinitions(this);
+        final List<ResourcePack> serverPacksBottomToTop = new ArrayList<>(serverPackCount);
+        for (int i = serverPackCount - 1; i >= 0; i--) {
+            serverPacksBottomToTop.add(this.packStackTopToBottom.get(i));
+        }
+        final VanillaResourcePackDefinitions vanillaDefinitions = VanillaResourcePackDefinitions.get();
+        this.texts = new TextDefinitions(vanillaDefinitions.getTexts(), serverPacksBottomToTop);
+        this.blocks = new BlockDefinitions(vanillaDefinitions.getBlocks(), serverPacksBottomToTop);
+        this.items = new ItemDefinitions(vanillaDefinitions.getItems(), serverPacksBottomToTop);
+        this.attachables = new AttachableDefinitions(vanillaDefinitions.getAttachables(), serverPacksBottomToTop);
+        this.textures = new TextureDefinitions(vanillaDefinitions.getTextures(), serverPacksBottomToTop);
+        this.sounds = new SoundDefinitions(vanillaDefinitions.getSounds(), serverPacksBottomToTop);
+        this.particles = new ParticleDefinitions(vanillaDefinitions.getParticles(), serverPacksBottomToTop);
+        this.entities = new EntityDefinitions(vanillaDefinitions.getEntities(), serverPacksBottomToTop);
+        this.models = new ModelDefinitions(vanillaDefinitions.getModels(), serverPacksBottomToTop);
+        this.fogs = new FogDefinitions(vanillaDefinitions.getFogs(), serverPacksBottomToTop);
+        this.biomes = new BiomeDefinitions(vanillaDefinitions.getBiomes(), serverPacksBottomToTop);
+        this.renderControllers = new RenderControllerDefinitions(vanillaDefinitions.getRenderControllers(), serverPacksBottomToTop);
+        this.generation++;
+        this.loadingFuture.complete(null);
     }
 
     public List<ResourcePack> getPackStackTopToBottom() {
@@ -228,6 +269,14 @@ public class ResourcePacksStorage extends StoredObject {
     public void setLoadedOnJavaClient() {
         this.javaClientWaitingForPack = false;
         this.loadedOnJavaClient = true;
+        this.generation++;
+    }
+
+    /**
+     * @return A counter which changes whenever the loaded definitions or the state of the java client pack change. Used to invalidate caches of translated data.
+     */
+    public int getGeneration() {
+        return this.generation;
     }
 
     public Map<String, Object> getConverterData() {
@@ -238,6 +287,13 @@ public class ResourcePacksStorage extends StoredObject {
         return this.renderControllers != null;
     }
 
+    /**
+     * @return A future which completes once the pack stack has been loaded
+     */
+    public CompletableFuture<Void> getLoadingFuture() {
+        return this.loadingFuture;
+    }
+
     public TextDefinitions getTexts() {
         return this.texts;
     }
@@ -0,0 +1,126 @@
+/*
+ * This file is part of ViaBedrock - https://github.com/RaphiMC/ViaBedrock
+ * Copyright (C) 2023-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import net.raphimc.viabedrock.api.io.BlobDB;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+public class BlobDBBenchmark {
+
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
+    private static final int BLOB_COUNT = 100_000;
+    private static final int BLOB_SIZE = 4096;
+    private static final long DURATION = 10_000;
+
+    public static void main(String[] args) throws Throwable {
+        final File directory = new File("blobdb-benchmark");
+        deleteDirectory(directory);
+
+        final byte[][] blobs = new byte[256][];
+        for (int i = 0; i < blobs.length; i++) {
+            blobs[i] = new byte[BLOB_SIZE];
+            for (int j = 0; j < BLOB_SIZE; j += 8) { // Half random data to get a realistic compression ratio
+                blobs[i][j] = (byte) ThreadLocalRandom.current().nextInt();
+            }
+        }
+
+        try (BlobDB blobDB = new BlobDB(directory)) {
+            long start = System.currentTimeMillis();
+            runThreads(key -> blobDB.queuePut(key, blobs[(int) (key & 255)]), BLOB_COUNT);
+            blobDB.save();
+            System.out.println("Put " + BLOB_COUNT + " blobs using " + THREADS + " threads took " + (System.currentTimeMillis() - start) + "ms");
+
+            final LongAdder operations = new LongAdder();
+            start = System.currentTimeMillis();
+            final long end = start + DURATION;
+            runThreads(key -> {
+                while (System.currentTimeMillis() < end) {
+                    blobDB.get(ThreadLocalRandom.current().nextInt(BLOB_COUNT));
+                    operations.increment();
+                }
+            }, THREADS);
+            System.out.println("Concurrent get throughput: " + (operations.sum() * 1000 / (System.currentTimeMillis() - start)) + " ops/s");
+
+            operations.reset();
+            start = System.currentTimeMillis();
+            runThreads(key -> {
+                long nextKey = BLOB_COUNT + key * 1_000_000L;
+                while (System.currentTimeMillis() < end + DURATION) {
+                    if (ThreadLocalRandom.current().nextInt(10) == 0) {
+                        blobDB.queuePut(nextKey, blobs[(int) (nextKey++ & 255)]);
+                    } else {
+                        blobDB.get(ThreadLocalRandom.current().nextInt(BLOB_COUNT));
+                    }
+                    operations.increment();
+                }
+            }, THREADS);
+            blobDB.save();
+            System.out.println("Concurrent mixed (90% get, 10% put) throughput: " + (operations.sum() * 1000 / (System.currentTimeMillis() - start)) + " ops/s");
+        }
+
+        final long start = System.currentTimeMillis();
+        try (BlobDB blobDB = new BlobDB(directory)) {
+            System.out.println("Reopening " + blobDB.size() + " blobs took " + (System.currentTimeMillis() - start) + "ms");
+        }
+        deleteDirectory(directory);
+    }
+
+    private static void runThreads(final Task task, final int count) throws InterruptedException {
+        final Thread[] threads = new Thread[THREADS];
+        for (int i = 0; i < threads.length; i++) {
+            final int threadIndex = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    for (long key = threadIndex; key < count; key += THREADS) {
+                        task.run(key);
+                    }
+                } catch (Throwable e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    private static void deleteDirectory(final File directory) throws Throwable {
+        if (!directory.exists()) return;
+
+        try (Stream<Path> paths = Files.walk(directory.toPath())) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Task {
+
+        void run(final long key) throws Throwable;
+
+    }
+
+}
@@ -0,0 +1,70 @@
+/*
+ * This file is part of ViaBedrock - https://github.com/RaphiMC/ViaBedrock
+ * Copyright (C) 2023-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import net.raphimc.viabedrock.protocol.BedrockProtocol;
+import net.raphimc.viabedrock.protocol.model.BlockProperties;
+import net.raphimc.viabedrock.protocol.rewriter.BlockStateRewriter;
+import util.Benchmark;
+import util.Util;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Measures how many chunk sections per second the BlockStateRewriter can look up the java block state and tag of every block for, with sequential and hashed runtime ids.
+ */
+public class BlockStateLookupBenchmark {
+
+    private static final int SECTION_COUNT = 1024;
+    private static final int SECTION_SIZE = 4096;
+    private static final int PALETTE_SIZE = 64;
+
+    public static void main(String[] args) throws Throwable {
+        Util.loadMappings();
+
+        for (boolean hashedRuntimeBlockIds : new boolean[]{false, true}) {
+            final BlockStateRewriter blockStateRewriter = new BlockStateRewriter(new BlockProperties[0], hashedRuntimeBlockIds);
+            final int[][] sections = createSections(blockStateRewriter);
+            final byte waterTagId = blockStateRewriter.waterTagId();
+
+            System.out.println((hashedRuntimeBlockIds ? "Hashed" : "Sequential") + " runtime ids: " + Benchmark.run(i -> {
+                int result = 0;
+                for (int bedrockBlockState : sections[i % sections.length]) {
+                    final byte tagId = blockStateRewriter.tagId(bedrockBlockState);
+                    result += tagId == waterTagId ? blockStateRewriter.waterlog(blockStateRewriter.javaId(bedrockBlockState)) : blockStateRewriter.javaId(bedrockBlockState);
+                }
+                return result;
+            }) + " sections/s");
+        }
+    }
+
+    private static int[][] createSections(final BlockStateRewriter blockStateRewriter) {
+        final int[] bedrockBlockStates = BedrockProtocol.MAPPINGS.getBedrockBlockStates().stream().mapToInt(blockStateRewriter::bedrockId).filter(id -> id != -1).toArray();
+        final int[][] sections = new int[SECTION_COUNT][SECTION_SIZE];
+        for (int[] section : sections) {
+            final int[] palette = new int[PALETTE_SIZE];
+            for (int i = 0; i < palette.length; i++) {
+                palette[i] = bedrockBlockStates[ThreadLocalRandom.current().nextInt(bedrockBlockStates.length)];
+            }
+            for (int i = 0; i < section.length; i++) {
+                section[i] = palette[ThreadLocalRandom.current().nextInt(palette.length)];
+            }
+        }
+        return sections;
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * This file is part of ViaBedrock - https://github.com/RaphiMC/ViaBedrock
+ * Copyright (C) 2023-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import com.viaversion.nbt.tag.CompoundTag;
+import net.raphimc.viabedrock.api.chunk.blockstate.BlockStateResolutionCache;
+import net.raphimc.viabedrock.api.chunk.blockstate.BlockStateUpgrader;
+import net.raphimc.viabedrock.api.util.BlockStateHasher;
+import util.Benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.ToIntFunction;
+
+public class BlockStateResolutionBenchmark {
+
+    private static final int PALETTE_COUNT = 4096;
+    private static final int PALETTE_SIZE = 16;
+
+    private static final int VERSION_1_16_0 = 1 << 24 | 16 << 16;
+    private static final int VERSION_1_20_80 = 1 << 24 | 20 << 16 | 80 << 8 | 3;
+    private static final String[] COLORS = {"white", "orange", "magenta", "light_blue", "yellow", "lime", "pink", "gray"};
+    private static final int DIRECTIONS = 4;
+
+    public static void main(String[] args) {
+        final BlockStateUpgrader blockStateUpgrader = new BlockStateUpgrader();
+        final ToIntFunction<CompoundTag> resolver = tag -> {
+            final CompoundTag copy = tag.copy();
+            blockStateUpgrader.upgradeToLatest(copy);
+            return BlockStateHasher.hash(copy);
+        };
+
+        for (int version : new int[]{VERSION_1_16_0, VERSION_1_20_80}) {
+            final List<CompoundTag[]> palettes = createPalettes(version);
+            System.out.println("Palettes with block state version " + (version >>> 24) + "." + (version >> 16 & 0xFF) + "." + (version >> 8 & 0xFF) + "." + (version & 0xFF) + ":");
+            System.out.println("  Uncached: " + run(palettes, resolver) + " palettes/s");
+
+            final BlockStateResolutionCache cache = new BlockStateResolutionCache(16384);
+            System.out.println("  Cached: " + run(palettes, tag -> cache.resolve(tag, resolver)) + " palettes/s (" + cache.getHitCount() + " hits, " + cache.getMissCount() + " misses)");
+        }
+    }
+
+    private static long run(final List<CompoundTag[]> palettes, final ToIntFunction<CompoundTag> resolver) {
+        return Benchmark.run(i -> {
+            int result = 0;
+            for (CompoundTag tag : palettes.get(i % palettes.size())) {
+                result ^= resolver.applyAsInt(tag);
+            }
+            return result;
+        });
+    }
+
+    private static List<CompoundTag[]> createPalettes(final int version) {
+        final List<CompoundTag> blockStates = new ArrayList<>();
+        for (String color : COLORS) {
+            final CompoundTag wool = new CompoundTag();
+            wool.putString("name", "minecraft:wool");
+            final CompoundTag woolStates = new CompoundTag();
+            woolStates.putString("color", color);
+            wool.put("states", woolStates);
+            blockStates.add(wool);
+        }
+        for (int i = 0; i < DIRECTIONS; i++) {
+            for (int age = 0; age < 3; age++) {
+                final CompoundTag cocoa = new CompoundTag(); // States are written in a different order than the one the upgrader produces
+                cocoa.putString("name", "cocoa");
+                final CompoundTag cocoaStates = new CompoundTag();
+                cocoaStates.putInt("direction", i);
+                cocoaStates.putInt("age", age);
+                cocoa.put("states", cocoaStates);
+                blockStates.add(cocoa);
+            }
+        }
+        for (CompoundTag blockState : blockStates) {
+            blockState.putInt("version", version);
+        }
+
+        final List<CompoundTag[]> palettes = new ArrayList<>(PALETTE_COUNT);
+        for (int i = 0; i < PALETTE_COUNT; i++) {
+            Collections.shuffle(blockStates, ThreadLocalRandom.current());
+            final CompoundTag[] palette = new CompoundTag[PALETTE_SIZE];
+            for (int j = 0; j < palette.length; j++) {
+                palette[j] = blockStates.get(j).copy(); // Every section decodes its own tags
+            }
+            palettes.add(palette);
+        }
+        return palettes;
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * This file is part of ViaBedrock - https://github.com/RaphiMC/ViaBedrock
+ * Copyright (C) 2023-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import com.viaversion.viaversion.api.connection.UserConnection;
+import net.raphimc.viabedrock.protocol.data.enums.bedrock.generated.ItemVersion;
+import net.raphimc.viabedrock.protocol.model.BedrockItem;
+import net.raphimc.viabedrock.protocol.model.BlockProperties;
+import net.raphimc.viabedrock.protocol.model.ItemEntry;
+import net.raphimc.viabedrock.protocol.rewriter.BlockStateRewriter;
+import net.raphimc.viabedrock.protocol.rewriter.ItemRewriter;
+import util.Benchmark;
+import util.Util;
+
+/**
+ * Measures how many full inventories per second ItemRewriter.javaItem can translate with and without its cache of translated items.
+ */
+public class ItemTranslationBenchmark {
+
+    private static final int INVENTORY_SIZE = 36;
+    private static final String[] ITEMS = {"minecraft:stone", "minecraft:dirt", "minecraft:oak_planks", "minecraft:torch", "minecraft:diamond_sword", "minecraft:bread", "minecraft:white_wool", "minecraft:cobblestone", "minecraft:paper"};
+
+    public static void main(String[] args) throws Throwable {
+        Util.loadMappings();
+        final UserConnection user = Util.createUserConnection();
+        user.put(new BlockStateRewriter(new BlockProperties[0], false));
+
+        final ItemEntry[] itemEntries = new ItemEntry[ITEMS.length];
+        for (int i = 0; i < itemEntries.length; i++) {
+            itemEntries[i] = new ItemEntry(ITEMS[i], i + 1, false, ItemVersion.Legacy, null);
+        }
+        final ItemRewriter itemRewriter = new ItemRewriter(user, itemEntries);
+        user.put(itemRewriter);
+
+        final BedrockItem[] inventory = new BedrockItem[INVENTORY_SIZE];
+        for (int i = 0; i < inventory.length; i++) {
+            inventory[i] = new BedrockItem(i % ITEMS.length + 1, (short) 0, (byte) (i / ITEMS.length + 1));
+        }
+
+        System.out.println("Uncached: " + Benchmark.run(i -> {
+            int result = 0;
+            for (BedrockItem bedrockItem : inventory) {
+                itemRewriter.clearJavaItemCache();
+                result += itemRewriter.javaItem(bedrockItem).identifier();
+            }
+            return result;
+        }) + " inventories/s");
+        System.out.println("Cached: " + Benchmark.run(i -> {
+            int result = 0;
+            for (BedrockItem bedrockItem : inventory) {
+                result += itemRewriter.javaItem(bedrockItem).identifier();
+            }
+            return result;
+        }) + " inventories/s");
+    }
+
+}
@@ -3,8 +3,15 @@ import net.raphimc.viabedrock.protocol.data.enums.bedrock.generated.PackType;
 import net.raphimc.viabedrock.protocol.rewriter.ResourcePackRewriter;
 import net.raphimc.viabedrock.protocol.storage.ResourcePacksStorage;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.OutputStream;
 import java.nio.file.Files;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.UUID;
 
 /*
@@ -24,10 +31,16 @@ import java.util.UUID;
  * You should have received a copy of the GNU General Public License
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
+/**
+ * Converts input.mcpack into output.zip and reports how long each step and each rewriter took.<br>
+ * The conversion is repeated a few times to get warmed up timings and to check that the output is identical every time.
+ */
 public class ResourcePackConverterTest {
 
+    private static final int RUNS = 5;
+
     public static void main(String[] args) throws Throwable {
-        final File input = new File("input.mcpack");
+        final File input = new File(args.length > 0 ? args[0] : "input.mcpack");
         final File output = new File("output.zip");
 
         long start = System.currentTimeMillis();
@@ -44,13 +57,30 @@ public class ResourcePackConverterTest {
         resourcePacksStorage.setPackStack(new UUID[]{resourcePack.packId()}, new UUID[0]);
         System.out.println("Preparation took " + (System.currentTimeMillis() - start) + "ms");
 
-        start = System.currentTimeMillis();
-        final ResourcePack.Content javaContent = ResourcePackRewriter.bedrockToJava(resourcePacksStorage);
-        System.out.println("Conversion took " + (System.currentTimeMillis() - start) + "ms");
+        String firstHash = null;
+        for (int run = 1; run <= RUNS; run++) {
+            final Map<String, Long> rewriterTimings = new LinkedHashMap<>();
+            start = System.currentTimeMillis();
+            final ResourcePack.Content javaContent = ResourcePackRewriter.bedrockToJava(resourcePacksStorage, rewriterTimings);
+            System.out.println("Run " + run + ": Conversion took " + (System.currentTimeMillis() - start) + "ms (" + javaContent.size() + " files)");
+            for (Map.Entry<String, Long> entry : rewriterTimings.entrySet()) {
+                System.out.println("  " + entry.getKey() + " took " + entry.getValue() + "ms");
+            }
 
-        start = System.currentTimeMillis();
-        Files.write(output.toPath(), javaContent.toZip());
-        System.out.println("Writing took " + (System.currentTimeMillis() - start) + "ms");
+            start = System.currentTimeMillis();
+            final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            try (OutputStream outputStream = new BufferedOutputStream(new DigestOutputStream(Files.newOutputStream(output.toPath()), digest))) {
+                javaContent.writeZip(outputStream);
+            }
+            System.out.println("  Writing took " + (System.currentTimeMillis() - start) + "ms (" + output.length() / 1024 + "KB)");
+
+            final String hash = HexFormat.of().formatHex(digest.digest());
+            if (firstHash == null) {
+                firstHash = hash;
+            } else if (!firstHash.equals(hash)) {
+                System.out.println("  Output differs from the first run: " + hash + " != " + firstHash);
+            }
+        }
     }
 
 }
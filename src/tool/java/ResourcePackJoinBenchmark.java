@@ -0,0 +1,107 @@
+/*
+ * This file is part of ViaBedrock - https://github.com/RaphiMC/ViaBedrock
+ * Copyright (C) 2023-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import net.raphimc.viabedrock.api.model.resourcepack.ResourcePack;
+import net.raphimc.viabedrock.api.model.resourcepack.VanillaResourcePackDefinitions;
+import net.raphimc.viabedrock.api.util.FileSystemUtil;
+import net.raphimc.viabedrock.protocol.BedrockProtocol;
+import net.raphimc.viabedrock.protocol.data.BedrockMappingData;
+import net.raphimc.viabedrock.protocol.data.enums.bedrock.generated.PackType;
+import net.raphimc.viabedrock.protocol.storage.ResourcePacksStorage;
+
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Measures the time and memory used to set up the resource pack state of joining players.<br>
+ * Optionally takes the path to a server resource pack (.mcpack) which is added on top of the vanilla packs.
+ */
+public class ResourcePackJoinBenchmark {
+
+    private static final int JOINS = 100;
+
+    public static void main(String[] args) throws Throwable {
+        final Map<String, ResourcePack> vanillaPacks = new HashMap<>();
+        for (Map.Entry<Path, byte[]> entry : FileSystemUtil.getFilesInDirectory("assets/viabedrock/vanilla_packs").entrySet()) {
+            final String packName = entry.getKey().getFileName().toString().replace(".mcpack", "");
+            vanillaPacks.put(packName, createPack(null, entry.getValue()));
+        }
+        final Field vanillaPacksField = BedrockMappingData.class.getDeclaredField("bedrockVanillaResourcePacks");
+        vanillaPacksField.setAccessible(true);
+        vanillaPacksField.set(BedrockProtocol.MAPPINGS, vanillaPacks);
+
+        final byte[] serverPackData = args.length > 0 ? Files.readAllBytes(Path.of(args[0])) : null;
+        final List<ResourcePack> allVanillaPacks = new ArrayList<>();
+        for (String packName : ResourcePacksStorage.VANILLA_PACK_NAMES) {
+            allVanillaPacks.add(vanillaPacks.get(packName));
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < JOINS; i++) { // What every join used to cost: Parsing the whole pack stack from scratch
+            new VanillaResourcePackDefinitions(allVanillaPacks);
+        }
+        System.out.println("Parsing all vanilla packs per join took " + (System.nanoTime() - start) / JOINS / 1_000_000F + "ms per join");
+
+        start = System.nanoTime();
+        VanillaResourcePackDefinitions.get();
+        System.out.println("Compiling shared vanilla definitions took " + (System.nanoTime() - start) / 1_000_000F + "ms");
+
+        final List<ResourcePacksStorage> storages = new ArrayList<>(JOINS);
+        final long usedMemory = usedMemory();
+        start = System.nanoTime();
+        for (int i = 0; i < JOINS; i++) {
+            storages.add(join(serverPackData));
+        }
+        System.out.println("Joining took " + (System.nanoTime() - start) / JOINS / 1_000_000F + "ms per join");
+        System.out.println("Resource pack state uses " + (usedMemory() - usedMemory) / JOINS / 1024 + "KB per player");
+        System.out.println(storages.size() + " players joined");
+    }
+
+    private static ResourcePacksStorage join(final byte[] serverPackData) {
+        final ResourcePacksStorage resourcePacksStorage = new ResourcePacksStorage(null);
+        final List<UUID> packStack = new ArrayList<>();
+        if (serverPackData != null) {
+            final ResourcePack serverPack = createPack(UUID.randomUUID(), serverPackData);
+            resourcePacksStorage.addPack(serverPack);
+            packStack.add(serverPack.packId());
+        }
+        resourcePacksStorage.setPackStack(packStack.toArray(new UUID[0]), new UUID[0]);
+        return resourcePacksStorage;
+    }
+
+    private static ResourcePack createPack(final UUID packId, final byte[] data) {
+        final ResourcePack resourcePack = new ResourcePack(packId, null, new byte[0], "", "", false, false, false, null, 0, PackType.Resources);
+        resourcePack.setCompressedDataLength(data.length, data.length);
+        try {
+            resourcePack.processDataChunk(0, data);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+        return resourcePack;
+    }
+
+    private static long usedMemory() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+    }
+
+}
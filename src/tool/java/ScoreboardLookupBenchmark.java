@@ -0,0 +1,111 @@
+/*
+ * This file is part of ViaBedrock - https://github.com/RaphiMC/ViaBedrock
+ * Copyright (C) 2023-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+import net.raphimc.viabedrock.api.model.scoreboard.ScoreboardEntry;
+import net.raphimc.viabedrock.api.model.scoreboard.ScoreboardObjective;
+import net.raphimc.viabedrock.protocol.data.enums.bedrock.generated.IdentityDefinition_Type;
+import net.raphimc.viabedrock.protocol.data.enums.bedrock.generated.ObjectiveSortOrder;
+import util.Benchmark;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Measures how many SET_SCORE and SET_SCORE_IDENTITY entries can be resolved per second against objectives of different sizes, comparing the indexed lookups with the linear scan over all entries.<br>
+ * The SET_SCORE replay resends the current score of every entry like servers do when they refresh a leaderboard, so {@link ScoreboardObjective#updateScore} doesn't send anything and can run without a connection.
+ */
+public class ScoreboardLookupBenchmark {
+
+    private static final int[] ENTRY_COUNTS = {15, 100, 1000}; // Sidebar, tab list of a small server, leaderboard of a large server
+
+    public static void main(String[] args) throws Throwable {
+        for (int entryCount : ENTRY_COUNTS) {
+            final ScoreboardObjective objective = new ScoreboardObjective("benchmark", ObjectiveSortOrder.Descending);
+            final ScoreboardEntry[] packetEntries = new ScoreboardEntry[entryCount];
+            final long[] playerIds = new long[entryCount / 2];
+            for (int i = 0; i < entryCount; i++) {
+                final int score = ThreadLocalRandom.current().nextInt(1000);
+                if (i % 2 == 0) {
+                    final long uniqueEntityId = ThreadLocalRandom.current().nextLong();
+                    addEntry(objective, i, new ScoreboardEntry(score, IdentityDefinition_Type.Player, uniqueEntityId, null));
+                    packetEntries[i] = new ScoreboardEntry(score, IdentityDefinition_Type.Player, uniqueEntityId, null);
+                    playerIds[i / 2] = uniqueEntityId;
+                } else {
+                    addEntry(objective, i, new ScoreboardEntry(score, IdentityDefinition_Type.FakePlayer, null, "fake_player_" + i));
+                    packetEntries[i] = new ScoreboardEntry(score, IdentityDefinition_Type.FakePlayer, null, "fake_player_" + i);
+                }
+            }
+            final Map<Long, ScoreboardEntry> entries = getEntries(objective);
+
+            System.out.println("Objective with " + entryCount + " entries:");
+            System.out.println("  SET_SCORE linear scan: " + Benchmark.run(i -> {
+                final ScoreboardEntry packetEntry = packetEntries[i % packetEntries.length];
+                final ScoreboardEntry entry = getEntryWithSameTargetLinear(entries, packetEntry);
+                entry.setScore(packetEntry.score());
+                return entry.score();
+            }) + " entries/s");
+            System.out.println("  SET_SCORE indexed: " + Benchmark.run(i -> {
+                final ScoreboardEntry packetEntry = packetEntries[i % packetEntries.length];
+                final ScoreboardEntry entry = objective.getEntryWithSameTarget(packetEntry);
+                objective.updateScore(null, entry, packetEntry.score());
+                return entry.score();
+            }) + " entries/s");
+            System.out.println("  SET_SCORE_IDENTITY linear scan: " + Benchmark.run(i -> getEntryForPlayerLinear(entries, playerIds[i % playerIds.length]).score()) + " entries/s");
+            System.out.println("  SET_SCORE_IDENTITY indexed: " + Benchmark.run(i -> objective.getEntryForPlayer(playerIds[i % playerIds.length]).score()) + " entries/s");
+        }
+    }
+
+    /**
+     * Adds an entry like {@link ScoreboardObjective#addEntry} without sending the SET_SCORE packet.
+     */
+    private static void addEntry(final ScoreboardObjective objective, final long scoreboardId, final ScoreboardEntry entry) throws ReflectiveOperationException {
+        getEntries(objective).put(scoreboardId, entry);
+        final Method indexEntry = ScoreboardObjective.class.getDeclaredMethod("indexEntry", ScoreboardEntry.class);
+        indexEntry.setAccessible(true);
+        indexEntry.invoke(objective, entry);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Long, ScoreboardEntry> getEntries(final ScoreboardObjective objective) throws ReflectiveOperationException {
+        final Field entries = ScoreboardObjective.class.getDeclaredField("entries");
+        entries.setAccessible(true);
+        return (Map<Long, ScoreboardEntry>) entries.get(objective);
+    }
+
+    private static ScoreboardEntry getEntryWithSameTargetLinear(final Map<Long, ScoreboardEntry> entries, final ScoreboardEntry entry) {
+        for (ScoreboardEntry value : entries.values()) {
+            if (value.isSameTarget(entry)) {
+                return value;
+            }
+        }
+
+        return null;
+    }
+
+    private static ScoreboardEntry getEntryForPlayerLinear(final Map<Long, ScoreboardEntry> entries, final long uniqueEntityId) {
+        for (ScoreboardEntry value : entries.values()) {
+            if (value.uniqueEntityId() != null && value.type() == IdentityDefinition_Type.Player && uniqueEntityId == value.uniqueEntityId()) {
+                return value;
+            }
+        }
+
+        return null;
+    }
+
+}
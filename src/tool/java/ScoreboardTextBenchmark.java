@@ -0,0 +1,78 @@
+/*
+ * This file is part of ViaBedrock - https://github.com/RaphiMC/ViaBedrock
+ * Copyright (C) 2023-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import com.viaversion.nbt.tag.Tag;
+import net.raphimc.viabedrock.api.model.resourcepack.TextDefinitions;
+import net.raphimc.viabedrock.api.util.TextCache;
+import net.raphimc.viabedrock.api.util.TextUtil;
+import net.raphimc.viabedrock.protocol.storage.ResourcePacksStorage;
+import util.Benchmark;
+import util.Util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Measures how many scoreboard display names can be translated per second when replaying a stream of sidebar updates like minigame servers send them.<br>
+ * Every name goes through the same translate and stringToNbt path as in the SET_DISPLAY_OBJECTIVE handler, using the vanilla texts of a connection.
+ * Most lines of such a sidebar never change and the others only cycle through a few values. A stream where every line is unique is run as well, which shows the cost of the text translation without cache hits.
+ */
+public class ScoreboardTextBenchmark {
+
+    private static final int UPDATES = 65536;
+    private static final String[] STATIC_LINES = {"§e§lBEDWARS", "§712/10/25", "", "§fMap: §aLighthouse", "§fMode: §aSolo", "", "§c§lR §fRed: §a✔", "§9§lB §fBlue: §a✔", "§a§lG §fGreen: §c✘", "§e§lY §fYellow: §7YOU", "", "§ewww.example.net", "%scoreboard.title", "%options.difficulty.hard"};
+
+    public static void main(String[] args) throws Throwable {
+        Util.loadMappings();
+
+        final List<String> sidebarStream = new ArrayList<>(UPDATES);
+        final List<String> uniqueStream = new ArrayList<>(UPDATES);
+        for (int i = 0; i < UPDATES; i++) {
+            final String line = switch (ThreadLocalRandom.current().nextInt(4)) {
+                case 0 -> "§fKills: §a" + ThreadLocalRandom.current().nextInt(20);
+                case 1 -> "§fDiamond II in §a" + ThreadLocalRandom.current().nextInt(60) + "s";
+                default -> STATIC_LINES[ThreadLocalRandom.current().nextInt(STATIC_LINES.length)];
+            };
+            sidebarStream.add(line);
+            uniqueStream.add(line + "§" + Integer.toHexString(i % 16) + i);
+        }
+
+        run("Sidebar updates", sidebarStream);
+        run("Unique lines", uniqueStream);
+    }
+
+    private static void run(final String name, final List<String> stream) {
+        final TextDefinitions texts = Util.createUserConnection().get(ResourcePacksStorage.class).getTexts(); // Fresh translation cache
+        final TextCache<Tag> nbtCache = TextUtil.getNbtCache();
+        nbtCache.clear(); // The cache is process wide, so the previous run must not leave any entries behind
+        final long hits = nbtCache.getHitCount();
+        final long misses = nbtCache.getMissCount();
+
+        System.out.println(name + ": " + Benchmark.run(i -> TextUtil.stringToNbt(texts.translate(stream.get(i % stream.size()))).getTagId()) + " lines/s");
+        printCache("Translation cache", texts.getTranslationCache(), 0, 0);
+        printCache("NBT cache", nbtCache, hits, misses);
+    }
+
+    private static void printCache(final String name, final TextCache<?> cache, final long hits, final long misses) {
+        final long runHits = cache.getHitCount() - hits;
+        final long runMisses = cache.getMissCount() - misses;
+        System.out.printf("  %s: %d hits, %d misses, %.1f%% hit rate%n", name, runHits, runMisses, runHits * 100D / (runHits + runMisses));
+    }
+
+}
@@ -0,0 +1,51 @@
+/*
+ * This file is part of ViaBedrock - https://github.com/RaphiMC/ViaBedrock
+ * Copyright (C) 2023-2025 RK_01/RaphiMC and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package util;
+
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Minimal harness for the throughput benchmarks of the tool source set.
+ */
+public class Benchmark {
+
+    private static final long DURATION = 5_000;
+    private static final int BATCH_SIZE = 64; // Operations between two clock reads
+
+    private static volatile int blackhole;
+
+    /**
+     * Repeats an operation for a fixed amount of time.
+     *
+     * @param operation The operation. Gets the index of the run and returns a value derived from its result, which is consumed so the JIT can't remove the operation.
+     * @return The amount of operations per second
+     */
+    public static long run(final IntUnaryOperator operation) {
+        long operations = 0;
+        int result = 0;
+        final long start = System.currentTimeMillis();
+        while (System.currentTimeMillis() - start < DURATION) {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                result += operation.applyAsInt((int) (operations++ & Integer.MAX_VALUE));
+            }
+        }
+        blackhole = result;
+        return operations * 1000 / (System.currentTimeMillis() - start);
+    }
+
+}
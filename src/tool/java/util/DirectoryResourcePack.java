@@ -22,6 +22,7 @@ import net.raphimc.viabedrock.protocol.data.enums.bedrock.generated.PackType;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.reflect.Field;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -129,6 +130,11 @@ public class DirectoryResourcePack extends ResourcePack {
             throw new UnsupportedOperationException();
         }
 
+        @Override
+        public void writeZip(final OutputStream outputStream) {
+            throw new UnsupportedOperationException();
+        }
+
         @Override
         public int size() {
             throw new UnsupportedOperationException();
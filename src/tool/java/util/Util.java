@@ -17,17 +17,63 @@
  */
 package util;
 
+import com.viaversion.viaversion.api.Via;
+import com.viaversion.viaversion.api.ViaManager;
+import com.viaversion.viaversion.api.connection.UserConnection;
+import com.viaversion.viaversion.connection.UserConnectionImpl;
+import net.raphimc.viabedrock.ViaBedrock;
 import net.raphimc.viabedrock.api.model.resourcepack.ResourcePack;
+import net.raphimc.viabedrock.platform.ViaBedrockPlatform;
+import net.raphimc.viabedrock.protocol.BedrockProtocol;
 import net.raphimc.viabedrock.protocol.data.enums.bedrock.generated.PackType;
 import net.raphimc.viabedrock.protocol.storage.ResourcePacksStorage;
 
 import java.io.File;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.logging.Logger;
 
 public class Util {
 
+    /**
+     * Loads the protocol mappings without a running Via platform, so tools can use the real rewriters.
+     */
+    public static void loadMappings() throws ReflectiveOperationException {
+        final Logger logger = Logger.getLogger("ViaBedrock");
+        final Field platformField = ViaBedrock.class.getDeclaredField("platform");
+        platformField.setAccessible(true);
+        platformField.set(null, new ViaBedrockPlatform() {
+            @Override
+            public Logger getLogger() {
+                return logger;
+            }
+
+            @Override
+            public File getDataFolder() {
+                return new File(".");
+            }
+        });
+        Via.init((ViaManager) Proxy.newProxyInstance(Util.class.getClassLoader(), new Class[]{ViaManager.class}, (proxy, method, args) -> method.getReturnType() == boolean.class ? false : null)); // Only queried for the debug flag
+
+        final long start = System.currentTimeMillis();
+        BedrockProtocol.MAPPINGS.load();
+        System.out.println("Loading mappings took " + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    /**
+     * Creates a connection without a channel which has the vanilla resource packs loaded. Requires {@link #loadMappings()}.
+     */
+    public static UserConnection createUserConnection() {
+        final UserConnection user = new UserConnectionImpl(null, true);
+        final ResourcePacksStorage resourcePacksStorage = new ResourcePacksStorage(user);
+        resourcePacksStorage.setPackStack(new UUID[0], new UUID[0]);
+        user.put(resourcePacksStorage);
+        return user;
+    }
+
     public static ResourcePacksStorage getClientResourcePacks(final File clientDataDir) {
         final File resourcePacksDir = new File(clientDataDir, "resource_packs");
         final long start = System.currentTimeMillis();